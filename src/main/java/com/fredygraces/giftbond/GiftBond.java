@@ -2,15 +2,21 @@ package com.fredygraces.giftbond;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import com.fredygraces.giftbond.cache.PlayerNameCache;
+import com.fredygraces.giftbond.cache.AdvancedCacheManager;
+import com.fredygraces.giftbond.cache.PlayerSessionCache;
 import com.fredygraces.giftbond.commands.DataSystemCommand;
 import com.fredygraces.giftbond.commands.GiftBondUnifiedCommand;
 import com.fredygraces.giftbond.commands.RegaloCommand;
 import com.fredygraces.giftbond.events.GiftMenuListener;
 import com.fredygraces.giftbond.events.HistoryMenuListener;
+import com.fredygraces.giftbond.events.PlayerConnectionListener;
 import com.fredygraces.giftbond.health.DataIntegrityChecker;
+import com.fredygraces.giftbond.managers.BoostResolver;
 import com.fredygraces.giftbond.managers.ConfigManager;
 import com.fredygraces.giftbond.managers.DatabaseManager;
 import com.fredygraces.giftbond.managers.EconomyManager;
@@ -19,8 +25,14 @@ import com.fredygraces.giftbond.managers.GiftManager;
 import com.fredygraces.giftbond.menus.GiftMenu;
 import com.fredygraces.giftbond.menus.HistoryMenu;
 import com.fredygraces.giftbond.security.LicenseChecker;
+import com.fredygraces.giftbond.storage.AsyncStorage;
 import com.fredygraces.giftbond.storage.ConnectionPoolManager;
+import com.fredygraces.giftbond.storage.GiftCommitService;
+import com.fredygraces.giftbond.storage.HistoryArchiver;
 import com.fredygraces.giftbond.storage.MailboxDAO;
+import com.fredygraces.giftbond.storage.MailboxExpirationSweeper;
+import com.fredygraces.giftbond.storage.MailboxStatsBuffer;
+import com.fredygraces.giftbond.storage.StorageExecutor;
 import com.fredygraces.giftbond.storage.StorageManager;
 import com.fredygraces.giftbond.storage.SynchronizationManager;
 import com.fredygraces.giftbond.storage.TransactionManager;
@@ -32,7 +44,14 @@ public final class GiftBond extends JavaPlugin {
     private static GiftBond instance;
     private ConfigManager configManager;  // Nuevo gestor de configuraciones
     private DatabaseManager databaseManager;
+    private PlayerNameCache playerNameCache;
+    private PlayerSessionCache playerSessionCache;
+    private AdvancedCacheManager cacheManager;
+    private BoostResolver boostResolver;
+    private HistoryArchiver historyArchiver;
     private StorageManager storageManager;
+    private StorageExecutor storageExecutor;
+    private AsyncStorage asyncStorage;
     private TransactionManager transactionManager;
     private SynchronizationManager synchronizationManager;
     private ConnectionPoolManager connectionPoolManager;
@@ -40,7 +59,10 @@ public final class GiftBond extends JavaPlugin {
     private FriendshipManager friendshipManager;
     private EconomyManager economyManager;
     private GiftManager giftManager;
+    private MailboxStatsBuffer mailboxStatsBuffer;
     private MailboxDAO mailboxDAO;
+    private GiftCommitService giftCommitService;
+    private MailboxExpirationSweeper mailboxExpirationSweeper;
     private GiftMenu giftMenu;
     private HistoryMenu historyMenu;
     
@@ -106,26 +128,44 @@ public final class GiftBond extends JavaPlugin {
         // Copiar config.yml por defecto si no existe
         saveDefaultConfig();
         
-        // Inicializar DatabaseManager (legacy - para compatibilidad)
-        databaseManager = new DatabaseManager(this);
-        databaseManager.initialize();
+        // Inicializar StorageExecutor (hilo dedicado para SQLite)
+        storageExecutor = new StorageExecutor(this);
+        
+        // Inicializar ConnectionPoolManager (única fuente de conexiones: lectores en pool + un escritor)
+        connectionPoolManager = new ConnectionPoolManager(this);
+        if (!connectionPoolManager.initialize()) {
+            getLogger().severe("ERROR CRÍTICO: No se pudo inicializar el pool de conexiones!");
+            getLogger().severe("Deshabilitando plugin...");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
         
         // Inicializar TransactionManager (nuevo sistema de transacciones)
         transactionManager = new TransactionManager(this);
         // getLogger().info("✓ TransactionManager inicializado");
         
+        // Inicializar DatabaseManager (legacy - para compatibilidad)
+        databaseManager = new DatabaseManager(this);
+        databaseManager.initialize();
+        
+        // Inicializar cache de nombres de jugadores (tabla player_names)
+        playerNameCache = new PlayerNameCache(this);
+        
+        // Estado en memoria de los jugadores conectados
+        playerSessionCache = new PlayerSessionCache(this);
+        
+        // Cache de lecturas de cualquier jugador (amigos, totales, conteos de historial)
+        cacheManager = new AdvancedCacheManager(this);
+        cacheManager.start();
+        
+        // Inicializar archivado del historial (segmentos comprimidos por jugador y mes)
+        historyArchiver = new HistoryArchiver(this);
+        historyArchiver.start();
+        
         // Inicializar SynchronizationManager (control de concurrencia)
         synchronizationManager = new SynchronizationManager(this);
         // getLogger().info("✓ SynchronizationManager inicializado");
         
-        // Inicializar ConnectionPoolManager (pool de conexiones)
-        connectionPoolManager = new ConnectionPoolManager(this);
-        if (connectionPoolManager.initialize()) {
-            // getLogger().info("✓ ConnectionPoolManager inicializado");
-        } else {
-            // getLogger().warning("⚠ ConnectionPoolManager falló - usando conexión directa");
-        }
-        
         // Inicializar DataIntegrityChecker (monitoreo de integridad)
         dataIntegrityChecker = new DataIntegrityChecker(this);
         dataIntegrityChecker.schedulePeriodicChecks();
@@ -141,6 +181,12 @@ public final class GiftBond extends JavaPlugin {
             return;
         }
         
+        // Fachada asíncrona para comandos y menús (lecturas fuera del hilo principal)
+        asyncStorage = new AsyncStorage(this);
+        
+        // Multiplicadores de boosts resueltos en memoria
+        boostResolver = new BoostResolver(this);
+        
         // Inicializar FriendshipManager
         friendshipManager = new FriendshipManager(this);
         
@@ -150,9 +196,19 @@ public final class GiftBond extends JavaPlugin {
         // Inicializar GiftManager
         giftManager = new GiftManager(this);
         
+        // Estadísticas del mailbox acumuladas en memoria
+        mailboxStatsBuffer = new MailboxStatsBuffer(this);
+        mailboxStatsBuffer.start();
+        
         // Inicializar MailboxDAO
         mailboxDAO = new MailboxDAO(this);
-        mailboxDAO.initializeTables();
+        
+        // Confirmación de regalos en una única transacción
+        giftCommitService = new GiftCommitService(this);
+        
+        // Limpieza incremental de regalos caducados del mailbox
+        mailboxExpirationSweeper = new MailboxExpirationSweeper(this);
+        mailboxExpirationSweeper.start();
         
         // Inicializar sistema de regalos aleatorios (si está en modo auto)
         initializeRandomGiftSystem();
@@ -192,6 +248,14 @@ public final class GiftBond extends JavaPlugin {
         // Registrar eventos
         getServer().getPluginManager().registerEvents(new GiftMenuListener(this), this);
         getServer().getPluginManager().registerEvents(new HistoryMenuListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
+        
+        // Jugadores ya conectados (recarga del plugin)
+        for (Player online : Bukkit.getOnlinePlayers()) {
+            playerSessionCache.join(online.getUniqueId());
+        }
+        boostResolver.refreshAll();
+        boostResolver.start();
         
         // Registrar Placeholders de PlaceholderAPI
         if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) {
@@ -290,11 +354,52 @@ public final class GiftBond extends JavaPlugin {
             rotationTask.cancel();
         }
         
+        // Detener el archivado antes de vaciar el hilo de almacenamiento
+        if (historyArchiver != null) {
+            historyArchiver.shutdown();
+        }
+        if (mailboxExpirationSweeper != null) {
+            mailboxExpirationSweeper.shutdown();
+        }
+        if (boostResolver != null) {
+            boostResolver.shutdown();
+        }
+        
+        // Detener las lecturas asíncronas de comandos y menús
+        if (asyncStorage != null) {
+            asyncStorage.shutdown();
+        }
+        
+        // Esperar a que terminen las escrituras pendientes en el hilo de almacenamiento
+        if (storageExecutor != null) {
+            storageExecutor.shutdown();
+        }
+        
+        // Guardar las estadísticas del mailbox (ya no quedan escrituras en cola)
+        if (mailboxStatsBuffer != null) {
+            mailboxStatsBuffer.shutdown();
+        }
+        
         // Cerrar StorageManager (gestiona todos los almacenamientos)
         if (storageManager != null) {
             storageManager.close();
         }
         
+        // Guardar escrituras diferidas pendientes
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
+        
+        // Cerrar el cache en disco cuando ya no quedan escrituras que invaliden claves
+        if (cacheManager != null) {
+            cacheManager.shutdown();
+        }
+        
+        // Cerrar el pool de conexiones (lectores y escritor)
+        if (connectionPoolManager != null) {
+            connectionPoolManager.shutdown();
+        }
+        
         getLogger().info("GiftBond disabled successfully!");
     }
     
@@ -314,6 +419,46 @@ public final class GiftBond extends JavaPlugin {
         return databaseManager;
     }
     
+    /**
+     * Obtiene el cache persistente de nombres de jugadores
+     * @return PlayerNameCache instance
+     */
+    public PlayerNameCache getPlayerNameCache() {
+        return playerNameCache;
+    }
+    
+    /**
+     * Obtiene el estado en memoria de los jugadores conectados
+     * @return PlayerSessionCache instance
+     */
+    public PlayerSessionCache getPlayerSessionCache() {
+        return playerSessionCache;
+    }
+    
+    /**
+     * Obtiene el cache de lecturas del almacenamiento
+     * @return AdvancedCacheManager instance
+     */
+    public AdvancedCacheManager getCacheManager() {
+        return cacheManager;
+    }
+    
+    /**
+     * Obtiene el resolvedor de multiplicadores de boosts
+     * @return BoostResolver instance
+     */
+    public BoostResolver getBoostResolver() {
+        return boostResolver;
+    }
+    
+    /**
+     * Obtiene el archivador del historial de regalos
+     * @return HistoryArchiver instance
+     */
+    public HistoryArchiver getHistoryArchiver() {
+        return historyArchiver;
+    }
+    
     /**
      * Obtiene el StorageManager (nuevo sistema multi-database)
      * @return StorageManager instance
@@ -322,6 +467,22 @@ public final class GiftBond extends JavaPlugin {
         return storageManager;
     }
     
+    /**
+     * Obtiene el StorageExecutor (hilo dedicado de almacenamiento)
+     * @return StorageExecutor instance
+     */
+    public StorageExecutor getStorageExecutor() {
+        return storageExecutor;
+    }
+    
+    /**
+     * Obtiene la fachada asíncrona de almacenamiento
+     * @return AsyncStorage instance
+     */
+    public AsyncStorage getAsyncStorage() {
+        return asyncStorage;
+    }
+    
     /**
      * Obtiene el FriendshipManager
      * @return FriendshipManager instance
@@ -350,6 +511,30 @@ public final class GiftBond extends JavaPlugin {
         return mailboxDAO;
     }
     
+    /**
+     * Obtiene los contadores en memoria de mailbox_stats
+     * @return MailboxStatsBuffer instance
+     */
+    public MailboxStatsBuffer getMailboxStatsBuffer() {
+        return mailboxStatsBuffer;
+    }
+    
+    /**
+     * Obtiene el servicio de confirmación de regalos
+     * @return GiftCommitService instance
+     */
+    public GiftCommitService getGiftCommitService() {
+        return giftCommitService;
+    }
+    
+    /**
+     * Obtiene el limpiador de regalos caducados del mailbox
+     * @return MailboxExpirationSweeper instance
+     */
+    public MailboxExpirationSweeper getMailboxExpirationSweeper() {
+        return mailboxExpirationSweeper;
+    }
+    
     /**
      * Obtiene el GiftMenu
      * @return GiftMenu instance
@@ -124,6 +124,9 @@ public class BackupManager {
             // Reiniciar conexión a base de datos
             plugin.getStorageManager().initialize();
             
+            // Las lecturas cacheadas corresponden a los datos anteriores
+            plugin.getCacheManager().clear();
+            
             logger.info(() -> "✓ Backup restored successfully from: " + backupFileName);
             return true;
         } catch (IOException | RuntimeException e) {
@@ -1,165 +1,302 @@
 package com.fredygraces.giftbond.cache;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
 
 import com.fredygraces.giftbond.GiftBond;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
 
 /**
- * Sistema de caching avanzado con persistencia para proteger datos críticos
+ * Cache de lecturas delante del almacenamiento, para cualquier jugador (conectado o no)
+ * Cachés tipadas de listas de amigos, totales de amistad y conteos de historial;
+ * en cada fallo se consulta la base de datos y el resultado se guarda. Las escrituras
+ * invalidan las claves afectadas (onFriendshipChanged / onHistoryChanged).
+ * Los contadores expulsados por tamaño se guardan en el PersistentCache (L2) con la hora
+ * en que se guardaron; en disco caducan igual que en memoria (cache.expire_minutes)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
  */
 public class AdvancedCacheManager {
-    private final GiftBond plugin;
     private static final Logger logger = Logger.getLogger(AdvancedCacheManager.class.getName());
-    
-    // Cache L1: Memoria rápida
-    private final Cache<String, Object> memoryCache;
-    
-    // Cache L2: Persistente en disco
+
+    private static final String TOTAL_PREFIX = "total_";
+    private static final String HISTORY_COUNT_PREFIX = "history_count_";
+
+    private final GiftBond plugin;
     private final PersistentCache persistentCache;
-    
+
+    private final Cache<String, Map<String, Integer>> friendLists;
+    private final Cache<String, CachedCounter> friendshipTotals;
+    private final Cache<String, CachedCounter> historyCounts;
+    private final long expireMillis;
+
+    // Cambia con cada invalidación: una lectura que se cruza con una escritura no se guarda
+    private final AtomicLong generation = new AtomicLong();
+    // Generación de las últimas invalidaciones por clave en disco: un contador expulsado
+    // que se cruza con una invalidación no se guarda (protegido por persistLock)
+    private final Cache<String, Long> recentInvalidations;
+    private long clearedGeneration = -1L;
+    private final Object persistLock = new Object();
+    private BukkitTask maintenanceTask;
+
     public AdvancedCacheManager(GiftBond plugin) {
         this.plugin = plugin;
-        this.persistentCache = new PersistentCache(plugin);
-        
-        // Configurar cache en memoria
-        this.memoryCache = CacheBuilder.newBuilder()
-            .maximumSize(5000)
-            .expireAfterWrite(15, TimeUnit.MINUTES)
-            .expireAfterAccess(30, TimeUnit.MINUTES)
-            .removalListener(notification -> {
-                // Persistir datos importantes antes de eliminarlos
-                if (shouldPersist((String) notification.getKey())) {
-                    persistentCache.put((String) notification.getKey(), notification.getValue());
+
+        FileConfiguration config = plugin.getConfigManager().getDatabaseConfig();
+        long maximumSize = Math.max(100L, config.getLong("cache.maximum_size", 5000L));
+        long expireMinutes = Math.max(1L, config.getLong("cache.expire_minutes", 15L));
+        this.expireMillis = TimeUnit.MINUTES.toMillis(expireMinutes);
+        this.persistentCache = config.getBoolean("cache.persist_counters", true) ? new PersistentCache(plugin) : null;
+
+        this.friendLists = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+        this.friendshipTotals = counterCache(maximumSize, expireMinutes, TOTAL_PREFIX);
+        this.historyCounts = counterCache(maximumSize, expireMinutes, HISTORY_COUNT_PREFIX);
+        this.recentInvalidations = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize * 2)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+    }
+
+    private Cache<String, CachedCounter> counterCache(long maximumSize, long expireMinutes, String persistentPrefix) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+            .recordStats()
+            .<String, CachedCounter>removalListener(notification -> {
+                // Solo lo expulsado por falta de espacio sigue siendo válido
+                if (persistentCache != null && notification.getCause() == RemovalCause.SIZE) {
+                    persistEvicted(persistentPrefix + notification.getKey(), notification.getValue());
                 }
             })
             .build();
-            
-        startCacheMaintenance();
-        logger.info("✓ Advanced Cache Manager initialized");
     }
-    
+
     /**
-     * Obtener dato del cache (L1 → L2 → Base de datos)
+     * Guardar en disco un contador expulsado, salvo que su clave se haya invalidado después de leerlo
      */
-    public <T> T get(String key, Class<T> type) {
-        try {
-            // Intentar desde cache en memoria
-            if (key != null) {
-                Object cached = memoryCache.getIfPresent(key);
-                if (cached != null) {
-                    return type.cast(cached);
-                }
-            }
-            
-            // Intentar desde cache persistente
-            T persistent = persistentCache.get(key, type);
-            if (persistent != null) {
-                // Promover a cache en memoria
-                if (key != null) {
-                    memoryCache.put(key, persistent);
-                    return persistent;
-                }
+    private void persistEvicted(String persistentKey, CachedCounter counter) {
+        synchronized (persistLock) {
+            Long invalidatedAt = recentInvalidations.getIfPresent(persistentKey);
+            if (counter.generation < clearedGeneration || (invalidatedAt != null && counter.generation < invalidatedAt)) {
+                return;
             }
-            
-            return null;
-        } catch (Exception e) {
-            logger.severe(() -> "Error getting from cache: " + e.getMessage());
-            return null;
+            persistentCache.put(persistentKey, new PersistedCounter(counter.value, System.currentTimeMillis()));
         }
     }
-    
+
     /**
-     * Guardar dato en ambos niveles de cache
+     * Iniciar el mantenimiento periódico (limpieza de entradas caducadas y compactación del nivel en disco)
      */
-    public <T> void put(String key, T value) {
-        try {
-            // Guardar en cache en memoria
-            if (key != null && value != null) {
-                memoryCache.put(key, value);
+    public void start() {
+        maintenanceTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+            friendLists.cleanUp();
+            friendshipTotals.cleanUp();
+            historyCounts.cleanUp();
+            if (persistentCache != null) {
+                persistentCache.compactIfNeeded();
             }
-            
-            // Persistir datos críticos inmediatamente
-            if (shouldPersistImmediately(key)) {
-                persistentCache.put(key, value);
+            logger.fine(() -> "Cache de lecturas: " + friendLists.size() + " listas, "
+                + friendshipTotals.size() + " totales, " + historyCounts.size() + " conteos");
+        }, 1200L, 1200L);
+    }
+
+    public void shutdown() {
+        if (maintenanceTask != null) {
+            maintenanceTask.cancel();
+            maintenanceTask = null;
+        }
+        if (persistentCache != null) {
+            persistentCache.close();
+        }
+    }
+
+    // ===== Lecturas =====
+
+    /**
+     * Amigos y puntos de un jugador (copia modificable)
+     */
+    public Map<String, Integer> getFriendsWithPoints(String playerUUID, Function<String, Map<String, Integer>> loader) {
+        Map<String, Integer> friends = readThrough(friendLists, playerUUID,
+            key -> Collections.unmodifiableMap(new HashMap<>(loader.apply(key))));
+        return new HashMap<>(friends);
+    }
+
+    public int getTotalFriendshipPoints(String playerUUID, Function<String, Integer> loader) {
+        return readThrough(friendshipTotals, playerUUID, key -> loadCounter(TOTAL_PREFIX, key, loader)).value;
+    }
+
+    public int getGiftHistoryCount(String playerUUID, Function<String, Integer> loader) {
+        return readThrough(historyCounts, playerUUID, key -> loadCounter(HISTORY_COUNT_PREFIX, key, loader)).value;
+    }
+
+    private <V> V readThrough(Cache<String, V> cache, String key, Function<String, V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long before = generation.get();
+        V value = loader.apply(key);
+        if (value != null && generation.get() == before) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Contador expulsado a disco (si no ha caducado), o leído de la base de datos si no está
+     * readThrough solo lo guarda si la generación no cambia, así que la leída aquí es la suya
+     */
+    private CachedCounter loadCounter(String persistentPrefix, String key, Function<String, Integer> loader) {
+        long loadGeneration = generation.get();
+        if (persistentCache != null) {
+            PersistedCounter persisted = persistentCache.get(persistentPrefix + key, PersistedCounter.class);
+            if (persisted != null) {
+                if (System.currentTimeMillis() - persisted.storedAt < expireMillis) {
+                    return new CachedCounter(persisted.value, loadGeneration);
+                }
+                persistentCache.remove(persistentPrefix + key);
             }
-        } catch (Exception e) {
-            logger.severe(() -> "Error putting to cache: " + e.getMessage());
         }
+        Integer value = loader.apply(key);
+        return value != null ? new CachedCounter(value, loadGeneration) : null;
+    }
+
+    // ===== Invalidación (llamar después de cada escritura) =====
+
+    /**
+     * Puntos de una pareja modificados: listas y totales de ambos jugadores
+     */
+    public void onFriendshipChanged(String uuid1, String uuid2) {
+        generation.incrementAndGet();
+        friendLists.invalidateAll(List.of(uuid1, uuid2));
+        friendshipTotals.invalidateAll(List.of(uuid1, uuid2));
+        removePersisted(TOTAL_PREFIX, uuid1, uuid2);
     }
-    
+
     /**
-     * Invalidar cache y forzar sincronización con base de datos
+     * Regalo añadido al historial: conteos de emisor y receptor
      */
-    public void invalidate(String key) {
-        if (key != null) {
-            memoryCache.invalidate(key);
-            persistentCache.remove(key);
+    public void onHistoryChanged(String senderUUID, String receiverUUID) {
+        generation.incrementAndGet();
+        historyCounts.invalidateAll(List.of(senderUUID, receiverUUID));
+        removePersisted(HISTORY_COUNT_PREFIX, senderUUID, receiverUUID);
+    }
+
+    private void removePersisted(String prefix, String uuid1, String uuid2) {
+        if (persistentCache == null) {
+            return;
+        }
+        synchronized (persistLock) {
+            long invalidatedAt = generation.get();
+            for (String persistentKey : List.of(prefix + uuid1, prefix + uuid2)) {
+                recentInvalidations.put(persistentKey, invalidatedAt);
+                persistentCache.remove(persistentKey);
+            }
         }
     }
-    
+
     /**
-     * Limpiar todo el cache (usar con cuidado)
+     * Vaciar todos los niveles (p. ej. tras restaurar un backup)
      */
     public void clear() {
-        memoryCache.invalidateAll();
-        persistentCache.clear();
-        logger.info("Cache cleared and synchronized with database");
+        generation.incrementAndGet();
+        friendLists.invalidateAll();
+        friendshipTotals.invalidateAll();
+        historyCounts.invalidateAll();
+        if (persistentCache != null) {
+            synchronized (persistLock) {
+                clearedGeneration = generation.get();
+                persistentCache.clear();
+            }
+        }
     }
-    
+
+    // ===== Estadísticas =====
+
+    public List<CacheStatus> getStatus() {
+        return List.of(
+            new CacheStatus("Listas de amigos", friendLists.size(), friendLists.stats()),
+            new CacheStatus("Totales de amistad", friendshipTotals.size(), friendshipTotals.stats()),
+            new CacheStatus("Conteos de historial", historyCounts.size(), historyCounts.stats()));
+    }
+
     /**
-     * Determinar si un dato debe persistirse
+     * Entradas en disco del nivel persistente (0 si está deshabilitado)
      */
-    private boolean shouldPersist(String key) {
-        return key.startsWith("friendship:") || 
-               key.startsWith("points:") || 
-               key.startsWith("pending_gift:");
+    public int getPersistentSize() {
+        return persistentCache != null ? persistentCache.getSize() : 0;
     }
-    
+
     /**
-     * Determinar si un dato debe persistirse inmediatamente
+     * Contador en memoria con la generación en que se leyó
      */
-    private boolean shouldPersistImmediately(String key) {
-        return key.startsWith("pending_gift:") || // Regalos pendientes son críticos
-               key.startsWith("points:");         // Puntos personales son importantes
+    private static class CachedCounter {
+        private final int value;
+        private final long generation;
+
+        CachedCounter(int value, long generation) {
+            this.value = value;
+            this.generation = generation;
+        }
     }
-    
+
     /**
-     * Tarea de mantenimiento del cache
+     * Contador guardado en disco con la hora en que se guardó (para aplicar la caducidad)
      */
-    private void startCacheMaintenance() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    // Limpiar entradas expiradas
-                    memoryCache.cleanUp();
-                    
-                    // Verificar integridad del cache persistente
-                    persistentCache.validateIntegrity();
-                    
-                    // Log de estadísticas
-                    logger.info(() -> String.format(
-                        "Cache Stats - Memory: %d entries, Persistent: %d entries",
-                        memoryCache.size(),
-                        persistentCache.getSize()
-                    ));
-                } catch (Exception e) {
-                    logger.severe(() -> "Cache maintenance error: " + e.getMessage());
-                }
-            }
-        }.runTaskTimerAsynchronously(plugin, 1200L, 1200L); // Cada minuto
+    private static class PersistedCounter {
+        private final int value;
+        private final long storedAt;
+
+        PersistedCounter(int value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
     }
-    
+
     /**
-     * Forzar sincronización de cache con base de datos
+     * Tamaño y contadores de una caché tipada
      */
-    public void forceSync() {
-        logger.info("Forcing cache synchronization...");
-        persistentCache.syncToDatabase();
+    public static class CacheStatus {
+        private final String name;
+        private final long size;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+
+        public CacheStatus(String name, long size, CacheStats stats) {
+            this.name = name;
+            this.size = size;
+            this.hitCount = stats.hitCount();
+            this.missCount = stats.missCount();
+            this.evictionCount = stats.evictionCount();
+        }
+
+        public String getName() { return name; }
+        public long getSize() { return size; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0.0 : (double) hitCount / requests;
+        }
     }
-}
\ No newline at end of file
+}
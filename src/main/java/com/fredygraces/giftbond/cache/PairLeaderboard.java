@@ -0,0 +1,110 @@
+package com.fredygraces.giftbond.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+
+/**
+ * Ranking en memoria de los totales por pareja
+ * Se carga al iniciar desde pair_totals y se actualiza con cada escritura de puntos:
+ * actualizaciones O(log n) y lecturas del top-k O(k) sin acceder a SQLite
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class PairLeaderboard {
+
+    // Mayor puntuación primero; empates ordenados por UUID para un orden estable
+    private static final Comparator<FriendshipPair> RANKING_ORDER = Comparator
+        .comparingInt(FriendshipPair::getPoints).reversed()
+        .thenComparing(FriendshipPair::getPlayer1UUID)
+        .thenComparing(FriendshipPair::getPlayer2UUID);
+
+    private final NavigableSet<FriendshipPair> ranking = new TreeSet<>(RANKING_ORDER);
+    private final Map<String, FriendshipPair> byPair = new HashMap<>();
+
+    /**
+     * Reemplazar el contenido con los totales cargados de la base de datos
+     */
+    public synchronized void load(Collection<FriendshipPair> pairs) {
+        ranking.clear();
+        byPair.clear();
+        for (FriendshipPair pair : pairs) {
+            FriendshipPair canonical = canonical(pair.getPlayer1UUID(), pair.getPlayer2UUID(), pair.getPoints());
+            FriendshipPair previous = byPair.put(pairKey(canonical.getPlayer1UUID(), canonical.getPlayer2UUID()), canonical);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(canonical);
+        }
+    }
+
+    /**
+     * Sumar puntos a una pareja (en cualquier orden)
+     * @return Nuevo total de la pareja
+     */
+    public synchronized int addPoints(String uuid1, String uuid2, int points) {
+        FriendshipPair updated = canonical(uuid1, uuid2, points);
+        String key = pairKey(updated.getPlayer1UUID(), updated.getPlayer2UUID());
+
+        FriendshipPair previous = byPair.get(key);
+        if (previous != null) {
+            ranking.remove(previous);
+            updated = new FriendshipPair(previous.getPlayer1UUID(), previous.getPlayer2UUID(), previous.getPoints() + points);
+        }
+
+        byPair.put(key, updated);
+        ranking.add(updated);
+        return updated.getPoints();
+    }
+
+    /**
+     * Obtener las k parejas con más puntos
+     */
+    public synchronized List<FriendshipPair> getTop(int limit) {
+        List<FriendshipPair> top = new ArrayList<>(Math.max(0, Math.min(limit, ranking.size())));
+        Iterator<FriendshipPair> iterator = ranking.iterator();
+        while (top.size() < limit && iterator.hasNext()) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    /**
+     * Obtener la pareja Nº1 o null si no hay datos
+     */
+    public synchronized FriendshipPair getTop1() {
+        return ranking.isEmpty() ? null : ranking.first();
+    }
+
+    /**
+     * Obtener el total de una pareja (en cualquier orden)
+     */
+    public synchronized int getPoints(String uuid1, String uuid2) {
+        FriendshipPair canonical = canonical(uuid1, uuid2, 0);
+        FriendshipPair pair = byPair.get(pairKey(canonical.getPlayer1UUID(), canonical.getPlayer2UUID()));
+        return pair != null ? pair.getPoints() : 0;
+    }
+
+    public synchronized int size() {
+        return byPair.size();
+    }
+
+    private static FriendshipPair canonical(String uuid1, String uuid2, int points) {
+        return uuid1.compareTo(uuid2) <= 0
+            ? new FriendshipPair(uuid1, uuid2, points)
+            : new FriendshipPair(uuid2, uuid1, points);
+    }
+
+    private static String pairKey(String player1UUID, String player2UUID) {
+        return player1UUID + "|" + player2UUID;
+    }
+}
@@ -1,228 +1,486 @@
 package com.fredygraces.giftbond.cache;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 import com.fredygraces.giftbond.GiftBond;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
 /**
- * Cache persistente en disco para protección de datos críticos
+ * Cache persistente en disco: un único archivo de registros añadidos al final
+ * Cada put/remove añade un registro [longitud][operación + clave + valor][crc32] a cache.log
+ * y un índice en memoria guarda la posición del último registro de cada clave; get() lee
+ * solo ese registro y comprueba su CRC. Al arrancar se recorre el archivo una vez (un
+ * registro final incompleto se descarta) y compact() lo reescribe con las claves vivas
+ * cuando la mayor parte del archivo son registros obsoletos
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
  */
 public class PersistentCache {
     private static final Logger logger = Logger.getLogger(PersistentCache.class.getName());
-    private final Gson gson;
-    private final Path cacheDir;
-    private final Map<String, Object> memoryMirror;
-    
+
+    private static final int LOG_MAGIC = 0x4742434C; // "GBCL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    // Por debajo de este tamaño no compensa compactar
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_JSON = 6;
+
+    private final Gson gson = new Gson();
+    private final File logFile;
+    private final CRC32 crc = new CRC32();
+
+    // Clave -> posición de su último registro PUT
+    private final Map<String, Long> index = new HashMap<>();
+    private long liveBytes;
+    private FileChannel log;
+
     public PersistentCache(GiftBond plugin) {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.memoryMirror = new ConcurrentHashMap<>();
-        
-        // Crear directorio de cache
-        this.cacheDir = Paths.get(plugin.getDataFolder().getPath(), "cache");
+        this(new File(plugin.getDataFolder(), "cache"));
+    }
+
+    /**
+     * Abrir (o crear) el archivo de la carpeta indicada
+     */
+    PersistentCache(File directory) {
+        this.logFile = new File(directory, "cache.log");
         try {
-            Files.createDirectories(cacheDir);
+            Files.createDirectories(directory.toPath());
+            deleteLegacyFiles(directory.toPath());
+            open();
+            logger.fine(() -> "Cache persistente: " + index.size() + " claves cargadas");
         } catch (IOException e) {
-            logger.severe(() -> "Failed to create cache directory: " + e.getMessage());
+            logger.log(Level.SEVERE, "❌ No se pudo abrir el cache persistente " + logFile, e);
+            closeLog();
         }
-        
-        loadCache();
-        logger.info("✓ Persistent Cache initialized");
     }
-    
+
+    // ===== Operaciones =====
+
     /**
      * Obtener dato del cache persistente
+     * @return Valor, o null si no existe, es de otro tipo o su registro está dañado
      */
-    public <T> T get(String key, Class<T> type) {
+    public synchronized <T> T get(String key, Class<T> type) {
+        Long offset = index.get(key);
+        if (offset == null || log == null) {
+            return null;
+        }
         try {
-            Object value = memoryMirror.get(key);
-            if (value != null) {
-                return type.cast(value);
-            }
-            
-            // Cargar desde archivo si existe
-            Path cacheFile = cacheDir.resolve(key + ".cache");
-            if (Files.exists(cacheFile)) {
-                String json = Files.readString(cacheFile);
-                T result = gson.fromJson(json, type);
-                if (result != null) {
-                    memoryMirror.put(key, result);
-                    return result;
-                }
+            ByteBuffer payload = readRecord(offset);
+            if (payload == null) {
+                logger.warning(() -> "⚠ Registro dañado en el cache persistente: " + key);
+                dropKey(key);
+                return null;
             }
+            payload.get(); // OP_PUT
+            readString(payload);
+            Object value = readValue(payload, type);
+            return type.isInstance(value) ? type.cast(value) : null;
         } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error reading from persistent cache: " + e.getMessage());
+            logger.log(Level.WARNING, "⚠ Error leyendo del cache persistente: " + key, e);
+            return null;
         }
-        return null;
     }
-    
+
     /**
      * Guardar dato en cache persistente
      */
-    public <T> void put(String key, T value) {
+    public synchronized <T> void put(String key, T value) {
+        if (key == null || value == null || log == null) {
+            return;
+        }
         try {
-            // Guardar en memoria
-            memoryMirror.put(key, value);
-            
-            // Guardar en disco
-            Path cacheFile = cacheDir.resolve(key + ".cache");
-            String json = gson.toJson(value);
-            Files.writeString(cacheFile, json);
+            ByteBuffer record = encodeRecord(OP_PUT, key, value);
+            if (record == null) {
+                return;
+            }
+            long offset = append(record);
+            dropKey(key);
+            index.put(key, offset);
+            liveBytes += record.limit();
         } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error writing to persistent cache: " + e.getMessage());
+            logger.log(Level.WARNING, "⚠ Error escribiendo en el cache persistente: " + key, e);
         }
     }
-    
+
     /**
-     * Remover dato del cache
+     * Remover dato del cache (sin escribir nada si la clave no está guardada)
      */
-    public void remove(String key) {
+    public synchronized void remove(String key) {
+        if (log == null || !index.containsKey(key)) {
+            return;
+        }
         try {
-            memoryMirror.remove(key);
-            Path cacheFile = cacheDir.resolve(key + ".cache");
-            if (Files.exists(cacheFile)) {
-                Files.delete(cacheFile);
-            }
+            append(encodeRecord(OP_REMOVE, key, null));
+            dropKey(key);
         } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error removing from persistent cache: " + e.getMessage());
+            logger.log(Level.WARNING, "⚠ Error eliminando del cache persistente: " + key, e);
         }
     }
-    
+
     /**
-     * Cargar cache desde disco al iniciar
+     * Limpiar todo el cache
      */
-    private void loadCache() {
+    public synchronized void clear() {
+        index.clear();
+        liveBytes = 0;
+        if (log == null) {
+            return;
+        }
         try {
-            if (!Files.exists(cacheDir)) return;
-            
-            Files.list(cacheDir)
-                .filter(path -> path.toString().endsWith(".cache"))
-                .forEach(path -> {
-                    try {
-                        String key = path.getFileName().toString().replace(".cache", "");
-                        String json = Files.readString(path);
-                        
-                        // Intentar parsear como varios tipos comunes
-                        Object value = tryParseJson(json);
-                        if (value != null) {
-                            memoryMirror.put(key, value);
-                        }
-                    } catch (IOException | RuntimeException e) {
-                        logger.warning(() -> "Failed to load cache file " + path.getFileName() + ": " + e.getMessage());
-                    }
-                });
-                
-            logger.info(() -> "Loaded " + memoryMirror.size() + " entries from persistent cache");
-        } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error loading persistent cache: " + e.getMessage());
+            log.truncate(HEADER_SIZE);
+            log.position(HEADER_SIZE);
+            log.force(true);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "⚠ Error vaciando el cache persistente", e);
         }
     }
-    
+
+    /**
+     * Obtener número de claves guardadas
+     */
+    public synchronized int getSize() {
+        return index.size();
+    }
+
     /**
-     * Intentar parsear JSON a tipos comunes
+     * Compactar si la mayor parte del archivo son registros obsoletos
+     * @return true si se reescribió el archivo
      */
-    private Object tryParseJson(String json) {
+    public synchronized boolean compactIfNeeded() {
+        if (log == null) {
+            return false;
+        }
         try {
-            // Intentar como Map (para datos complejos)
-            return gson.fromJson(json, new TypeToken<Map<String, Object>>(){}.getType());
-        } catch (RuntimeException e1) {
-            try {
-                // Intentar como String
-                return gson.fromJson(json, String.class);
-            } catch (RuntimeException e2) {
-                try {
-                    // Intentar como Integer
-                    return gson.fromJson(json, Integer.class);
-                } catch (RuntimeException e3) {
-                    try {
-                        // Intentar como Boolean
-                        return gson.fromJson(json, Boolean.class);
-                    } catch (RuntimeException e4) {
-                        logger.warning(() -> "Could not parse cache entry: " + json.substring(0, Math.min(50, json.length())));
-                        return null;
-                    }
+            long size = log.size();
+            if (size < MIN_COMPACT_BYTES || liveBytes * 2 > size - HEADER_SIZE) {
+                return false;
+            }
+            compact();
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "⚠ Error compactando el cache persistente", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reescribir el archivo con el último registro de cada clave
+     */
+    synchronized void compact() throws IOException {
+        File tempFile = new File(logFile.getParentFile(), logFile.getName() + ".tmp");
+        Map<String, Long> compacted = new HashMap<>();
+        long compactedBytes = 0;
+
+        try (FileChannel out = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                ByteBuffer record = readRawRecord(entry.getValue());
+                if (record == null) {
+                    continue; // Dañado: se pierde solo esta clave
                 }
+                compacted.put(entry.getKey(), out.position());
+                compactedBytes += record.remaining();
+                writeFully(out, record);
             }
+            out.force(true);
         }
+
+        closeLog();
+        Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.position(log.size());
+
+        index.clear();
+        index.putAll(compacted);
+        liveBytes = compactedBytes;
+        logger.fine(() -> "Cache persistente compactado: " + index.size() + " claves");
     }
-    
+
     /**
-     * Validar integridad del cache
+     * Guardar en disco y cerrar el archivo
      */
-    public void validateIntegrity() {
+    public synchronized void close() {
+        if (log == null) {
+            return;
+        }
         try {
-            long corruptedFiles = Files.list(cacheDir)
-                .filter(path -> path.toString().endsWith(".cache"))
-                .mapToLong(path -> {
-                    try {
-                        String json = Files.readString(path);
-                        gson.fromJson(json, Object.class);
-                        return 0;
-                    } catch (IOException | RuntimeException e) {
-                        logger.warning(() -> "Corrupted cache file detected: " + path.getFileName());
-                        try {
-                            Files.delete(path);
-                            return 1;
-                        } catch (IOException ioException) {
-                            logger.severe(() -> "Could not delete corrupted file: " + ioException.getMessage());
-                            return 0;
-                        }
-                    }
-                })
-                .sum();
-                
-            if (corruptedFiles > 0) {
-                logger.info(() -> "Cleaned " + corruptedFiles + " corrupted cache files");
+            log.force(true);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "⚠ Error guardando el cache persistente", e);
+        }
+        closeLog();
+    }
+
+    private void dropKey(String key) throws IOException {
+        Long previous = index.remove(key);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+        }
+    }
+
+    // ===== Archivo =====
+
+    /**
+     * Abrir el archivo y reconstruir el índice recorriéndolo una vez
+     */
+    private void open() throws IOException {
+        boolean fresh = !logFile.exists() || logFile.length() < HEADER_SIZE;
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (fresh) {
+            log.truncate(0);
+            writeHeader(log);
+            log.force(true);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != LOG_MAGIC || header.getInt() != FORMAT_VERSION) {
+            logger.warning("⚠ Cache persistente con formato desconocido: se reinicia");
+            log.truncate(0);
+            writeHeader(log);
+            return;
+        }
+
+        long position = HEADER_SIZE;
+        long size = log.size();
+        while (position < size) {
+            ByteBuffer payload = readRecord(position);
+            if (payload == null) {
+                break;
             }
-        } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error validating cache integrity: " + e.getMessage());
+            int recordSize = 8 + payload.limit();
+            byte op = payload.get();
+            String key = readString(payload);
+            Long previous = op == OP_PUT ? index.put(key, position) : index.remove(key);
+            if (previous != null) {
+                liveBytes -= recordSize(previous);
+            }
+            if (op == OP_PUT) {
+                liveBytes += recordSize;
+            }
+            position += recordSize;
+        }
+
+        if (position < size) {
+            long discarded = size - position;
+            logger.warning(() -> "⚠ Cache persistente con un registro final incompleto: se descartan " + discarded + " bytes");
+            log.truncate(position);
         }
+        log.position(position);
     }
-    
+
     /**
-     * Sincronizar cache con base de datos
+     * Archivos *.cache del formato anterior (un JSON por clave): solo eran copia de la base de datos
      */
-    public void syncToDatabase() {
-        // Esta sería la implementación para sincronizar con la base de datos
-        // Por ahora solo logueamos que se está haciendo
-        logger.info("Cache synchronization would occur here");
+    private static void deleteLegacyFiles(Path directory) throws IOException {
+        try (DirectoryStream<Path> legacy = Files.newDirectoryStream(directory, "*.cache")) {
+            for (Path path : legacy) {
+                Files.deleteIfExists(path);
+            }
+        }
     }
-    
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).flip();
+        writeFully(channel, header);
+    }
+
+    private long append(ByteBuffer record) throws IOException {
+        long offset = log.size();
+        log.position(offset);
+        writeFully(log, record);
+        return offset;
+    }
+
     /**
-     * Limpiar todo el cache
+     * Leer un registro y comprobar su CRC
+     * @return Contenido (operación + clave + valor), o null si está incompleto o dañado
      */
-    public void clear() {
-        try {
-            memoryMirror.clear();
-            if (Files.exists(cacheDir)) {
-                Files.walk(cacheDir)
-                    .filter(path -> path.toString().endsWith(".cache"))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.warning(() -> "Could not delete cache file: " + path.getFileName());
-                        }
-                    });
+    private ByteBuffer readRecord(long offset) throws IOException {
+        ByteBuffer raw = readRawRecord(offset);
+        if (raw == null) {
+            return null;
+        }
+        raw.position(4);
+        raw.limit(raw.limit() - 4);
+        return raw.slice();
+    }
+
+    /**
+     * Leer un registro completo ([longitud][contenido][crc]) comprobando su CRC
+     */
+    private ByteBuffer readRawRecord(long offset) throws IOException {
+        int length = recordLength(offset);
+        if (length <= 0 || length > MAX_RECORD_SIZE || offset + 8L + length > log.size()) {
+            return null;
+        }
+        ByteBuffer raw = ByteBuffer.allocate(8 + length);
+        readFully(raw, offset);
+        crc.reset();
+        crc.update(raw.array(), 4, length);
+        if ((int) crc.getValue() != raw.getInt(4 + length)) {
+            return null;
+        }
+        raw.flip();
+        return raw;
+    }
+
+    private int recordLength(long offset) throws IOException {
+        if (offset + 4 > log.size()) {
+            return -1;
+        }
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        return length.getInt(0);
+    }
+
+    private long recordSize(long offset) throws IOException {
+        return 8L + recordLength(offset);
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Fin de archivo inesperado en " + logFile);
             }
-            logger.info("Persistent cache cleared");
-        } catch (IOException | RuntimeException e) {
-            logger.severe(() -> "Error clearing persistent cache: " + e.getMessage());
         }
     }
-    
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error cerrando el cache persistente", e);
+        }
+        log = null;
+    }
+
+    // ===== Codificación =====
+
     /**
-     * Obtener tamaño del cache
+     * Registro listo para escribir: [longitud][operación][clave][tipo + valor][crc32]
+     * @return null si el registro supera el tamaño máximo
      */
-    public int getSize() {
-        return memoryMirror.size();
+    private ByteBuffer encodeRecord(byte op, String key, Object value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = null;
+        byte valueType = 0;
+        if (op == OP_PUT) {
+            if (value instanceof String string) {
+                valueType = TYPE_STRING;
+                valueBytes = string.getBytes(StandardCharsets.UTF_8);
+            } else if (value instanceof Integer || value instanceof Long
+                    || value instanceof Double || value instanceof Boolean) {
+                valueType = value instanceof Integer ? TYPE_INT
+                    : value instanceof Long ? TYPE_LONG
+                    : value instanceof Double ? TYPE_DOUBLE : TYPE_BOOLEAN;
+            } else {
+                valueType = TYPE_JSON;
+                valueBytes = gson.toJson(value).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        int length = 1 + 2 + keyBytes.length + (op == OP_PUT ? 1 + valueSize(valueType, valueBytes) : 0);
+        if (length > MAX_RECORD_SIZE || keyBytes.length > 0xFFFF) {
+            logger.warning(() -> "⚠ Valor demasiado grande para el cache persistente: " + key);
+            return null;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(8 + length);
+        record.putInt(length);
+        record.put(op);
+        record.putShort((short) keyBytes.length);
+        record.put(keyBytes);
+        if (op == OP_PUT) {
+            record.put(valueType);
+            switch (valueType) {
+                case TYPE_INT -> record.putInt((Integer) value);
+                case TYPE_LONG -> record.putLong((Long) value);
+                case TYPE_DOUBLE -> record.putDouble((Double) value);
+                case TYPE_BOOLEAN -> record.put((byte) (((Boolean) value) ? 1 : 0));
+                default -> {
+                    record.putInt(valueBytes.length);
+                    record.put(valueBytes);
+                }
+            }
+        }
+        crc.reset();
+        crc.update(record.array(), 4, length);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static int valueSize(byte valueType, byte[] valueBytes) {
+        return switch (valueType) {
+            case TYPE_INT -> 4;
+            case TYPE_LONG, TYPE_DOUBLE -> 8;
+            case TYPE_BOOLEAN -> 1;
+            default -> 4 + valueBytes.length;
+        };
+    }
+
+    private Object readValue(ByteBuffer payload, Class<?> type) {
+        byte valueType = payload.get();
+        return switch (valueType) {
+            case TYPE_INT -> payload.getInt();
+            case TYPE_LONG -> payload.getLong();
+            case TYPE_DOUBLE -> payload.getDouble();
+            case TYPE_BOOLEAN -> payload.get() != 0;
+            case TYPE_STRING -> readBytes(payload);
+            case TYPE_JSON -> gson.fromJson(readBytes(payload), type);
+            default -> null;
+        };
+    }
+
+    private static String readBytes(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort() & 0xFFFF];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package com.fredygraces.giftbond.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.storage.UuidCodec;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache persistente UUID → nombre de jugador
+ * Memoria acotada delante de la tabla player_names, que se rellena al entrar al servidor
+ * y al enviar regalos. Evita Bukkit.getOfflinePlayer(UUID) por cada fila mostrada
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class PlayerNameCache {
+    private static final Logger logger = Logger.getLogger(PlayerNameCache.class.getName());
+
+    public static final String UNKNOWN_NAME = "Desconocido";
+
+    private static final int MAX_CACHED_NAMES = 5000;
+    // Límite de parámetros por consulta IN (SQLite admite 999 en versiones antiguas)
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private static final String UPSERT_NAME_SQL = """
+        INSERT INTO player_names (uuid, name, last_seen)
+        VALUES (?, ?, ?)
+        ON CONFLICT(uuid)
+        DO UPDATE SET name = excluded.name, last_seen = excluded.last_seen
+        """;
+
+    private final GiftBond plugin;
+    private final Cache<UUID, String> names;
+
+    public PlayerNameCache(GiftBond plugin) {
+        this.plugin = plugin;
+        this.names = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_NAMES)
+            .build();
+    }
+
+    /**
+     * Registrar el nombre actual de un jugador
+     * Solo escribe en la base de datos si el nombre cambió respecto al cache
+     */
+    public void remember(UUID uuid, String name) {
+        if (uuid == null || name == null || name.isEmpty()) {
+            return;
+        }
+        if (name.equals(names.getIfPresent(uuid))) {
+            return;
+        }
+
+        names.put(uuid, name);
+        plugin.getStorageExecutor().run(() -> persist(uuid, name));
+    }
+
+    /**
+     * Resolver el nombre de un UUID en formato texto
+     * @return Nombre conocido o "Desconocido"
+     */
+    public String getName(String uuid) {
+        UUID parsed = parse(uuid);
+        if (parsed == null) {
+            return UNKNOWN_NAME;
+        }
+        return resolveNames(List.of(parsed)).getOrDefault(parsed, UNKNOWN_NAME);
+    }
+
+    /**
+     * Resolver varios UUIDs en una sola pasada: memoria, luego una consulta por lote
+     * a player_names y, solo para los que falten, Bukkit.getOfflinePlayer
+     * @return Mapa con los UUIDs resueltos (los desconocidos no aparecen)
+     */
+    public Map<UUID, String> resolveNames(Collection<UUID> uuids) {
+        Map<UUID, String> resolved = new HashMap<>();
+        Set<UUID> missing = new LinkedHashSet<>();
+
+        for (UUID uuid : uuids) {
+            if (uuid == null || resolved.containsKey(uuid)) {
+                continue;
+            }
+            String cached = names.getIfPresent(uuid);
+            if (cached != null) {
+                resolved.put(uuid, cached);
+            } else {
+                missing.add(uuid);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+
+        loadFromDatabase(missing, resolved);
+        missing.removeAll(resolved.keySet());
+
+        // Último recurso: usercache del servidor; se persiste para no repetirlo
+        for (UUID uuid : missing) {
+            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
+            String name = offlinePlayer.getName();
+            if (name != null) {
+                resolved.put(uuid, name);
+                remember(uuid, name);
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Resolver varios UUIDs en formato texto; los inválidos se ignoran
+     * @return Mapa UUID (texto) → nombre, con "Desconocido" para los no encontrados
+     */
+    public Map<String, String> resolveNameStrings(Collection<String> uuids) {
+        List<UUID> parsed = new ArrayList<>(uuids.size());
+        for (String uuid : uuids) {
+            UUID value = parse(uuid);
+            if (value != null) {
+                parsed.add(value);
+            }
+        }
+
+        Map<UUID, String> resolved = resolveNames(parsed);
+        Map<String, String> result = new HashMap<>();
+        for (String uuid : uuids) {
+            UUID value = parse(uuid);
+            result.put(uuid, value != null ? resolved.getOrDefault(value, UNKNOWN_NAME) : UNKNOWN_NAME);
+        }
+        return result;
+    }
+
+    private void loadFromDatabase(Set<UUID> missing, Map<UUID, String> resolved) {
+        List<UUID> pending = new ArrayList<>(missing);
+
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+        try (Connection conn = plugin.getDatabaseManager().getReaderConnection()) {
+            for (int start = 0; start < pending.size(); start += LOOKUP_CHUNK_SIZE) {
+                List<UUID> chunk = pending.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, pending.size()));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                String sql = "SELECT uuid, name FROM player_names WHERE uuid IN (" + placeholders + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        uuids.bind(pstmt, i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            UUID uuid = uuids.readUuid(rs, "uuid");
+                            String name = rs.getString("name");
+                            if (uuid != null && name != null) {
+                                names.put(uuid, name);
+                                resolved.put(uuid, name);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error resolviendo nombres de jugadores", e);
+        }
+    }
+
+    private void persist(UUID uuid, String name) {
+        try (Connection conn = plugin.getDatabaseManager().getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(UPSERT_NAME_SQL)) {
+            plugin.getDatabaseManager().getUuidCodec().bind(pstmt, 1, uuid);
+            pstmt.setString(2, name);
+            pstmt.setLong(3, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error guardando nombre de jugador " + name, e);
+        }
+    }
+
+    private static UUID parse(String uuid) {
+        if (uuid == null || uuid.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.fredygraces.giftbond.cache;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+import com.fredygraces.giftbond.storage.MailboxDAO;
+import com.fredygraces.giftbond.storage.MailboxDAO.MailboxSummary;
+
+/**
+ * Estado de los jugadores conectados servido desde memoria
+ * Se carga en el hilo de almacenamiento al iniciar sesión (AsyncPlayerPreLoginEvent),
+ * se mantiene con cada escritura confirmada y se descarta al salir. Mientras la carga
+ * no termina, o para jugadores desconectados, las lecturas siguen yendo a la base de datos.
+ * Las sesiones precargadas de jugadores que nunca llegan a entrar (desconexión o expulsión
+ * antes de PlayerJoinEvent) caducan y se eliminan en las siguientes cargas
+ *
+ * La carga se ejecuta en el StorageExecutor, en orden con las escrituras que pasan por él;
+ * si durante la lectura llega una escritura de otro hilo, la instantánea se vuelve a leer.
+ * Las escrituras hechas fuera de ese hilo se marcan con beginWrite/endWrite: mientras hay
+ * una en curso no se acepta la instantánea (podría incluir ya su commit y sumarlo dos veces)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class PlayerSessionCache {
+    private static final Logger logger = Logger.getLogger(PlayerSessionCache.class.getName());
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private static final long UNJOINED_SESSION_TIMEOUT_MS = 5 * 60 * 1000L;
+
+    private final GiftBond plugin;
+    private final Map<String, PlayerSession> sessions = new ConcurrentHashMap<>();
+    // Escrituras en curso fuera del hilo de almacenamiento, por jugador (tenga sesión o no)
+    private final Map<String, Integer> writesInFlight = new ConcurrentHashMap<>();
+
+    public PlayerSessionCache(GiftBond plugin) {
+        this.plugin = plugin;
+    }
+
+    // ===== Ciclo de vida =====
+
+    /**
+     * Crear la sesión de un jugador y programar su carga en el hilo de almacenamiento
+     */
+    public void load(UUID playerId) {
+        evictAbandoned();
+        String uuid = playerId.toString();
+        PlayerSession session = new PlayerSession();
+        PlayerSession previous = sessions.putIfAbsent(uuid, session);
+        if (previous != null) {
+            return;
+        }
+        try {
+            plugin.getStorageExecutor().run(() -> loadSession(uuid, session));
+        } catch (RejectedExecutionException e) {
+            sessions.remove(uuid, session);
+        }
+    }
+
+    /**
+     * Jugador ya dentro del servidor: cargar la sesión si no se precargó y marcarla como activa
+     */
+    public void join(UUID playerId) {
+        load(playerId);
+        PlayerSession session = sessions.get(playerId.toString());
+        if (session != null) {
+            session.joined = true;
+        }
+    }
+
+    /**
+     * Eliminar las sesiones precargadas cuyo jugador no entró dentro del plazo
+     */
+    private void evictAbandoned() {
+        long cutoff = System.currentTimeMillis() - UNJOINED_SESSION_TIMEOUT_MS;
+        sessions.values().removeIf(session -> !session.joined && session.createdAt < cutoff);
+    }
+
+    /**
+     * Descartar la sesión de un jugador (al salir o si se le deniega la entrada)
+     */
+    public void evict(UUID playerId) {
+        sessions.remove(playerId.toString());
+    }
+
+    /**
+     * Sesiones con el estado ya cargado
+     */
+    public int getLoadedCount() {
+        int loaded = 0;
+        for (PlayerSession session : sessions.values()) {
+            if (session.ready) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void loadSession(String uuid, PlayerSession session) {
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        MailboxDAO mailboxDAO = plugin.getMailboxDAO();
+
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            int writesBefore;
+            synchronized (session) {
+                writesBefore = session.writes;
+            }
+            try {
+                int personalPoints = databaseManager.getPersonalPoints(uuid);
+                String today = LocalDate.now().toString();
+                int dailyCount = databaseManager.getDailyGiftCount(uuid);
+                Map<String, Integer> friends = databaseManager.getPlayerFriendsWithPoints(uuid);
+                MailboxSummary mailbox = mailboxDAO.getMailboxSummary(UUID.fromString(uuid));
+
+                synchronized (session) {
+                    if (sessions.get(uuid) != session) {
+                        return; // El jugador ya salió
+                    }
+                    if (session.writes != writesBefore || writesInFlight.containsKey(uuid)) {
+                        continue;
+                    }
+                    session.personalPoints = personalPoints;
+                    session.dailyDate = today;
+                    session.dailyCount = dailyCount;
+                    session.friends = new HashMap<>(friends);
+                    session.pendingGifts = mailbox.getPendingCount();
+                    session.pendingMoney = mailbox.getTotalMoney();
+                    session.pendingSlots = mailbox.getEstimatedSlots();
+                    session.ready = true;
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "⚠ Error cargando la sesión de " + uuid, e);
+                return;
+            }
+        }
+        // Sin instantánea coherente: las lecturas de este jugador siguen yendo a la base de datos
+        logger.fine(() -> "Sesión de " + uuid + " sin cargar: escrituras concurrentes");
+    }
+
+    // ===== Lecturas (null si el jugador no tiene sesión cargada) =====
+
+    public Integer getPersonalPoints(String playerUUID) {
+        PlayerSession session = sessions.get(playerUUID);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return session.ready ? session.personalPoints : null;
+        }
+    }
+
+    public Integer getDailyGiftCount(String playerUUID) {
+        PlayerSession session = sessions.get(playerUUID);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            if (!session.ready) {
+                return null;
+            }
+            session.rollDailyCount();
+            return session.dailyCount;
+        }
+    }
+
+    /**
+     * Amigos y puntos del jugador (copia)
+     */
+    public Map<String, Integer> getFriendsWithPoints(String playerUUID) {
+        PlayerSession session = sessions.get(playerUUID);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return session.ready ? new HashMap<>(session.friends) : null;
+        }
+    }
+
+    public Integer getTotalFriendshipPoints(String playerUUID) {
+        PlayerSession session = sessions.get(playerUUID);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            if (!session.ready) {
+                return null;
+            }
+            int total = 0;
+            for (int points : session.friends.values()) {
+                total += points;
+            }
+            return total;
+        }
+    }
+
+    public MailboxSummary getMailboxSummary(UUID playerId) {
+        PlayerSession session = sessions.get(playerId.toString());
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return session.ready
+                ? new MailboxSummary(session.pendingGifts, session.pendingMoney, session.pendingSlots)
+                : null;
+        }
+    }
+
+    // ===== Escrituras confirmadas =====
+
+    /**
+     * Marcar el inicio de una escritura hecha fuera del hilo de almacenamiento
+     * Llamar antes de escribir en la base de datos y endWrite después de publicar el cambio
+     */
+    public void beginWrite(String... playerUUIDs) {
+        for (String playerUUID : playerUUIDs) {
+            writesInFlight.merge(playerUUID, 1, Integer::sum);
+        }
+    }
+
+    public void endWrite(String... playerUUIDs) {
+        for (String playerUUID : playerUUIDs) {
+            writesInFlight.computeIfPresent(playerUUID, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Puntos sumados a una pareja (se reflejan en la sesión de ambos jugadores)
+     */
+    public void addFriendshipPoints(String uuid1, String uuid2, int points) {
+        update(uuid1, session -> session.friends.merge(uuid2, points, Integer::sum));
+        if (!uuid1.equals(uuid2)) {
+            update(uuid2, session -> session.friends.merge(uuid1, points, Integer::sum));
+        }
+    }
+
+    public void addPersonalPoints(String playerUUID, int points) {
+        update(playerUUID, session -> session.personalPoints += points);
+    }
+
+    public void setPersonalPoints(String playerUUID, int points) {
+        update(playerUUID, session -> session.personalPoints = points);
+    }
+
+    public void incrementDailyGiftCount(String playerUUID) {
+        update(playerUUID, session -> {
+            session.rollDailyCount();
+            session.dailyCount++;
+        });
+    }
+
+    /**
+     * Sumar (o restar) a los totales del mailbox del jugador
+     */
+    public void adjustMailbox(UUID playerId, int count, double money, int slots) {
+        update(playerId.toString(), session -> {
+            session.pendingGifts = Math.max(0, session.pendingGifts + count);
+            session.pendingMoney = session.pendingGifts == 0 ? 0 : session.pendingMoney + money;
+            session.pendingSlots = session.pendingGifts == 0 ? 0 : Math.max(0, session.pendingSlots + slots);
+        });
+    }
+
+    private void update(String playerUUID, Consumer<PlayerSession> change) {
+        PlayerSession session = sessions.get(playerUUID);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            session.writes++;
+            if (session.ready) {
+                change.accept(session);
+            }
+        }
+    }
+
+    /**
+     * Estado en memoria de un jugador conectado; protegido por su propio monitor
+     */
+    private static class PlayerSession {
+        private volatile boolean ready;
+        private volatile boolean joined;
+        private final long createdAt = System.currentTimeMillis();
+        private int writes;
+
+        private int personalPoints;
+        private String dailyDate;
+        private int dailyCount;
+        private Map<String, Integer> friends = new HashMap<>();
+        private int pendingGifts;
+        private double pendingMoney;
+        private int pendingSlots;
+
+        /**
+         * Reiniciar el contador diario al cambiar de día
+         */
+        void rollDailyCount() {
+            String today = LocalDate.now().toString();
+            if (!today.equals(dailyDate)) {
+                dailyDate = today;
+                dailyCount = 0;
+            }
+        }
+    }
+}
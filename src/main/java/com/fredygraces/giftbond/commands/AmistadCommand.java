@@ -38,32 +38,59 @@ public class AmistadCommand implements CommandExecutor {
         
         String playerUUID = player.getUniqueId().toString();
         
-        // Obtener puntos de amistad del jugador
+        // Consultar puntos y amistades fuera del hilo principal; los mensajes se envían al volver
+        plugin.getAsyncStorage().acceptOnMainThread(
+            plugin.getAsyncStorage().read(() -> loadSummary(playerUUID)),
+            summary -> {
+                if (player.isOnline()) {
+                    sendSummary(player, summary);
+                }
+            });
+        
+        return true;
+    }
+    
+    /**
+     * Leer los puntos del jugador y sus 5 mejores amistades con nombres resueltos
+     */
+    private FriendshipSummary loadSummary(String playerUUID) {
         int totalPoints = friendshipManager.getTotalPoints(playerUUID);
         int personalPoints = friendshipManager.getPersonalPoints(playerUUID);
         java.util.List<java.util.Map.Entry<String, Integer>> friends = 
             friendshipManager.getSortedFriends(playerUUID);
         
+        // Mostrar solo top 5 como solicitado
+        java.util.List<java.util.Map.Entry<String, Integer>> topFriends =
+            new java.util.ArrayList<>(friends.subList(0, Math.min(5, friends.size())));
+        
+        // Resolver los nombres mostrados en un solo lote
+        java.util.List<String> friendUUIDs = new java.util.ArrayList<>();
+        for (java.util.Map.Entry<String, Integer> friend : topFriends) {
+            friendUUIDs.add(friend.getKey());
+        }
+        java.util.Map<String, String> friendNames = plugin.getPlayerNameCache().resolveNameStrings(friendUUIDs);
+        
+        return new FriendshipSummary(totalPoints, personalPoints, topFriends, friendNames);
+    }
+    
+    private void sendSummary(Player player, FriendshipSummary summary) {
         // Enviar mensaje al jugador
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_header", "&d&m━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━")));
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_title", "&d&l💕 PUNTOS DE AMISTAD")));
         player.sendMessage("");
         
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_personal_points", "&ePuntos personales (para canjear): &a{points}")
-                .replace("{points}", String.valueOf(personalPoints))));
+                .replace("{points}", String.valueOf(summary.personalPoints))));
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_your_points", "&eTus puntos de amistad totales: &f{points}")
-                .replace("{points}", String.valueOf(totalPoints))));
+                .replace("{points}", String.valueOf(summary.totalPoints))));
         player.sendMessage("");
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_friendships_title", "&eTus amistades:")));
         
-        if (friends.isEmpty()) {
+        if (summary.topFriends.isEmpty()) {
             player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_no_friends", "&7No tienes puntos de amistad con nadie aún.")));
         } else {
-            // Mostrar solo top 5 como solicitado
-            int maxDisplay = Math.min(5, friends.size());
-            for (int i = 0; i < maxDisplay; i++) {
-                java.util.Map.Entry<String, Integer> friend = friends.get(i);
-                String friendName = getFriendName(friend.getKey());
+            for (java.util.Map.Entry<String, Integer> friend : summary.topFriends) {
+                String friendName = summary.friendNames.get(friend.getKey());
                 String entry = plugin.getMessage("info.friendship_friend_entry", "&f{friend}: &a{points}")
                         .replace("{friend}", friendName)
                         .replace("{points}", String.valueOf(friend.getValue()));
@@ -73,19 +100,29 @@ public class AmistadCommand implements CommandExecutor {
         
         player.sendMessage("");
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.friendship_footer", "&d&m━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━")));
-        
-        return true;
-    }
-    
-    private String getFriendName(String uuid) {
-        // Intentar obtener el nombre del jugador desde el servidor
-        org.bukkit.OfflinePlayer offlinePlayer = org.bukkit.Bukkit.getOfflinePlayer(
-            java.util.UUID.fromString(uuid));
-        return offlinePlayer.getName() != null ? offlinePlayer.getName() : "Desconocido";
     }
     
     // Método que utiliza el plugin para acceder a funcionalidades
     public GiftBond getPlugin() {
         return this.plugin;
     }
+    
+    /**
+     * Datos leídos para el resumen de /amistad
+     */
+    private static class FriendshipSummary {
+        private final int totalPoints;
+        private final int personalPoints;
+        private final java.util.List<java.util.Map.Entry<String, Integer>> topFriends;
+        private final java.util.Map<String, String> friendNames;
+        
+        FriendshipSummary(int totalPoints, int personalPoints,
+                          java.util.List<java.util.Map.Entry<String, Integer>> topFriends,
+                          java.util.Map<String, String> friendNames) {
+            this.totalPoints = totalPoints;
+            this.personalPoints = personalPoints;
+            this.topFriends = topFriends;
+            this.friendNames = friendNames;
+        }
+    }
 }
\ No newline at end of file
@@ -8,8 +8,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.cache.AdvancedCacheManager;
 import com.fredygraces.giftbond.storage.SynchronizationManager;
 import com.fredygraces.giftbond.storage.TransactionManager;
+import com.fredygraces.giftbond.storage.WriteBehindQueue;
 
 /**
  * Comando para demostrar el sistema mejorado de guardado de datos
@@ -89,6 +91,25 @@ public class DataSystemCommand implements CommandExecutor {
         player.sendMessage("  §7Monitores: §e" + syncStatus.getMonitors());
         player.sendMessage("  §7Salud: §e" + (syncStatus.isHealthy() ? "BUENA" : "PROBLEMAS"));
         
+        // Estado de la escritura diferida
+        WriteBehindQueue writeBehindQueue = plugin.getDatabaseManager().getWriteBehindQueue();
+        player.sendMessage("§aEscritura diferida:");
+        if (writeBehindQueue != null) {
+            player.sendMessage("  §7Operaciones pendientes: §e" + writeBehindQueue.getPendingCount());
+        } else {
+            player.sendMessage("  §7Estado: §eDESHABILITADA");
+        }
+        
+        // Cache de lecturas
+        AdvancedCacheManager cacheManager = plugin.getCacheManager();
+        player.sendMessage("§aCache de lecturas:");
+        for (AdvancedCacheManager.CacheStatus cache : cacheManager.getStatus()) {
+            player.sendMessage(String.format("  §7%s: §e%d §7entradas, aciertos §e%d §7(%.1f%%), fallos §e%d§7, expulsiones §e%d",
+                cache.getName(), cache.getSize(), cache.getHitCount(), cache.getHitRate() * 100,
+                cache.getMissCount(), cache.getEvictionCount()));
+        }
+        player.sendMessage("  §7En disco: §e" + cacheManager.getPersistentSize());
+        
         player.sendMessage("§6═══════════════════════════════════════");
     }
     
@@ -156,7 +177,7 @@ public class DataSystemCommand implements CommandExecutor {
         
         try {
             // Test de conexión a base de datos
-            if (plugin.getDatabaseManager().getConnection() != null) {
+            if (plugin.getConnectionPoolManager().isHealthy()) {
                 databaseOK = true;
                 player.sendMessage("§a✓ Base de datos: CONECTADA");
             } else {
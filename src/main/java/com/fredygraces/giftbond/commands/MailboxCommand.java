@@ -1,8 +1,15 @@
 package com.fredygraces.giftbond.commands;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -17,6 +24,7 @@ import com.fredygraces.giftbond.logging.GiftBondLogger;
 import com.fredygraces.giftbond.models.MailboxGift;
 import com.fredygraces.giftbond.permissions.PermissionManager;
 import com.fredygraces.giftbond.storage.MailboxDAO;
+import com.fredygraces.giftbond.storage.StorageExecutor;
 import com.fredygraces.giftbond.utils.DebugLogger;
 
 /**
@@ -27,6 +35,8 @@ public class MailboxCommand implements CommandExecutor {
     private final GiftBond plugin;
     private final MailboxDAO mailboxDAO;
     private final DebugLogger debugLogger;
+    // Jugadores con un reclamo en curso (lectura o transacción en el hilo de almacenamiento)
+    private final Set<UUID> pendingClaims = ConcurrentHashMap.newKeySet();
 
     public MailboxCommand(GiftBond plugin) {
         this.plugin = plugin;
@@ -114,109 +124,51 @@ public class MailboxCommand implements CommandExecutor {
         debugLogger.debug("=== CLAIM FILTERED ATTEMPT (" + filter + ") ===");
         debugLogger.debug("Player: " + player.getName());
         
-        List<MailboxGift> allGifts = mailboxDAO.getAllPendingGifts(playerUUID);
-        List<MailboxGift> toProcess = new ArrayList<>();
-        
-        for (MailboxGift gift : allGifts) {
-            if (filter.equals("all")) {
-                toProcess.add(gift);
-            } else if (filter.equals("items") && !gift.getSharedItems().isEmpty()) {
-                toProcess.add(gift);
-            } else if (filter.equals("money") && gift.getMoney() > 0) {
-                toProcess.add(gift);
+        loadPendingGifts(player, () -> mailboxDAO.getAllPendingGifts(playerUUID), allGifts -> {
+            List<MailboxGift> toProcess = new ArrayList<>();
+            
+            for (MailboxGift gift : allGifts) {
+                if (filter.equals("all")) {
+                    toProcess.add(gift);
+                } else if (filter.equals("items") && gift.hasSharedItems()) {
+                    toProcess.add(gift);
+                } else if (filter.equals("money") && gift.getMoney() > 0) {
+                    toProcess.add(gift);
+                }
             }
-        }
-
-        if (toProcess.isEmpty()) {
-            String typeKey = filter.equals("items") ? "items" : (filter.equals("money") ? "dinero" : "regalos");
-            String msg = plugin.getMessage("mailbox.no_gifts_type", "{prefix}&c❌ No tienes {type} pendientes para reclamar.")
-                    .replace("{type}", typeKey);
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
-            return;
-        }
 
-        // Verificar espacio solo si hay items
-        List<ItemStack> allItems = getAllItems(toProcess);
-        if (!allItems.isEmpty() && !hasInventorySpace(player, allItems)) {
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("mailbox.no_space_inventory", "{prefix}&c❌ ¡Espacio insuficiente en el inventario!")));
-            return;
-        }
-
-        // Entregar regalos
-        int totalGifts = 0;
-        int totalPoints = 0;
-        double totalMoney = 0;
-        
-        for (MailboxGift gift : toProcess) {
-            // Entregar items
-            for (ItemStack item : gift.getSharedItems()) {
-                player.getInventory().addItem(item);
+            if (toProcess.isEmpty()) {
+                String typeKey = filter.equals("items") ? "items" : (filter.equals("money") ? "dinero" : "regalos");
+                String msg = plugin.getMessage("mailbox.no_gifts_type", "{prefix}&c❌ No tienes {type} pendientes para reclamar.")
+                        .replace("{type}", typeKey);
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
+                return;
             }
-            
-            // Entregar dinero
-            if (gift.getMoney() > 0) {
-                totalMoney += gift.getMoney();
-                debugLogger.debug("[CLAIM-MONEY] Giving $" + gift.getMoney() + " to " + player.getName());
-                String giveCmd = "eco give " + player.getName() + " " + gift.getMoney();
-                debugLogger.debug("[CLAIM-MONEY] Executing command: " + giveCmd);
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), giveCmd);
-            }
-            
-            // Otorgar puntos correspondientes
-            int points = gift.getPointsAwarded();
-            plugin.getFriendshipManager().addFriendshipPoints(gift.getSenderUUID().toString(), 
-                                                              playerUUID.toString(), 
-                                                              gift.getBasePoints());
-            totalPoints += points;
-            
-            // Acumular estadísticas
-            totalGifts++;
-            
-            // Marcar como reclamado y eliminar
-            mailboxDAO.markAsClaimed(gift.getId());
-            mailboxDAO.deleteGift(gift.getId());
-        }
 
-        String claimMsg;
-        if (totalMoney > 0) {
-            claimMsg = plugin.getMessage("mailbox.claim_success_money", "{prefix}&a✅ Has reclamado &f{count} &aregalo(s) incluyendo &f${amount}!")
-                    .replace("{count}", String.valueOf(totalGifts))
-                    .replace("{amount}", String.format("%,.2f", totalMoney));
-        } else {
-            claimMsg = plugin.getMessage("mailbox.gift_claimed", "{prefix}&a✅ ¡Has reclamado {count} regalo(s) de {sender}!")
-                    .replace("{count}", String.valueOf(totalGifts))
-                    .replace("{sender}", "varios");
-        }
-        
-        player.sendMessage(ChatColor.translateAlternateColorCodes('&', claimMsg));
-        
-        String pointsMsg = plugin.getMessage("mailbox.claim_success_points", "&7Recibiste &f{points} &7puntos de amistad.")
-                .replace("{points}", String.valueOf(totalPoints));
-        player.sendMessage(ChatColor.translateAlternateColorCodes('&', pointsMsg));
+            // Verificar espacio solo si hay items
+            List<ItemStack> allItems = getAllItems(toProcess);
+            if (!allItems.isEmpty() && !hasInventorySpace(player, allItems)) {
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("mailbox.no_space_inventory", "{prefix}&c❌ ¡Espacio insuficiente en el inventario!")));
+                return;
+            }
 
-        // Notificar al remitente
-        notifySenders(player, toProcess);
+            claimAndDeliver(player, playerUUID, toProcess, "varios");
+        });
     }
     private void showPendingSenders(Player player, UUID playerUUID) {
-        List<MailboxGift> allGifts = mailboxDAO.getAllPendingGifts(playerUUID);
-        List<MailboxDAO.GiftSummary> summaries = mailboxDAO.getPendingGiftSummaries(playerUUID);
+        // Totales desnormalizados: no se leen ni decodifican los items
+        MailboxDAO.MailboxSummary totals = mailboxDAO.getMailboxSummary(playerUUID);
 
-        if (allGifts.isEmpty()) {
+        if (totals.getPendingCount() == 0) {
             player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("mailbox.no_pending_gifts", "{prefix}&a📭 No tienes regalos pendientes.")));
             return;
         }
 
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("mailbox.status_header", "{prefix}&6📬 Resumen de tu Mailbox:")));
         
-        double totalMoney = 0;
-        List<ItemStack> allItems = new ArrayList<>();
-        
-        for (MailboxGift gift : allGifts) {
-            totalMoney += gift.getMoney();
-            allItems.addAll(gift.getSharedItems());
-        }
-        
-        int requiredSlots = calculateRequiredSlots(allItems);
+        double totalMoney = totals.getTotalMoney();
+        int requiredSlots = totals.getEstimatedSlots();
+        List<MailboxDAO.GiftSummary> summaries = mailboxDAO.getPendingGiftSummaries(playerUUID);
         
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("mailbox.status_money", "&7 » &fDinero acumulado: &a${amount}")
                 .replace("{amount}", String.format("%,.2f", totalMoney))));
@@ -254,69 +206,156 @@ public class MailboxCommand implements CommandExecutor {
         debugLogger.debug("Sender: " + senderName);
         debugLogger.debug("UUID: " + playerUUID);
         
-        List<MailboxGift> gifts = mailboxDAO.getPendingGiftsFromSender(playerUUID, senderName);
-        debugLogger.debug("Found " + gifts.size() + " gifts from " + senderName);
+        loadPendingGifts(player, () -> mailboxDAO.getPendingGiftsFromSender(playerUUID, senderName), gifts -> {
+            debugLogger.debug("Found " + gifts.size() + " gifts from " + senderName);
+
+            if (gifts.isEmpty()) {
+                String msg = plugin.getMessage("mailbox.gift_not_found", "{prefix}&c❌ No tienes regalos pendientes de {sender}")
+                        .replace("{sender}", senderName);
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
+                return;
+            }
+
+            // Verificar espacio en inventario
+            List<ItemStack> allItems = getAllItems(gifts);
+            if (!hasInventorySpace(player, allItems)) {
+                int requiredSlots = calculateRequiredSlots(allItems);
+                int availableSlots = getEmptySlots(player);
+                
+                String message = plugin.getMessage("mailbox.mailbox_no_space_detailed", """
+                    {prefix}&c❌ No tienes suficiente espacio en el inventario!
+                    &7Necesitas &f{required_slots} &7espacios libres.
+                    &7Tienes &f{available_slots} &7espacios disponibles.
+                    
+                    &eVacía algunos slots y usa:
+                    &f/gb redeem {command}""");
+                
+                message = message.replace("{required_slots}", String.valueOf(requiredSlots))
+                               .replace("{available_slots}", String.valueOf(availableSlots))
+                               .replace("{command}", senderName);
+                
+                player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+                return;
+            }
+
+            claimAndDeliver(player, playerUUID, gifts, senderName);
+        });
+    }
 
-        if (gifts.isEmpty()) {
-            String msg = plugin.getMessage("mailbox.gift_not_found", "{prefix}&c❌ No tienes regalos pendientes de {sender}")
-                    .replace("{sender}", senderName);
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg));
+    /**
+     * Leer los regalos pendientes en el hilo de almacenamiento y continuar en el hilo principal
+     * Solo un reclamo en curso por jugador: un segundo comando mientras tanto se ignora
+     */
+    private void loadPendingGifts(Player player, Supplier<List<MailboxGift>> loader, Consumer<List<MailboxGift>> onLoaded) {
+        UUID playerId = player.getUniqueId();
+        if (!pendingClaims.add(playerId)) {
             return;
         }
+        
+        StorageExecutor storageExecutor = plugin.getStorageExecutor();
+        try {
+            storageExecutor.supply(loader)
+                .whenComplete((gifts, error) -> storageExecutor.runOnMainThread(() -> {
+                    pendingClaims.remove(playerId);
+                    
+                    if (error != null) {
+                        debugLogger.severe("Error loading mailbox for " + player.getName() + ": " + error.getMessage());
+                        player.sendMessage(ChatColor.RED + "❌ Error al reclamar los regalos. Inténtalo de nuevo.");
+                        return;
+                    }
+                    
+                    if (player.isOnline()) {
+                        onLoaded.accept(gifts);
+                    }
+                }));
+        } catch (RejectedExecutionException e) {
+            pendingClaims.remove(playerId);
+        }
+    }
 
-        // Verificar espacio en inventario
-        List<ItemStack> allItems = getAllItems(gifts);
-        if (!hasInventorySpace(player, allItems)) {
-            int requiredSlots = calculateRequiredSlots(allItems);
-            int availableSlots = getEmptySlots(player);
-            
-            String message = plugin.getMessage("mailbox.mailbox_no_space_detailed", """
-                {prefix}&c❌ No tienes suficiente espacio en el inventario!
-                &7Necesitas &f{required_slots} &7espacios libres.
-                &7Tienes &f{available_slots} &7espacios disponibles.
-                
-                &eVacía algunos slots y usa:
-                &f/gb redeem {command}""");
-            
-            message = message.replace("{required_slots}", String.valueOf(requiredSlots))
-                           .replace("{available_slots}", String.valueOf(availableSlots))
-                           .replace("{command}", senderName);
-            
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
-            return;
+    /**
+     * Reclamar los regalos en una sola transacción (borrado en bloque y puntos agrupados por pareja)
+     * en el hilo de almacenamiento, y entregarlos en el hilo principal
+     * @param senderLabel Remitente mostrado en el mensaje de éxito
+     */
+    private void claimAndDeliver(Player player, UUID playerUUID, List<MailboxGift> gifts, String senderLabel) {
+        // Los multiplicadores dependen de permisos de Bukkit: se calculan aquí, una vez por remitente
+        Map<String, Double> multipliers = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(gifts.size());
+        for (MailboxGift gift : gifts) {
+            ids.add(gift.getId());
+            multipliers.computeIfAbsent(gift.getSenderUUID().toString(),
+                plugin.getFriendshipManager()::getActiveMultiplier);
         }
 
-        // Entregar items y dinero
+        pendingClaims.add(playerUUID);
+        StorageExecutor storageExecutor = plugin.getStorageExecutor();
+        try {
+            storageExecutor.supply(() -> mailboxDAO.claimGifts(playerUUID, ids, multipliers))
+                .whenComplete((claimedIds, error) -> storageExecutor.runOnMainThread(() -> {
+                    pendingClaims.remove(playerUUID);
+                    
+                    if (error != null || claimedIds.isEmpty()) {
+                        player.sendMessage(ChatColor.RED + "❌ Error al reclamar los regalos. Inténtalo de nuevo.");
+                        return;
+                    }
+                    
+                    List<MailboxGift> claimed = new ArrayList<>(claimedIds.size());
+                    for (MailboxGift gift : gifts) {
+                        if (claimedIds.contains(gift.getId())) {
+                            claimed.add(gift);
+                        }
+                    }
+                    
+                    // Una sola comprobación del Top 1 para todo el lote
+                    plugin.getFriendshipManager().checkAndBroadcastTop1();
+                    deliver(player, claimed, senderLabel);
+                }));
+        } catch (RejectedExecutionException e) {
+            pendingClaims.remove(playerUUID);
+            player.sendMessage(ChatColor.RED + "❌ Error al reclamar los regalos. Inténtalo de nuevo.");
+        }
+    }
+
+    /**
+     * Entregar items y dinero de regalos ya reclamados (hilo principal)
+     */
+    private void deliver(Player player, List<MailboxGift> gifts, String senderLabel) {
+        if (!player.isOnline()) {
+            // Ya están borrados del buzón: dejar constancia para poder reponerlos
+            List<Integer> ids = new ArrayList<>(gifts.size());
+            for (MailboxGift gift : gifts) {
+                ids.add(gift.getId());
+            }
+            plugin.getLogger().warning("⚠ " + player.getName() + " se desconectó durante el reclamo; regalos no entregados: " + ids);
+            return;
+        }
+        
         int totalGifts = 0;
         int totalPoints = 0;
         double totalMoney = 0;
         
         for (MailboxGift gift : gifts) {
-            // Entregar items
+            // Entregar items (el inventario pudo cambiar mientras se reclamaba: lo que no quepa cae al suelo)
             for (ItemStack item : gift.getSharedItems()) {
-                player.getInventory().addItem(item);
+                for (ItemStack leftover : player.getInventory().addItem(item).values()) {
+                    player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+                }
             }
             
             // Entregar dinero
             if (gift.getMoney() > 0) {
                 totalMoney += gift.getMoney();
+                debugLogger.debug("[CLAIM-MONEY] Giving $" + gift.getMoney() + " to " + player.getName());
                 String giveCmd = "eco give " + player.getName() + " " + gift.getMoney();
+                debugLogger.debug("[CLAIM-MONEY] Executing command: " + giveCmd);
                 Bukkit.dispatchCommand(Bukkit.getConsoleSender(), giveCmd);
             }
             
-            // Otorgar puntos correspondientes
-            plugin.getFriendshipManager().addFriendshipPoints(gift.getSenderUUID().toString(), 
-                                                              playerUUID.toString(), 
-                                                              gift.getBasePoints());
-            
             // Acumular estadísticas
             totalGifts++;
             totalPoints += gift.getPointsAwarded();
             
-            // Marcar como reclamado y eliminar
-            mailboxDAO.markAsClaimed(gift.getId());
-            mailboxDAO.deleteGift(gift.getId());
-            
             debugLogger.debug("Regalo reclamado de " + gift.getSenderName() + " a " + player.getName());
         }
 
@@ -329,7 +368,7 @@ public class MailboxCommand implements CommandExecutor {
         } else {
             claimMsg = plugin.getMessage("mailbox.gift_claimed", "{prefix}&a✅ ¡Has reclamado {count} regalo(s) de {sender}!")
                     .replace("{count}", String.valueOf(totalGifts))
-                    .replace("{sender}", senderName);
+                    .replace("{sender}", senderLabel);
         }
         
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', claimMsg));
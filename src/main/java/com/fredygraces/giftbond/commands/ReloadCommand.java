@@ -23,6 +23,7 @@ public class ReloadCommand implements CommandExecutor {
 
         plugin.getConfigManager().reloadConfigs();
         plugin.getGiftManager().reload();
+        plugin.getBoostResolver().reload();
         
         sender.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("success.config_reloaded", "{prefix}&aConfiguración recargada.")));
         return true;
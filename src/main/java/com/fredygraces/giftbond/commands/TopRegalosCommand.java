@@ -41,10 +41,35 @@ public class TopRegalosCommand implements CommandExecutor {
             return true;
         }
         
-        // Get couples with most friendship points
+        // Get couples with most friendship points (ranking en memoria)
         java.util.List<com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair> topPairs = 
             friendshipManager.getTopFriendshipPairs(10);
         
+        if (topPairs == null) {
+            sendTop(player, null, java.util.Map.of());
+            return true;
+        }
+        
+        // Resolver todos los nombres del top en un solo lote, fuera del hilo principal
+        java.util.List<String> uuids = new java.util.ArrayList<>();
+        for (com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair pair : topPairs) {
+            uuids.add(pair.getPlayer1UUID());
+            uuids.add(pair.getPlayer2UUID());
+        }
+        plugin.getAsyncStorage().acceptOnMainThread(
+            plugin.getAsyncStorage().read(() -> plugin.getPlayerNameCache().resolveNameStrings(uuids)),
+            names -> {
+                if (player.isOnline()) {
+                    sendTop(player, topPairs, names);
+                }
+            });
+        
+        return true;
+    }
+    
+    private void sendTop(Player player,
+                         java.util.List<com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair> topPairs,
+                         java.util.Map<String, String> names) {
         // Send message to player
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.top_header", "&6&m━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━")));
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.top_title", "&6&l🏆 TOP 10 PAREJAS")));
@@ -52,7 +77,7 @@ public class TopRegalosCommand implements CommandExecutor {
         
         if (topPairs == null) {
             player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.top_error", "&cError al recuperar los datos de amistad.")));
-            return true;
+            return;
         }
         
         if (topPairs.isEmpty()) {
@@ -60,8 +85,8 @@ public class TopRegalosCommand implements CommandExecutor {
         } else {
             for (int i = 0; i < topPairs.size(); i++) {
                 com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair pair = topPairs.get(i);
-                String player1Name = getPlayerName(pair.getPlayer1UUID());
-                String player2Name = getPlayerName(pair.getPlayer2UUID());
+                String player1Name = names.get(pair.getPlayer1UUID());
+                String player2Name = names.get(pair.getPlayer2UUID());
                 
                 String entry = plugin.getMessage("info.top_entry", "&6{rank}. &f{player1} &4❤ &f{player2} &7- &a{points} puntos")
                         .replace("{rank}", String.valueOf(i + 1))
@@ -75,24 +100,6 @@ public class TopRegalosCommand implements CommandExecutor {
         
         player.sendMessage("");
         player.sendMessage(ChatColor.translateAlternateColorCodes('&', plugin.getMessage("info.top_footer", "&6&m━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━")));
-        
-        return true;
-    }
-    
-    private String getPlayerName(String uuid) {
-        if (uuid == null || uuid.isEmpty()) {
-            return "Unknown"; // Safe fallback for invalid UUID
-        }
-        
-        try {
-            // Intentar obtener el nombre del jugador desde el servidor
-            org.bukkit.OfflinePlayer offlinePlayer = org.bukkit.Bukkit.getOfflinePlayer(
-                java.util.UUID.fromString(uuid));
-            return offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown";
-        } catch (IllegalArgumentException e) {
-            // Handle invalid UUID format
-            return "Invalid UUID";
-        }
     }
     
     // Método que utiliza el plugin para acceder a funcionalidades
@@ -2,6 +2,10 @@ package com.fredygraces.giftbond.events;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -18,6 +22,7 @@ import com.fredygraces.giftbond.managers.FriendshipManager;
 import com.fredygraces.giftbond.managers.GiftManager;
 import com.fredygraces.giftbond.models.GiftItem;
 import com.fredygraces.giftbond.models.MailboxGift;
+import com.fredygraces.giftbond.storage.StorageExecutor;
 import com.fredygraces.giftbond.utils.DebugLogger;
 import com.fredygraces.giftbond.utils.GiftSessionManager;
 
@@ -28,6 +33,12 @@ public class GiftMenuListener implements Listener {
 
     private final GiftSessionManager sessionManager;
     private final DebugLogger debugLogger;
+    private final StorageExecutor storageExecutor;
+    
+    // Jugadores con una verificación de límite diario en curso (evita dobles clics)
+    private final Set<UUID> pendingLimitChecks = ConcurrentHashMap.newKeySet();
+    // Regalos aceptados cuyo contador diario aún no se ha guardado
+    private final Map<UUID, Integer> unsavedDailyGifts = new ConcurrentHashMap<>();
     
     public GiftMenuListener(GiftBond plugin) {
         this.plugin = plugin;
@@ -35,6 +46,7 @@ public class GiftMenuListener implements Listener {
         this.giftManager = plugin.getGiftManager();
         this.sessionManager = GiftSessionManager.getInstance();
         this.debugLogger = new DebugLogger(plugin);
+        this.storageExecutor = plugin.getStorageExecutor();
     }
 
     @EventHandler
@@ -88,19 +100,6 @@ public class GiftMenuListener implements Listener {
                 return;
             }
 
-            // Verificar límite diario
-            int dailyLimit = plugin.getConfigManager().getMainConfig().getInt("settings.daily_gift_limit", 0);
-            if (dailyLimit > 0) {
-                int todayCount = plugin.getDatabaseManager().getDailyGiftCount(player.getUniqueId().toString());
-                if (todayCount >= dailyLimit) {
-                    String msg = plugin.getMessage("messages.daily_limit", 
-                        "{prefix}&cHas alcanzado el límite diario de {limit} regalos. Vuelve mañana!");
-                    player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg.replace("{limit}", String.valueOf(dailyLimit))));
-                    player.closeInventory();
-                    return;
-                }
-            }
-
             // Verificar requisito de horas jugadas nuevamente por seguridad
             if (plugin.getConfigManager().getMainConfig().getBoolean("settings.enabled", true)) {
                 if (!giftManager.hasMinimumPlaytime(player)) {
@@ -125,11 +124,84 @@ public class GiftMenuListener implements Listener {
                 }
             }
             
-            // Procesar el regalo según el ítem clicado
-            processGiftSelection(player, receiver, clickedItem);
+            // Verificar límite diario fuera del hilo principal y luego procesar el ítem clicado
+            Player finalReceiver = receiver;
+            ItemStack selectedItem = clickedItem.clone();
+            checkDailyLimitAsync(player, () -> {
+                if (!finalReceiver.isOnline()) {
+                    player.sendMessage(ChatColor.RED + "❌ Error: No se pudo determinar el destinatario del regalo.");
+                    player.closeInventory();
+                    return;
+                }
+                processGiftSelection(player, finalReceiver, selectedItem);
+            });
         }
     }
     
+    /**
+     * Etapa 1 del pipeline de envío: consulta el contador diario (en memoria si el jugador
+     * tiene la sesión cargada; si no, en el hilo de almacenamiento) y continúa en el hilo
+     * principal solo si el jugador no ha alcanzado el límite
+     */
+    private void checkDailyLimitAsync(Player player, Runnable onAllowed) {
+        int dailyLimit = plugin.getConfigManager().getMainConfig().getInt("settings.daily_gift_limit", 0);
+        if (dailyLimit <= 0) {
+            onAllowed.run();
+            return;
+        }
+        
+        UUID playerId = player.getUniqueId();
+        String playerUUID = playerId.toString();
+        Integer cachedCount = plugin.getPlayerSessionCache().getDailyGiftCount(playerUUID);
+        if (cachedCount != null) {
+            continueIfUnderDailyLimit(player, cachedCount, dailyLimit, onAllowed);
+            return;
+        }
+        
+        if (!pendingLimitChecks.add(playerId)) {
+            return; // Ya hay una verificación en curso para este jugador
+        }
+        
+        storageExecutor.supply(() -> plugin.getDatabaseManager().getDailyGiftCount(playerUUID))
+            .whenComplete((count, error) -> storageExecutor.runOnMainThread(() -> {
+                pendingLimitChecks.remove(playerId);
+                
+                if (error != null) {
+                    debugLogger.severe("Error checking daily gift limit for " + player.getName() + ": " + error.getMessage());
+                    player.sendMessage(ChatColor.RED + "❌ Error al guardar el regalo. Contacta a un administrador.");
+                    return;
+                }
+                
+                if (!player.isOnline()) {
+                    return;
+                }
+                
+                continueIfUnderDailyLimit(player, count, dailyLimit, onAllowed);
+            }));
+    }
+    
+    private void continueIfUnderDailyLimit(Player player, int storedCount, int dailyLimit, Runnable onAllowed) {
+        // Incluir regalos aceptados que todavía se están guardando
+        int todayCount = storedCount + unsavedDailyGifts.getOrDefault(player.getUniqueId(), 0);
+        if (todayCount >= dailyLimit) {
+            String msg = plugin.getMessage("messages.daily_limit", 
+                "{prefix}&cHas alcanzado el límite diario de {limit} regalos. Vuelve mañana!");
+            player.sendMessage(ChatColor.translateAlternateColorCodes('&', msg.replace("{limit}", String.valueOf(dailyLimit))));
+            player.closeInventory();
+            return;
+        }
+        
+        onAllowed.run();
+    }
+    
+    private void markDailyGiftUnsaved(UUID senderId) {
+        unsavedDailyGifts.merge(senderId, 1, Integer::sum);
+    }
+    
+    private void clearDailyGiftUnsaved(UUID senderId) {
+        unsavedDailyGifts.computeIfPresent(senderId, (id, pending) -> pending > 1 ? pending - 1 : null);
+    }
+    
     private void processGiftSelection(Player sender, Player receiver, ItemStack item) {
         debugLogger.debug("Processing gift selection for " + sender.getName() + " -> " + receiver.getName());
         debugLogger.debug("Clicked item: " + getItemDisplayName(item));
@@ -235,7 +307,9 @@ public class GiftMenuListener implements Listener {
     }
     
     /**
-     * Procesa un regalo que va al mailbox
+     * Procesa un regalo que va al mailbox.
+     * El inventario se modifica en el hilo principal, la persistencia se realiza en el
+     * hilo de almacenamiento y los mensajes vuelven a programarse en el hilo principal.
      */
     private void processGiftToMailbox(Player sender, Player receiver, GiftItem gift) {
         debugLogger.debug("Processing gift to mailbox: " + gift.getName());
@@ -265,17 +339,26 @@ public class GiftMenuListener implements Listener {
         // Eliminar los items/dinero requeridos del inventario del emisor
         giftManager.removeRequiredItems(sender, gift);
         
-        // Guardar en mailbox
-        String senderUUID = sender.getUniqueId().toString();
-        String receiverUUID = receiver.getUniqueId().toString();
+        // Establecer cooldown
+        giftManager.setCooldown(sender);
+        
+        // Capturar todo lo necesario antes de salir del hilo principal
+        UUID senderId = sender.getUniqueId();
+        UUID receiverId = receiver.getUniqueId();
+        String senderUUID = senderId.toString();
+        String receiverUUID = receiverId.toString();
+        String senderName = sender.getName();
+        String receiverName = receiver.getName();
         String giftName = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', gift.getName()));
+        String displayGiftName = ChatColor.stripColor(gift.getName());
+        double multiplier = friendshipManager.getActiveMultiplier(senderUUID);
         
         // Usar la lógica unificada de MailboxGift (que ahora soporta dinero)
-        com.fredygraces.giftbond.models.MailboxGift fullGift = new com.fredygraces.giftbond.models.MailboxGift(
-            receiver.getUniqueId(),
-            receiver.getName(),
-            sender.getUniqueId(),
-            sender.getName(),
+        MailboxGift fullGift = new MailboxGift(
+            receiverId,
+            receiverName,
+            senderId,
+            senderName,
             gift.getId(),
             giftName,
             originalItems,
@@ -284,46 +367,57 @@ public class GiftMenuListener implements Listener {
             points,
             senderPoints
         );
-
-        boolean saved = plugin.getMailboxDAO().saveGift(fullGift);
         
-        if (saved) {
-            // Agregar puntos de amistad al emisor
-            int finalPoints = friendshipManager.addFriendshipPoints(senderUUID, receiverUUID, senderPoints);
-            
-            // Guardar en historial
-            plugin.getDatabaseManager().saveGiftHistory(senderUUID, receiverUUID, giftName, finalPoints);
+        plugin.getPlayerNameCache().remember(senderId, senderName);
+        plugin.getPlayerNameCache().remember(receiverId, receiverName);
+        markDailyGiftUnsaved(senderId);
+        sender.closeInventory();
+
+        storageExecutor.supply(() -> {
+            // Mailbox, puntos, historial y contador diario en una sola transacción
+            int finalPoints = plugin.getGiftCommitService().commitGift(
+                senderUUID, receiverUUID, giftName, senderPoints, multiplier, fullGift, 0);
+            if (finalPoints < 0) {
+                return -1;
+            }
             
-            // Incrementar contador diario
-            plugin.getDatabaseManager().incrementDailyGiftCount(senderUUID);
+            friendshipManager.checkAndBroadcastTop1();
+            return finalPoints;
+        }).whenComplete((finalPoints, error) -> storageExecutor.runOnMainThread(() -> {
+            clearDailyGiftUnsaved(senderId);
+            Player onlineSender = Bukkit.getPlayer(senderId);
             
-            // Establecer cooldown
-            giftManager.setCooldown(sender);
+            if (error != null || finalPoints < 0) {
+                if (onlineSender != null) {
+                    onlineSender.sendMessage(ChatColor.RED + "❌ Error al guardar el regalo. Contacta a un administrador.");
+                }
+                debugLogger.severe("Failed to save gift to mailbox for " + senderName + " -> " + receiverName
+                    + (error != null ? ": " + error.getMessage() : ""));
+                return;
+            }
             
             // Mensajes de confirmación
-            String giftSentMessage = plugin.getMessage("messages.gift_sent_mailbox", 
-                "{prefix}&a✅ Has enviado un regalo de &f{gift} &a({points} puntos) a &f{receiver}&a. Se guardará en su mailbox hasta que lo reclame.");
-            giftSentMessage = giftSentMessage.replace("{gift}", ChatColor.stripColor(gift.getName()))
-                                           .replace("{points}", String.valueOf(finalPoints))
-                                           .replace("{receiver}", receiver.getName());
-            
-            sender.sendMessage(ChatColor.translateAlternateColorCodes('&', giftSentMessage));
+            if (onlineSender != null) {
+                String giftSentMessage = plugin.getMessage("messages.gift_sent_mailbox", 
+                    "{prefix}&a✅ Has enviado un regalo de &f{gift} &a({points} puntos) a &f{receiver}&a. Se guardará en su mailbox hasta que lo reclame.");
+                giftSentMessage = giftSentMessage.replace("{gift}", displayGiftName)
+                                               .replace("{points}", String.valueOf(finalPoints))
+                                               .replace("{receiver}", receiverName);
+                
+                onlineSender.sendMessage(ChatColor.translateAlternateColorCodes('&', giftSentMessage));
+            }
             
             // Notificar al receptor si está en línea
-            if (receiver.isOnline()) {
+            Player onlineReceiver = Bukkit.getPlayer(receiverId);
+            if (onlineReceiver != null) {
                 String notification = plugin.getMessage("messages.pending_gift_notification",
                     "{prefix}&6📬 ¡Tienes un nuevo regalo de &f{sender}&6! Usa &f/gb redeem&6 para reclamarlo.");
-                notification = notification.replace("{sender}", sender.getName());
-                receiver.sendMessage(ChatColor.translateAlternateColorCodes('&', notification));
+                notification = notification.replace("{sender}", senderName);
+                onlineReceiver.sendMessage(ChatColor.translateAlternateColorCodes('&', notification));
             }
             
-            debugLogger.info("[MAILBOX] Gift saved successfully from " + sender.getName() + " to " + receiver.getName());
-        } else {
-            sender.sendMessage(ChatColor.RED + "❌ Error al guardar el regalo. Contacta a un administrador.");
-            debugLogger.severe("Failed to save gift to mailbox for " + sender.getName() + " -> " + receiver.getName());
-        }
-        
-        sender.closeInventory();
+            debugLogger.info("[MAILBOX] Gift saved successfully from " + senderName + " to " + receiverName);
+        }));
     }
     
     /**
@@ -347,24 +441,20 @@ public class GiftMenuListener implements Listener {
             debugLogger.debug("[DIRECT-MONEY] Gave $" + String.format("%.2f", receiverAmount) + " to " + receiver.getName());
         }
         
+        // Establecer cooldown
+        giftManager.setCooldown(sender);
+        
         // Agregar puntos de amistad
-        String senderUUID = sender.getUniqueId().toString();
-        String receiverUUID = receiver.getUniqueId().toString();
+        UUID senderId = sender.getUniqueId();
+        UUID receiverId = receiver.getUniqueId();
+        String senderUUID = senderId.toString();
+        String receiverUUID = receiverId.toString();
+        String senderName = sender.getName();
+        String receiverName = receiver.getName();
         int points = gift.getPoints();
-        
-        debugLogger.debug("Adding friendship points: " + points + " (base points)");
-        int finalPoints = friendshipManager.addFriendshipPoints(senderUUID, receiverUUID, points);
-        debugLogger.debug("Final points awarded: " + finalPoints + " (after boost)");
-        
-        // Guardar en historial
+        double multiplier = friendshipManager.getActiveMultiplier(senderUUID);
         String giftName = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', gift.getName()));
-        plugin.getDatabaseManager().saveGiftHistory(senderUUID, receiverUUID, giftName, finalPoints);
-        
-        // Incrementar contador diario
-        plugin.getDatabaseManager().incrementDailyGiftCount(senderUUID);
-        
-        // Establecer cooldown
-        giftManager.setCooldown(sender);
+        String displayGiftName = ChatColor.stripColor(gift.getName());
         
         // Entregar puntos de recompensa directamente (simulando los items)
         // En un sistema real, aquí se crearían los items basados en el regalo
@@ -374,35 +464,66 @@ public class GiftMenuListener implements Listener {
         boolean dualPoints = plugin.getConfigManager().getMainConfig().getBoolean("settings.dual_personal_points", true);
         boolean boostDual = plugin.getConfigManager().getMainConfig().getBoolean("settings.boost_dual_personal_points", true);
         
-        if (dualPoints) {
-            // Aplicar boost si está habilitado
-            int receiverPoints = points;
-            if (boostDual) {
-                // Aquí iría la lógica de boost si fuera necesario
-                // Por simplicidad, usamos los puntos directamente
-            }
-            plugin.getDatabaseManager().addPersonalPoints(receiverUUID, receiverPoints);
+        // Aplicar boost si está habilitado
+        int receiverPoints = points;
+        if (boostDual) {
+            // Aquí iría la lógica de boost si fuera necesario
+            // Por simplicidad, usamos los puntos directamente
         }
         
-        // Enviar mensajes de confirmación usando la configuración
-        String giftSentMessage = plugin.getMessage("messages.gift_sent", 
-            "{prefix}&a✅ Has enviado un regalo de &f{gift} &a({points} puntos) a &f{receiver}");
-        giftSentMessage = giftSentMessage.replace("{gift}", ChatColor.stripColor(gift.getName()))
-                                         .replace("{points}", String.valueOf(finalPoints))
-                                         .replace("{receiver}", receiver.getName());
-        
-        String giftReceivedMessage = plugin.getMessage("messages.gift_received",
-            "{prefix}&a🎉 Has recibido un regalo de &f{gift} &a({points} puntos) de &f{sender}");
-        giftReceivedMessage = giftReceivedMessage.replace("{gift}", ChatColor.stripColor(gift.getName()))
-                                                .replace("{points}", String.valueOf(finalPoints))
-                                                .replace("{sender}", sender.getName());
-        
-        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', giftSentMessage));
-        receiver.sendMessage(ChatColor.translateAlternateColorCodes('&', giftReceivedMessage));
-        
-        debugLogger.info("[DIRECT] Gift sent successfully from " + sender.getName() + " to " + receiver.getName());
-        
+        plugin.getPlayerNameCache().remember(senderId, senderName);
+        plugin.getPlayerNameCache().remember(receiverId, receiverName);
+        markDailyGiftUnsaved(senderId);
         sender.closeInventory();
+        
+        storageExecutor.supply(() -> {
+            debugLogger.debug("Adding friendship points: " + points + " (base points)");
+            // Puntos, historial y contador diario en una sola transacción
+            int finalPoints = plugin.getGiftCommitService().commitGift(
+                senderUUID, receiverUUID, giftName, points, multiplier, null, dualPoints ? receiverPoints : 0);
+            if (finalPoints < 0) {
+                return -1;
+            }
+            debugLogger.debug("Final points awarded: " + finalPoints + " (after boost)");
+            
+            friendshipManager.checkAndBroadcastTop1();
+            return finalPoints;
+        }).whenComplete((finalPoints, error) -> storageExecutor.runOnMainThread(() -> {
+            clearDailyGiftUnsaved(senderId);
+            Player onlineSender = Bukkit.getPlayer(senderId);
+            
+            if (error != null || finalPoints < 0) {
+                if (onlineSender != null) {
+                    onlineSender.sendMessage(ChatColor.RED + "❌ Error al guardar el regalo. Contacta a un administrador.");
+                }
+                debugLogger.severe("Failed to save direct gift for " + senderName + " -> " + receiverName
+                    + (error != null ? ": " + error.getMessage() : ""));
+                return;
+            }
+            
+            // Enviar mensajes de confirmación usando la configuración
+            String giftSentMessage = plugin.getMessage("messages.gift_sent", 
+                "{prefix}&a✅ Has enviado un regalo de &f{gift} &a({points} puntos) a &f{receiver}");
+            giftSentMessage = giftSentMessage.replace("{gift}", displayGiftName)
+                                             .replace("{points}", String.valueOf(finalPoints))
+                                             .replace("{receiver}", receiverName);
+            
+            String giftReceivedMessage = plugin.getMessage("messages.gift_received",
+                "{prefix}&a🎉 Has recibido un regalo de &f{gift} &a({points} puntos) de &f{sender}");
+            giftReceivedMessage = giftReceivedMessage.replace("{gift}", displayGiftName)
+                                                    .replace("{points}", String.valueOf(finalPoints))
+                                                    .replace("{sender}", senderName);
+            
+            if (onlineSender != null) {
+                onlineSender.sendMessage(ChatColor.translateAlternateColorCodes('&', giftSentMessage));
+            }
+            Player onlineReceiver = Bukkit.getPlayer(receiverId);
+            if (onlineReceiver != null) {
+                onlineReceiver.sendMessage(ChatColor.translateAlternateColorCodes('&', giftReceivedMessage));
+            }
+            
+            debugLogger.info("[DIRECT] Gift sent successfully from " + senderName + " to " + receiverName);
+        }));
     }
     
     /**
@@ -539,7 +660,7 @@ public class GiftMenuListener implements Listener {
         debugLogger.debug("[MONEY-CALC] Receiver amount calculation: " + amount + " * (" + sharedMoneyPercentage + " / 100.0) = " + receiverAmount);
 
         // Calcular puntos con boost
-        double multiplier = friendshipManager.getActiveMultiplier(sender.getUniqueId().toString());
+        double multiplier = friendshipManager.getActiveMultiplier(sender.getUniqueId());
         int finalPoints = (int) (basePoints * multiplier);
         debugLogger.debug("[MONEY-CALC] Points calculation: " + basePoints + " * " + multiplier + " = " + finalPoints);
 
@@ -555,14 +676,21 @@ public class GiftMenuListener implements Listener {
         // Determinar si usar el mailbox para el dinero
         boolean mailboxEnabled = plugin.getConfigManager().getMainConfig().getBoolean("mailbox.enabled", true);
         
+        UUID senderId = sender.getUniqueId();
+        UUID receiverId = receiver.getUniqueId();
+        String senderName = sender.getName();
+        String receiverName = receiver.getName();
+        double sentAmount = amount;
+        int awardedPoints = finalPoints;
+        
         if (mailboxEnabled) {
             // Nota: He modificado el constructor de MailboxGift para aceptar money
             // El orden es: receiverUUID, receiverName, senderUUID, senderName, giftId, giftName, originalItems, sharedItems, money, basePoints, pointsAwarded
             MailboxGift fullGift = new MailboxGift(
-                receiver.getUniqueId(),
-                receiver.getName(),
-                sender.getUniqueId(),
-                sender.getName(),
+                receiverId,
+                receiverName,
+                senderId,
+                senderName,
                 "money_gift",
                 "Regalo de Dinero",
                 new ArrayList<>(),
@@ -572,38 +700,56 @@ public class GiftMenuListener implements Listener {
                 finalPoints
             );
 
-            if (plugin.getMailboxDAO().saveGift(fullGift)) {
-                String msgSender = plugin.getPrefix() + "§a✅ Has enviado un regalo de §f$" + String.format("%,.2f", amount) + " §aa §f" + receiver.getName() + " §7(enviado a su buzón)";
-                sender.sendMessage(msgSender);
-                
-                if (receiver.isOnline()) {
-                    String notification = plugin.getMessage("messages.pending_gift_notification",
-                        "{prefix}&6📬 ¡Tienes un nuevo regalo de &f{sender}&6! Usa &f/gb redeem&6 para reclamarlo.");
-                    notification = notification.replace("{sender}", sender.getName());
-                    receiver.sendMessage(ChatColor.translateAlternateColorCodes('&', notification));
-                }
-            } else {
-                sender.sendMessage(plugin.getPrefix() + "§c❌ Error al guardar el regalo de dinero en el buzón.");
-            }
+            storageExecutor.supply(() -> plugin.getMailboxDAO().saveGift(fullGift))
+                .whenComplete((saved, error) -> storageExecutor.runOnMainThread(() -> {
+                    Player onlineSender = Bukkit.getPlayer(senderId);
+                    if (error != null || !saved) {
+                        if (onlineSender != null) {
+                            onlineSender.sendMessage(plugin.getPrefix() + "§c❌ Error al guardar el regalo de dinero en el buzón.");
+                        }
+                        return;
+                    }
+                    
+                    if (onlineSender != null) {
+                        String msgSender = plugin.getPrefix() + "§a✅ Has enviado un regalo de §f$" + String.format("%,.2f", sentAmount) + " §aa §f" + receiverName + " §7(enviado a su buzón)";
+                        onlineSender.sendMessage(msgSender);
+                    }
+                    
+                    Player onlineReceiver = Bukkit.getPlayer(receiverId);
+                    if (onlineReceiver != null) {
+                        String notification = plugin.getMessage("messages.pending_gift_notification",
+                            "{prefix}&6📬 ¡Tienes un nuevo regalo de &f{sender}&6! Usa &f/gb redeem&6 para reclamarlo.");
+                        notification = notification.replace("{sender}", senderName);
+                        onlineReceiver.sendMessage(ChatColor.translateAlternateColorCodes('&', notification));
+                    }
+                }));
         } else {
             // Entrega directa (comportamiento anterior)
             Bukkit.dispatchCommand(Bukkit.getConsoleSender(), giveCmd);
             
-            // Agregar puntos de amistad y puntos personales (el manager maneja los boosts)
-            friendshipManager.addFriendshipPoints(sender.getUniqueId().toString(), 
-                                                 receiver.getUniqueId().toString(), 
-                                                 basePoints);
+            // Agregar puntos de amistad y puntos personales (el boost ya se calculó en el hilo principal)
+            String senderUUID = senderId.toString();
+            String receiverUUID = receiverId.toString();
+            int moneyBasePoints = basePoints;
+            storageExecutor.run(() -> {
+                friendshipManager.recordFriendshipPoints(senderUUID, receiverUUID, moneyBasePoints, multiplier);
+                friendshipManager.checkAndBroadcastTop1();
+            }).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    debugLogger.severe("Failed to save money gift points for " + senderName + " -> " + receiverName + ": " + error.getMessage());
+                }
+            });
 
             // Mensajes de confirmación
-            String msgSender = plugin.getPrefix() + "§a✅ Has enviado un regalo de §f$" + String.format("%,.2f", amount) + " §aa §f" + receiver.getName() + " §7(+" + finalPoints + " puntos)";
-            String msgReceiver = plugin.getPrefix() + "§a🎉 Has recibido un regalo de §f$" + String.format("%,.2f", receiverAmount) + " §ade §f" + sender.getName();
+            String msgSender = plugin.getPrefix() + "§a✅ Has enviado un regalo de §f$" + String.format("%,.2f", amount) + " §aa §f" + receiverName + " §7(+" + awardedPoints + " puntos)";
+            String msgReceiver = plugin.getPrefix() + "§a🎉 Has recibido un regalo de §f$" + String.format("%,.2f", receiverAmount) + " §ade §f" + senderName;
             
             sender.sendMessage(msgSender);
             receiver.sendMessage(msgReceiver);
         }
         
         // Registrar en logs
-        debugLogger.info("[MONEY] Gift of $" + amount + " and " + finalPoints + " pts sent from " + sender.getName() + " to " + receiver.getName());
+        debugLogger.info("[MONEY] Gift of $" + amount + " and " + finalPoints + " pts sent from " + senderName + " to " + receiverName);
         
         sender.closeInventory();
         
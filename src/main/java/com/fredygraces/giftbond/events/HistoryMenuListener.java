@@ -4,6 +4,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 
 import com.fredygraces.giftbond.GiftBond;
@@ -54,4 +55,9 @@ public class HistoryMenuListener implements Listener {
             historyMenu.openHistoryMenu(player, currentPage + 1);
         }
     }
+    
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        historyMenu.forgetPlayer(event.getPlayer().getUniqueId());
+    }
 }
@@ -0,0 +1,69 @@
+package com.fredygraces.giftbond.events;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.cache.PlayerNameCache;
+import com.fredygraces.giftbond.cache.PlayerSessionCache;
+import com.fredygraces.giftbond.managers.BoostResolver;
+
+/**
+ * Listener de conexión de jugadores
+ * Mantiene actualizado el cache persistente de nombres y carga/descarta
+ * el estado en memoria de cada jugador conectado, incluidos sus boosts
+ */
+public class PlayerConnectionListener implements Listener {
+    private final PlayerNameCache playerNameCache;
+    private final PlayerSessionCache playerSessionCache;
+    private final BoostResolver boostResolver;
+
+    public PlayerConnectionListener(GiftBond plugin) {
+        this.playerNameCache = plugin.getPlayerNameCache();
+        this.playerSessionCache = plugin.getPlayerSessionCache();
+        this.boostResolver = plugin.getBoostResolver();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            playerSessionCache.load(event.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        // Entrada denegada después de la precarga (lista blanca, servidor lleno...)
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            playerSessionCache.evict(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        playerNameCache.remember(player.getUniqueId(), player.getName());
+        // Reutiliza la sesión precargada y evita que caduque
+        playerSessionCache.join(player.getUniqueId());
+        boostResolver.refresh(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        // Los permisos pueden depender del mundo
+        boostResolver.refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerSessionCache.evict(event.getPlayer().getUniqueId());
+        boostResolver.evict(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,253 @@
+package com.fredygraces.giftbond.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.managers.DatabaseManager.PersonalBoost;
+
+/**
+ * Multiplicadores de puntos resueltos desde memoria
+ * La sección "boosts" se compila en arrays al cargar y al recargar la configuración.
+ * El multiplicador por permisos de cada jugador conectado se calcula al entrar, al cambiar
+ * de mundo, al recargar y cada boost_refresh_seconds (los plugins de permisos no avisan
+ * de los cambios); el boost temporal se guarda con su caducidad y se actualiza con cada
+ * escritura. getMultiplier() no reserva memoria ni consulta la base de datos
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class BoostResolver {
+    private final GiftBond plugin;
+    private final Map<UUID, PlayerBoosts> online = new ConcurrentHashMap<>();
+
+    private volatile BoostTable table = new BoostTable(new String[0], new double[0]);
+    private BukkitTask refreshTask;
+
+    public BoostResolver(GiftBond plugin) {
+        this.plugin = plugin;
+        compile();
+    }
+
+    /**
+     * Iniciar el recálculo periódico de permisos (hilo principal)
+     */
+    public void start() {
+        long seconds = plugin.getConfigManager().getMainConfig().getLong("settings.boost_refresh_seconds", 60L);
+        if (seconds <= 0) {
+            return;
+        }
+        long intervalTicks = seconds * 20L;
+        refreshTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::refreshAll, intervalTicks, intervalTicks);
+    }
+
+    public void shutdown() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        online.clear();
+    }
+
+    /**
+     * Recompilar la tabla tras recargar la configuración y recalcular los jugadores conectados
+     */
+    public void reload() {
+        compile();
+        refreshAll();
+    }
+
+    private void compile() {
+        List<Map.Entry<String, Double>> tiers = new ArrayList<>();
+        ConfigurationSection boosts = plugin.getConfigManager().getMainConfig().getConfigurationSection("boosts");
+        if (boosts != null) {
+            for (String key : boosts.getKeys(false)) {
+                ConfigurationSection boost = boosts.getConfigurationSection(key);
+                if (boost == null) {
+                    continue;
+                }
+                String permission = boost.getString("permission");
+                double multiplier = boost.getDouble("multiplier", 1.0);
+                if (permission != null && multiplier > 1.0) {
+                    tiers.add(Map.entry(permission, multiplier));
+                }
+            }
+        }
+        // De mayor a menor: el primer permiso que tenga el jugador es su boost
+        tiers.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+
+        String[] permissions = new String[tiers.size()];
+        double[] multipliers = new double[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            permissions[i] = tiers.get(i).getKey();
+            multipliers[i] = tiers.get(i).getValue();
+        }
+        table = new BoostTable(permissions, multipliers);
+    }
+
+    // ===== Jugadores conectados (hilo principal) =====
+
+    /**
+     * Recalcular el multiplicador por permisos de un jugador; al entrar carga también su boost temporal
+     */
+    public void refresh(Player player) {
+        UUID playerId = player.getUniqueId();
+        PlayerBoosts entry = online.get(playerId);
+        boolean joined = entry == null;
+        if (joined) {
+            entry = new PlayerBoosts();
+        }
+        entry.permissionMultiplier = table.resolve(player);
+        if (joined && online.putIfAbsent(playerId, entry) == null) {
+            loadTemporaryBoost(playerId, entry);
+        }
+    }
+
+    public void refreshAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            refresh(player);
+        }
+    }
+
+    public void evict(UUID playerId) {
+        online.remove(playerId);
+    }
+
+    private void loadTemporaryBoost(UUID playerId, PlayerBoosts entry) {
+        try {
+            plugin.getStorageExecutor().run(() -> {
+                int writesBefore;
+                synchronized (entry) {
+                    writesBefore = entry.writes;
+                }
+                PersonalBoost stored;
+                try {
+                    stored = plugin.getDatabaseManager().getStoredPersonalBoost(playerId.toString());
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "⚠ Error cargando el boost de " + playerId, e);
+                    return;
+                }
+                synchronized (entry) {
+                    // Una escritura posterior ya dejó el valor correcto
+                    if (online.get(playerId) != entry || entry.writes != writesBefore) {
+                        return;
+                    }
+                    entry.setTemporary(stored != null ? stored.getMultiplier() : 1.0,
+                        stored != null ? stored.getExpiry() : 0L);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Plugin deteniéndose: getMultiplier() seguirá consultando la base de datos
+        }
+    }
+
+    // ===== Lecturas =====
+
+    /**
+     * Multiplicador activo: boost por permisos multiplicado por el boost temporal vigente
+     * Los jugadores desconectados no tienen boost
+     */
+    public double getMultiplier(UUID playerId) {
+        PlayerBoosts entry = online.get(playerId);
+        if (entry == null) {
+            return 1.0;
+        }
+        double multiplier = entry.permissionMultiplier;
+        double temporary;
+        boolean loaded;
+        synchronized (entry) {
+            loaded = entry.temporaryLoaded;
+            temporary = entry.activeTemporary(System.currentTimeMillis());
+        }
+        if (!loaded) {
+            // Solo justo después de entrar, mientras se carga el boost
+            temporary = plugin.getDatabaseManager().getPersonalBoost(playerId.toString());
+        }
+        if (temporary > 1.0) {
+            multiplier *= temporary;
+        }
+        return multiplier;
+    }
+
+    /**
+     * Boost temporal vigente de un jugador conectado
+     * @return Multiplicador (1.0 si caducó) o null si no está en memoria
+     */
+    public Double getTemporaryBoost(String playerUUID) {
+        PlayerBoosts entry = online.get(UUID.fromString(playerUUID));
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.temporaryLoaded ? entry.activeTemporary(System.currentTimeMillis()) : null;
+        }
+    }
+
+    /**
+     * Reflejar un boost temporal ya guardado en la base de datos
+     */
+    public void setTemporaryBoost(String playerUUID, double multiplier, long expiry) {
+        PlayerBoosts entry = online.get(UUID.fromString(playerUUID));
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.writes++;
+            entry.setTemporary(multiplier, expiry);
+        }
+    }
+
+    /**
+     * Tabla de boosts por permiso, ordenada de mayor a menor multiplicador
+     */
+    private static class BoostTable {
+        private final String[] permissions;
+        private final double[] multipliers;
+
+        BoostTable(String[] permissions, double[] multipliers) {
+            this.permissions = permissions;
+            this.multipliers = multipliers;
+        }
+
+        double resolve(Player player) {
+            for (int i = 0; i < permissions.length; i++) {
+                if (player.hasPermission(permissions[i])) {
+                    return multipliers[i];
+                }
+            }
+            return 1.0;
+        }
+    }
+
+    /**
+     * Boosts en memoria de un jugador conectado; el temporal está protegido por su monitor
+     */
+    private static class PlayerBoosts {
+        private volatile double permissionMultiplier = 1.0;
+
+        private int writes;
+        private boolean temporaryLoaded;
+        private double temporaryMultiplier = 1.0;
+        private long temporaryExpiry;
+
+        void setTemporary(double multiplier, long expiry) {
+            temporaryMultiplier = multiplier;
+            temporaryExpiry = expiry;
+            temporaryLoaded = true;
+        }
+
+        double activeTemporary(long now) {
+            return temporaryExpiry > now ? temporaryMultiplier : 1.0;
+        }
+    }
+}
@@ -5,68 +5,133 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.inventory.ItemStack;
 
 import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.cache.AdvancedCacheManager;
+import com.fredygraces.giftbond.cache.PairLeaderboard;
+import com.fredygraces.giftbond.cache.PlayerSessionCache;
 import com.fredygraces.giftbond.models.MailboxGift;
 import com.fredygraces.giftbond.storage.MailboxDAO;
+import com.fredygraces.giftbond.storage.SchemaMigrator;
+import com.fredygraces.giftbond.storage.UuidCodec;
+import com.fredygraces.giftbond.storage.WriteBehindQueue;
 
 public class DatabaseManager {
     private final GiftBond plugin;
-    private Connection connection;
     private final String DATABASE_NAME = "friendships.db";
     private final String BACKUP_FOLDER = "backups";
+    private WriteBehindQueue writeBehindQueue;
+    private final PairLeaderboard pairLeaderboard = new PairLeaderboard();
+    private UuidCodec uuidCodec = new UuidCodec(UuidCodec.Format.TEXT);
+
+    // Sentencias de escritura compartidas con WriteBehindQueue
+    public static final String UPSERT_FRIENDSHIP_SQL = """
+        INSERT INTO friendships (sender_uuid, receiver_uuid, points, last_interaction)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT(sender_uuid, receiver_uuid)
+        DO UPDATE SET points = points + excluded.points, last_interaction = excluded.last_interaction
+        """;
+
+    public static final String UPSERT_PAIR_TOTAL_SQL = """
+        INSERT INTO pair_totals (player1_uuid, player2_uuid, total_points)
+        VALUES (?, ?, ?)
+        ON CONFLICT(player1_uuid, player2_uuid)
+        DO UPDATE SET total_points = total_points + excluded.total_points
+        """;
+
+    // UNION ALL de dos rangos por índice (enviados y recibidos); los regalos a uno mismo solo en la primera rama
+    private static final String HISTORY_PAGE_SQL = """
+        SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp FROM (
+            SELECT * FROM (
+                SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp
+                FROM gift_history
+                WHERE sender_uuid = ? AND timestamp <= ? AND (timestamp < ? OR id < ?)
+                ORDER BY timestamp DESC, id DESC
+                LIMIT ?
+            )
+            UNION ALL
+            SELECT * FROM (
+                SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp
+                FROM gift_history
+                WHERE receiver_uuid = ? AND sender_uuid <> ? AND timestamp <= ? AND (timestamp < ? OR id < ?)
+                ORDER BY timestamp DESC, id DESC
+                LIMIT ?
+            )
+        )
+        ORDER BY timestamp DESC, id DESC
+        LIMIT ? OFFSET ?
+        """;
 
     public DatabaseManager(GiftBond plugin) {
         this.plugin = plugin;
     }
 
-    public Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                initialize();
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to restore database connection", e);
-        }
-        return connection;
+    /**
+     * Obtiene una conexión de lectura del pool (cerrarla la devuelve al pool)
+     */
+    public Connection getReaderConnection() throws SQLException {
+        return plugin.getConnectionPoolManager().getConnection();
     }
 
     /**
-     * Verifica si la conexión está activa y reconecta si es necesario
-     * @return true si la conexión está disponible, false si falla
+     * Obtiene la conexión de escritura dedicada (cerrarla libera el escritor)
      */
-    private boolean ensureConnection() {
-        try {
-            // Verificar si la conexión existe y está abierta
-            if (connection == null || connection.isClosed()) {
-                plugin.getLogger().info("Database connection closed, attempting to reconnect...");
-                return initialize(); // Reutilizar el método de inicialización
-            }
-            return true;
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.WARNING, "Error checking database connection", e);
-            return false;
+    public Connection getWriterConnection() throws SQLException {
+        return plugin.getConnectionPoolManager().getWriterConnection();
+    }
+
+    /**
+     * Obtiene el codificador de UUIDs del formato en uso (texto o BLOB)
+     */
+    public UuidCodec getUuidCodec() {
+        return uuidCodec;
+    }
+
+    /**
+     * Estado en memoria de los jugadores conectados (null hasta que el plugin lo crea)
+     */
+    private PlayerSessionCache sessions() {
+        return plugin.getPlayerSessionCache();
+    }
+
+    /**
+     * Marcar en las sesiones una escritura que puede no ir por el hilo de almacenamiento,
+     * para que una carga simultánea no la cuente dos veces (ver PlayerSessionCache)
+     */
+    private void beginSessionWrite(String... playerUUIDs) {
+        if (sessions() != null) {
+            sessions().beginWrite(playerUUIDs);
+        }
+    }
+
+    private void endSessionWrite(String... playerUUIDs) {
+        if (sessions() != null) {
+            sessions().endWrite(playerUUIDs);
         }
     }
 
+    /**
+     * Cache de lecturas de cualquier jugador (null hasta que el plugin lo crea)
+     */
+    private AdvancedCacheManager caches() {
+        return plugin.getCacheManager();
+    }
+
     public boolean initialize() {
         try {
-            Class.forName("org.sqlite.JDBC");
-
             // Asegurar que el directorio de datos existe
             File dataFolder = plugin.getDataFolder();
             if (!dataFolder.exists()) {
@@ -79,127 +144,141 @@ public class DatabaseManager {
                 backupFolder.mkdirs();
             }
 
-            String url = "jdbc:sqlite:" + new File(dataFolder, DATABASE_NAME).getAbsolutePath();
-            connection = DriverManager.getConnection(url);
+            // Esquema versionado: crea tablas nuevas, aplica las migraciones pendientes
+            // y deja las columnas UUID en el formato configurado
+            uuidCodec = new UuidCodec(UuidCodec.configuredFormat(plugin));
+            new SchemaMigrator(plugin).migrate();
+
+            // Cargar el ranking en memoria (se mantiene actualizado con cada escritura)
+            pairLeaderboard.load(queryPairTotals(-1));
 
-            createTables();
+            // Escritura diferida: agrupa puntos, historial y contadores en transacciones
+            if (WriteBehindQueue.isEnabled(plugin)) {
+                writeBehindQueue = new WriteBehindQueue(plugin);
+                writeBehindQueue.start();
+            }
 
             return true;
-        } catch (ClassNotFoundException | SQLException e) {
+        } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to initialize database", e);
             return false;
         }
     }
 
-    private void createTables() throws SQLException {
-        String createTableSQL = """
-            CREATE TABLE IF NOT EXISTS friendships (
-                sender_uuid VARCHAR(36) NOT NULL,
-                receiver_uuid VARCHAR(36) NOT NULL,
-                points INTEGER DEFAULT 0,
-                last_interaction BIGINT DEFAULT 0,
-                PRIMARY KEY (sender_uuid, receiver_uuid)
-            )
-            """;
+    /**
+     * Obtiene la cola de escritura diferida
+     * @return WriteBehindQueue o null si está deshabilitada
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehindQueue;
+    }
 
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createTableSQL);
+    /**
+     * Guarda inmediatamente las escrituras diferidas pendientes
+     * Necesario antes de copiar el archivo de la base de datos (backup)
+     */
+    public void flushPendingWrites() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.flush();
         }
+    }
 
-        // Create indexes for better performance
-        String createIndexSQL = "CREATE INDEX IF NOT EXISTS idx_receiver_points ON friendships(receiver_uuid, points)";
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createIndexSQL);
+    /**
+     * Guarda las escrituras diferidas pendientes
+     * Las conexiones pertenecen al ConnectionPoolManager, que se cierra por separado
+     */
+    public void close() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.shutdown();
+            writeBehindQueue = null;
         }
+    }
 
-        // Crear tabla de puntos personales
-        String createPersonalTableSQL = """
-            CREATE TABLE IF NOT EXISTS player_points (
-                player_uuid VARCHAR(36) PRIMARY KEY,
-                points INTEGER DEFAULT 0
-            )
-            """;
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createPersonalTableSQL);
+    // Métodos para friendship points
+    public void saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        beginSessionWrite(senderUUID, receiverUUID);
+        try {
+            storeFriendshipPoints(senderUUID, receiverUUID, points);
+        } finally {
+            endSessionWrite(senderUUID, receiverUUID);
         }
+    }
 
-        // Crear tabla de boosts personales
-        String createBoostTableSQL = """
-            CREATE TABLE IF NOT EXISTS player_boosts (
-                player_uuid VARCHAR(36) PRIMARY KEY,
-                multiplier DOUBLE DEFAULT 1.0,
-                expiry BIGINT DEFAULT 0
-            )
-            """;
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createBoostTableSQL);
-        }
-
-        // Crear tabla de historial de regalos
-        String createHistoryTableSQL = """
-            CREATE TABLE IF NOT EXISTS gift_history (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                sender_uuid VARCHAR(36) NOT NULL,
-                receiver_uuid VARCHAR(36) NOT NULL,
-                gift_name VARCHAR(100) NOT NULL,
-                points_earned INTEGER NOT NULL,
-                timestamp BIGINT NOT NULL
-            )
-            """;
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createHistoryTableSQL);
+    private void storeFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.addFriendshipPoints(senderUUID, receiverUUID, points);
+            publishFriendshipPoints(senderUUID, receiverUUID, points);
+            return;
         }
 
-        // Crear tabla de límite diario
-        String createDailyTableSQL = """
-            CREATE TABLE IF NOT EXISTS daily_gifts (
-                player_uuid VARCHAR(36) NOT NULL,
-                date VARCHAR(10) NOT NULL,
-                gift_count INTEGER DEFAULT 0,
-                PRIMARY KEY (player_uuid, date)
-            )
-            """;
-        try (Statement stmt = getConnection().createStatement()) {
-            stmt.execute(createDailyTableSQL);
+        // friendships y pair_totals se actualizan en la misma transacción
+        try {
+            plugin.getTransactionManager().executeInTransaction(conn -> {
+                try (PreparedStatement friendship = conn.prepareStatement(UPSERT_FRIENDSHIP_SQL);
+                     PreparedStatement pairTotal = conn.prepareStatement(UPSERT_PAIR_TOTAL_SQL)) {
+                    uuidCodec.bind(friendship, 1, senderUUID);
+                    uuidCodec.bind(friendship, 2, receiverUUID);
+                    friendship.setInt(3, points);
+                    friendship.setLong(4, System.currentTimeMillis());
+                    friendship.executeUpdate();
+
+                    bindPairTotal(pairTotal, uuidCodec, senderUUID, receiverUUID, points);
+                    pairTotal.executeUpdate();
+                }
+                return null;
+            }, "save_friendship_points");
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error saving friendship points", e);
+            return;
         }
+        publishFriendshipPoints(senderUUID, receiverUUID, points);
     }
 
-    public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.WARNING, "Error closing database connection", e);
-            }
+    /**
+     * Reflejar en memoria unos puntos ya guardados (o encolados): ranking, sesiones y cache de lecturas
+     */
+    private void publishFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        pairLeaderboard.addPoints(senderUUID, receiverUUID, points);
+        if (sessions() != null) {
+            sessions().addFriendshipPoints(senderUUID, receiverUUID, points);
         }
+        friendshipChanged(senderUUID, receiverUUID);
     }
 
-    // Métodos para friendship points
-    public void saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
-        String sql = """
-            INSERT INTO friendships (sender_uuid, receiver_uuid, points, last_interaction)
-            VALUES (?, ?, ?, ?)
-            ON CONFLICT(sender_uuid, receiver_uuid)
-            DO UPDATE SET points = points + excluded.points, last_interaction = excluded.last_interaction
-            """;
-
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, senderUUID);
-            pstmt.setString(2, receiverUUID);
-            pstmt.setInt(3, points);
-            pstmt.setLong(4, System.currentTimeMillis());
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.WARNING, "Error saving friendship points", e);
+    /**
+     * Invalidar las lecturas cacheadas tras escribir (las lecturas combinan los deltas diferidos)
+     */
+    private void friendshipChanged(String uuid1, String uuid2) {
+        if (caches() != null) {
+            caches().onFriendshipChanged(uuid1, uuid2);
         }
     }
 
+    /**
+     * Enlaza los parámetros de UPSERT_PAIR_TOTAL_SQL ordenando la pareja de forma canónica
+     */
+    public static void bindPairTotal(PreparedStatement pstmt, UuidCodec uuids, String uuid1, String uuid2, int points) throws SQLException {
+        boolean ordered = uuid1.compareTo(uuid2) <= 0;
+        uuids.bind(pstmt, 1, ordered ? uuid1 : uuid2);
+        uuids.bind(pstmt, 2, ordered ? uuid2 : uuid1);
+        pstmt.setInt(3, points);
+    }
+
     public int getFriendshipPoints(String senderUUID, String receiverUUID) {
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readFriendshipPoints(senderUUID, receiverUUID,
+                () -> queryFriendshipPoints(senderUUID, receiverUUID));
+        }
+        return queryFriendshipPoints(senderUUID, receiverUUID);
+    }
+
+    private int queryFriendshipPoints(String senderUUID, String receiverUUID) {
         String sql = "SELECT points FROM friendships WHERE sender_uuid = ? AND receiver_uuid = ?";
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, senderUUID);
-            pstmt.setString(2, receiverUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, senderUUID);
+            uuidCodec.bind(pstmt, 2, receiverUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -213,6 +292,24 @@ public class DatabaseManager {
     }
 
     public Map<String, Integer> getPlayerFriendsWithPoints(String playerUUID) {
+        Map<String, Integer> cached = sessions() != null ? sessions().getFriendsWithPoints(playerUUID) : null;
+        if (cached != null) {
+            return cached;
+        }
+        if (caches() != null) {
+            return caches().getFriendsWithPoints(playerUUID, this::queryFriendsWithPoints);
+        }
+        return queryFriendsWithPoints(playerUUID);
+    }
+
+    private Map<String, Integer> queryFriendsWithPoints(String playerUUID) {
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readFriendsWithPoints(playerUUID, () -> selectFriendsWithPoints(playerUUID));
+        }
+        return selectFriendsWithPoints(playerUUID);
+    }
+
+    private Map<String, Integer> selectFriendsWithPoints(String playerUUID) {
         Map<String, Integer> friends = new HashMap<>();
 
         // Obtener todas las relaciones donde el jugador está involucrado
@@ -227,14 +324,15 @@ public class DatabaseManager {
             WHERE sender_uuid = ? OR receiver_uuid = ?
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
-            pstmt.setString(2, playerUUID);
-            pstmt.setString(3, playerUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
+            uuidCodec.bind(pstmt, 2, playerUUID);
+            uuidCodec.bind(pstmt, 3, playerUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    String friendUUID = rs.getString("friend_uuid");
+                    String friendUUID = uuidCodec.readString(rs, "friend_uuid");
                     int points = rs.getInt("points");
                     friends.merge(friendUUID, points, (oldValue, newValue) -> oldValue + newValue);
                 }
@@ -247,6 +345,24 @@ public class DatabaseManager {
     }
 
     public int getTotalFriendshipPoints(String playerUUID) {
+        Integer cached = sessions() != null ? sessions().getTotalFriendshipPoints(playerUUID) : null;
+        if (cached != null) {
+            return cached;
+        }
+        if (caches() != null) {
+            return caches().getTotalFriendshipPoints(playerUUID, this::queryTotalFriendshipPoints);
+        }
+        return queryTotalFriendshipPoints(playerUUID);
+    }
+
+    private int queryTotalFriendshipPoints(String playerUUID) {
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readTotalFriendshipPoints(playerUUID, () -> selectTotalFriendshipPoints(playerUUID));
+        }
+        return selectTotalFriendshipPoints(playerUUID);
+    }
+
+    private int selectTotalFriendshipPoints(String playerUUID) {
         // Sumar todos los puntos donde el jugador está involucrado (enviados o recibidos)
         String sql = """
             SELECT COALESCE(SUM(points), 0) as total 
@@ -254,9 +370,10 @@ public class DatabaseManager {
             WHERE sender_uuid = ? OR receiver_uuid = ?
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
-            pstmt.setString(2, playerUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
+            uuidCodec.bind(pstmt, 2, playerUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -269,42 +386,44 @@ public class DatabaseManager {
         return 0;
     }
 
+    /**
+     * Top de parejas servido desde el ranking en memoria (sin acceder a SQLite)
+     */
     public List<FriendshipPair> getTopFriendshipPairs(int limit) {
+        return pairLeaderboard.getTop(limit);
+    }
+
+    /**
+     * Obtiene el ranking en memoria de parejas
+     * @return PairLeaderboard instance
+     */
+    public PairLeaderboard getPairLeaderboard() {
+        return pairLeaderboard;
+    }
+
+    /**
+     * Lee pair_totals ordenado por puntos
+     * @param limit Número máximo de parejas (-1 = sin límite)
+     */
+    private List<FriendshipPair> queryPairTotals(int limit) {
         List<FriendshipPair> pairs = new ArrayList<>();
-        // Query modificada para combinar relaciones bidireccionales
+        // Lectura por rango del índice idx_pair_totals_points (sin agregación)
         String sql = """
-            SELECT 
-                CASE 
-                    WHEN sender_uuid < receiver_uuid THEN sender_uuid 
-                    ELSE receiver_uuid 
-                END as player1_uuid,
-                CASE 
-                    WHEN sender_uuid < receiver_uuid THEN receiver_uuid 
-                    ELSE sender_uuid 
-                END as player2_uuid,
-                SUM(points) as total_points
-            FROM friendships
-            GROUP BY 
-                CASE 
-                    WHEN sender_uuid < receiver_uuid THEN sender_uuid 
-                    ELSE receiver_uuid 
-                END,
-                CASE 
-                    WHEN sender_uuid < receiver_uuid THEN receiver_uuid 
-                    ELSE sender_uuid 
-                END
+            SELECT player1_uuid, player2_uuid, total_points
+            FROM pair_totals
             ORDER BY total_points DESC
             LIMIT ?
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, limit);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     pairs.add(new FriendshipPair(
-                        rs.getString("player1_uuid"),
-                        rs.getString("player2_uuid"),
+                        uuidCodec.readString(rs, "player1_uuid"),
+                        uuidCodec.readString(rs, "player2_uuid"),
                         rs.getInt("total_points")
                     ));
                 }
@@ -318,6 +437,23 @@ public class DatabaseManager {
 
     // Métodos para puntos personales
     public void addPersonalPoints(String playerUUID, int points) {
+        beginSessionWrite(playerUUID);
+        try {
+            storePersonalPoints(playerUUID, points);
+        } finally {
+            endSessionWrite(playerUUID);
+        }
+    }
+
+    private void storePersonalPoints(String playerUUID, int points) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.addPersonalPoints(playerUUID, points);
+            if (sessions() != null) {
+                sessions().addPersonalPoints(playerUUID, points);
+            }
+            return;
+        }
+
         String sql = """
             INSERT INTO player_points (player_uuid, points)
             VALUES (?, ?)
@@ -325,20 +461,37 @@ public class DatabaseManager {
             DO UPDATE SET points = points + excluded.points
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
             pstmt.setInt(2, points);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error adding personal points", e);
+            return;
+        }
+        if (sessions() != null) {
+            sessions().addPersonalPoints(playerUUID, points);
         }
     }
 
     public int getPersonalPoints(String playerUUID) {
+        Integer cached = sessions() != null ? sessions().getPersonalPoints(playerUUID) : null;
+        if (cached != null) {
+            return cached;
+        }
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readPersonalPoints(playerUUID, () -> queryPersonalPoints(playerUUID));
+        }
+        return queryPersonalPoints(playerUUID);
+    }
+
+    private int queryPersonalPoints(String playerUUID) {
         String sql = "SELECT points FROM player_points WHERE player_uuid = ?";
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -352,6 +505,28 @@ public class DatabaseManager {
     }
 
     public void setPersonalPoints(String playerUUID, int points) {
+        beginSessionWrite(playerUUID);
+        try {
+            if (writeBehindQueue != null) {
+                // El valor absoluto sustituye al delta pendiente del jugador
+                writeBehindQueue.applyPersonalPoints(playerUUID, pending -> {
+                    writeAbsolutePersonalPoints(playerUUID, points);
+                    return null;
+                });
+            } else {
+                writeAbsolutePersonalPoints(playerUUID, points);
+            }
+            if (sessions() != null) {
+                sessions().setPersonalPoints(playerUUID, points);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error setting personal points", e);
+        } finally {
+            endSessionWrite(playerUUID);
+        }
+    }
+
+    private void writeAbsolutePersonalPoints(String playerUUID, int points) throws SQLException {
         String sql = """
             INSERT INTO player_points (player_uuid, points)
             VALUES (?, ?)
@@ -359,24 +534,59 @@ public class DatabaseManager {
             DO UPDATE SET points = excluded.points
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
             pstmt.setInt(2, points);
             pstmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.WARNING, "Error setting personal points", e);
         }
     }
 
     public boolean spendPersonalPoints(String playerUUID, int points) {
-        int currentPoints = getPersonalPoints(playerUUID);
-        if (currentPoints >= points) {
-            setPersonalPoints(playerUUID, currentPoints - points);
+        if (points <= 0) {
             return true;
         }
+
+        beginSessionWrite(playerUUID);
+        try {
+            boolean spent = writeBehindQueue != null
+                ? writeBehindQueue.applyPersonalPoints(playerUUID, pending -> writeSpendPersonalPoints(playerUUID, points, pending))
+                : writeSpendPersonalPoints(playerUUID, points, 0);
+            if (spent && sessions() != null) {
+                sessions().addPersonalPoints(playerUUID, -points);
+            }
+            return spent;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error spending personal points", e);
+        } finally {
+            endSessionWrite(playerUUID);
+        }
         return false;
     }
 
+    /**
+     * Guarda el delta pendiente y descuenta en la misma transacción, solo si hay saldo suficiente
+     */
+    private boolean writeSpendPersonalPoints(String playerUUID, int points, int pendingDelta) throws SQLException {
+        String sql = "UPDATE player_points SET points = points - ? WHERE player_uuid = ? AND points >= ?";
+
+        return plugin.getTransactionManager().executeInTransaction(conn -> {
+            if (pendingDelta != 0) {
+                try (PreparedStatement pending = conn.prepareStatement(WriteBehindQueue.UPSERT_PERSONAL_SQL)) {
+                    uuidCodec.bind(pending, 1, playerUUID);
+                    pending.setInt(2, pendingDelta);
+                    pending.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, points);
+                uuidCodec.bind(pstmt, 2, playerUUID);
+                pstmt.setInt(3, points);
+                return pstmt.executeUpdate() > 0;
+            }
+        }, "spend_personal_points");
+    }
+
     // Métodos para boosts
     public void setPersonalBoost(String playerUUID, double multiplier, long expiry) {
         String sql = """
@@ -386,46 +596,68 @@ public class DatabaseManager {
             DO UPDATE SET multiplier = excluded.multiplier, expiry = excluded.expiry
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
             pstmt.setDouble(2, multiplier);
             pstmt.setLong(3, expiry);
             pstmt.executeUpdate();
+            if (plugin.getBoostResolver() != null) {
+                plugin.getBoostResolver().setTemporaryBoost(playerUUID, multiplier, expiry);
+            }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error setting personal boost", e);
         }
     }
 
     public double getPersonalBoost(String playerUUID) {
+        Double cached = plugin.getBoostResolver() != null ? plugin.getBoostResolver().getTemporaryBoost(playerUUID) : null;
+        if (cached != null) {
+            return cached;
+        }
+        PersonalBoost boost = getStoredPersonalBoost(playerUUID);
+        return boost != null && boost.getExpiry() > System.currentTimeMillis() ? boost.getMultiplier() : 1.0;
+    }
+
+    /**
+     * Boost personal guardado, aunque ya haya caducado
+     * @return Boost o null si el jugador nunca tuvo uno
+     */
+    public PersonalBoost getStoredPersonalBoost(String playerUUID) {
         String sql = "SELECT multiplier, expiry FROM player_boosts WHERE player_uuid = ?";
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    long expiry = rs.getLong("expiry");
-                    if (expiry > System.currentTimeMillis()) {
-                        return rs.getDouble("multiplier");
-                    }
+                    return new PersonalBoost(rs.getDouble("multiplier"), rs.getLong("expiry"));
                 }
             }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error getting personal boost", e);
         }
-        return 1.0;
+        return null;
     }
 
     // Métodos para historial de regalos
     public void saveGiftHistory(String senderUUID, String receiverUUID, String giftName, int pointsEarned) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.addGiftHistory(senderUUID, receiverUUID, giftName, pointsEarned);
+            historyChanged(senderUUID, receiverUUID);
+            return;
+        }
+
         String sql = """
             INSERT INTO gift_history (sender_uuid, receiver_uuid, gift_name, points_earned, timestamp)
             VALUES (?, ?, ?, ?, ?)
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, senderUUID);
-            pstmt.setString(2, receiverUUID);
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, senderUUID);
+            uuidCodec.bind(pstmt, 2, receiverUUID);
             pstmt.setString(3, giftName);
             pstmt.setInt(4, pointsEarned);
             pstmt.setLong(5, System.currentTimeMillis());
@@ -433,51 +665,70 @@ public class DatabaseManager {
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error saving gift history", e);
         }
+        historyChanged(senderUUID, receiverUUID);
+    }
+
+    private void historyChanged(String senderUUID, String receiverUUID) {
+        if (caches() != null) {
+            caches().onHistoryChanged(senderUUID, receiverUUID);
+        }
     }
 
     public List<GiftHistoryEntry> getGiftHistory(String playerUUID, int limit, int offset) {
-        List<GiftHistoryEntry> entries = new ArrayList<>();
-        String sql = """
-            SELECT gh.sender_uuid, gh.receiver_uuid, gh.gift_name, gh.points_earned, gh.timestamp,
-                   sp.name as sender_name, rp.name as receiver_name
-            FROM gift_history gh
-            LEFT JOIN (
-                SELECT DISTINCT sender_uuid as uuid, sender_uuid as name FROM friendships
-                UNION
-                SELECT DISTINCT receiver_uuid as uuid, receiver_uuid as name FROM friendships
-            ) sp ON gh.sender_uuid = sp.uuid
-            LEFT JOIN (
-                SELECT DISTINCT sender_uuid as uuid, sender_uuid as name FROM friendships
-                UNION
-                SELECT DISTINCT receiver_uuid as uuid, receiver_uuid as name FROM friendships
-            ) rp ON gh.receiver_uuid = rp.uuid
-            WHERE gh.sender_uuid = ? OR gh.receiver_uuid = ?
-            ORDER BY gh.timestamp DESC
-            LIMIT ? OFFSET ?
-            """;
+        return queryGiftHistory(playerUUID, null, limit, offset);
+    }
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
-            pstmt.setString(2, playerUUID);
-            pstmt.setInt(3, limit);
-            pstmt.setInt(4, offset);
+    /**
+     * Página de historial anterior a un cursor (paginación por clave, sin OFFSET)
+     * @param cursor Última entrada de la página previa, o null para la primera página
+     */
+    public List<GiftHistoryEntry> getGiftHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        return queryGiftHistory(playerUUID, cursor, limit, 0);
+    }
+
+    /**
+     * Página de historial archivado anterior a un cursor (se lee solo al pasar de la ventana reciente)
+     */
+    public List<GiftHistoryEntry> getArchivedGiftHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        return toHistoryEntries(plugin.getHistoryArchiver().getArchivedHistoryBefore(playerUUID, cursor, limit));
+    }
+
+    private List<GiftHistoryEntry> queryGiftHistory(String playerUUID, HistoryCursor cursor, int limit, int offset) {
+        // Las filas pendientes aún no tienen id para el cursor: solo se vacía si el jugador tiene alguna
+        if (writeBehindQueue != null && writeBehindQueue.hasPendingHistory(playerUUID)) {
+            writeBehindQueue.flush();
+        }
+
+        long cursorTimestamp = cursor != null ? cursor.getTimestamp() : Long.MAX_VALUE;
+        long cursorId = cursor != null ? cursor.getId() : Long.MAX_VALUE;
+        int branchLimit = limit + offset;
+
+        List<GiftRecord> records = new ArrayList<>();
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(HISTORY_PAGE_SQL)) {
+            int index = 1;
+            uuidCodec.bind(pstmt, index++, playerUUID);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorId);
+            pstmt.setInt(index++, branchLimit);
+
+            uuidCodec.bind(pstmt, index++, playerUUID);
+            uuidCodec.bind(pstmt, index++, playerUUID);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorId);
+            pstmt.setInt(index++, branchLimit);
+
+            pstmt.setInt(index++, limit);
+            pstmt.setInt(index, offset);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    // Si no tenemos los nombres, usar los UUIDs
-                    String senderName = rs.getString("sender_name");
-                    if (senderName == null || senderName.equals(rs.getString("sender_uuid"))) {
-                        senderName = getPlayerName(rs.getString("sender_uuid"));
-                    }
-
-                    String receiverName = rs.getString("receiver_name");
-                    if (receiverName == null || receiverName.equals(rs.getString("receiver_uuid"))) {
-                        receiverName = getPlayerName(rs.getString("receiver_uuid"));
-                    }
-
-                    entries.add(new GiftHistoryEntry(
-                        senderName,
-                        receiverName,
+                    records.add(new GiftRecord(
+                        rs.getLong("id"),
+                        uuidCodec.readString(rs, "sender_uuid"),
+                        uuidCodec.readString(rs, "receiver_uuid"),
                         rs.getString("gift_name"),
                         rs.getInt("points_earned"),
                         rs.getLong("timestamp")
@@ -485,27 +736,66 @@ public class DatabaseManager {
                 }
             }
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.WARNING, "Error getting gift history with names", e);
+            plugin.getLogger().log(Level.WARNING, "Error getting gift history", e);
         }
 
-        return entries;
+        return toHistoryEntries(records);
     }
 
-    private String getPlayerName(String uuid) {
-        try {
-            OfflinePlayer player = Bukkit.getOfflinePlayer(java.util.UUID.fromString(uuid));
-            return player.getName() != null ? player.getName() : "Desconocido";
-        } catch (Exception e) {
-            return "Desconocido";
+    /**
+     * Convierte filas de historial en entradas con nombres, resolviendo todos los UUIDs en un solo lote
+     */
+    private List<GiftHistoryEntry> toHistoryEntries(List<GiftRecord> records) {
+        Set<String> uuids = new HashSet<>();
+        for (GiftRecord record : records) {
+            uuids.add(record.getSenderUUID());
+            uuids.add(record.getReceiverUUID());
+        }
+        Map<String, String> names = plugin.getPlayerNameCache().resolveNameStrings(uuids);
+
+        List<GiftHistoryEntry> entries = new ArrayList<>(records.size());
+        for (GiftRecord record : records) {
+            entries.add(new GiftHistoryEntry(
+                record.getId(),
+                names.get(record.getSenderUUID()),
+                names.get(record.getReceiverUUID()),
+                record.getGiftName(),
+                record.getPointsEarned(),
+                record.getTimestamp()
+            ));
         }
+        return entries;
     }
 
     public int getGiftHistoryCount(String playerUUID) {
-        String sql = "SELECT COUNT(*) as count FROM gift_history WHERE sender_uuid = ? OR receiver_uuid = ?";
+        if (caches() != null) {
+            return caches().getGiftHistoryCount(playerUUID, this::queryGiftHistoryCount);
+        }
+        return queryGiftHistoryCount(playerUUID);
+    }
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
-            pstmt.setString(2, playerUUID);
+    private int queryGiftHistoryCount(String playerUUID) {
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readGiftHistoryCount(playerUUID, () -> selectGiftHistoryCount(playerUUID));
+        }
+        return selectGiftHistoryCount(playerUUID);
+    }
+
+    private int selectGiftHistoryCount(String playerUUID) {
+        // Dos conteos sobre índice en lugar de un OR que obliga a recorrer la tabla,
+        // más las entradas ya movidas al archivo
+        String sql = """
+            SELECT (SELECT COUNT(*) FROM gift_history WHERE sender_uuid = ?)
+                 + (SELECT COUNT(*) FROM gift_history WHERE receiver_uuid = ? AND sender_uuid <> ?)
+                 + (SELECT COALESCE(SUM(entry_count), 0) FROM gift_history_archive WHERE player_uuid = ?) AS count
+            """;
+
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
+            uuidCodec.bind(pstmt, 2, playerUUID);
+            uuidCodec.bind(pstmt, 3, playerUUID);
+            uuidCodec.bind(pstmt, 4, playerUUID);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -520,11 +810,23 @@ public class DatabaseManager {
 
     // Métodos para límite diario
     public int getDailyGiftCount(String playerUUID) {
+        Integer cached = sessions() != null ? sessions().getDailyGiftCount(playerUUID) : null;
+        if (cached != null) {
+            return cached;
+        }
         String today = java.time.LocalDate.now().toString();
+        if (writeBehindQueue != null) {
+            return writeBehindQueue.readDailyGiftCount(playerUUID, today, () -> queryDailyGiftCount(playerUUID, today));
+        }
+        return queryDailyGiftCount(playerUUID, today);
+    }
+
+    private int queryDailyGiftCount(String playerUUID, String today) {
         String sql = "SELECT gift_count FROM daily_gifts WHERE player_uuid = ? AND date = ?";
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
             pstmt.setString(2, today);
 
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -539,6 +841,23 @@ public class DatabaseManager {
     }
 
     public void incrementDailyGiftCount(String playerUUID) {
+        beginSessionWrite(playerUUID);
+        try {
+            storeDailyGiftCount(playerUUID);
+        } finally {
+            endSessionWrite(playerUUID);
+        }
+    }
+
+    private void storeDailyGiftCount(String playerUUID) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.incrementDailyGiftCount(playerUUID);
+            if (sessions() != null) {
+                sessions().incrementDailyGiftCount(playerUUID);
+            }
+            return;
+        }
+
         String today = java.time.LocalDate.now().toString();
         String sql = """
             INSERT INTO daily_gifts (player_uuid, date, gift_count)
@@ -547,12 +866,17 @@ public class DatabaseManager {
             DO UPDATE SET gift_count = gift_count + 1
             """;
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID);
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            uuidCodec.bind(pstmt, 1, playerUUID);
             pstmt.setString(2, today);
             pstmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error incrementing daily gift count", e);
+            return;
+        }
+        if (sessions() != null) {
+            sessions().incrementDailyGiftCount(playerUUID);
         }
     }
 
@@ -560,7 +884,8 @@ public class DatabaseManager {
         String yesterday = java.time.LocalDate.now().minusDays(1).toString();
         String sql = "DELETE FROM daily_gifts WHERE date < ?";
 
-        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
+        try (Connection conn = getWriterConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, yesterday);
             pstmt.executeUpdate();
         } catch (SQLException e) {
@@ -569,6 +894,16 @@ public class DatabaseManager {
     }
 
     public boolean createManualBackup() {
+        return createBackup("manual");
+    }
+
+    /**
+     * Copia del archivo de la base de datos en la carpeta de backups
+     * @param label Parte del nombre del archivo que indica el motivo (manual, pre_uuid_binary...)
+     */
+    public boolean createBackup(String label) {
+        flushPendingWrites();
+
         try {
             File dataFolder = plugin.getDataFolder();
             File originalDB = new File(dataFolder, DATABASE_NAME);
@@ -581,17 +916,21 @@ public class DatabaseManager {
 
             // Crear nombre de archivo con timestamp
             String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
-            String backupFileName = DATABASE_NAME + "_manual_" + timestamp + ".bak";
+            String backupFileName = DATABASE_NAME + "_" + label + "_" + timestamp + ".bak";
             File backupFile = new File(backupFolder, backupFileName);
 
-            // Copiar la base de datos
-            Files.copy(originalDB.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            // Volcar el WAL al archivo principal y copiar mientras se retiene el escritor
+            try (Connection conn = getWriterConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                Files.copy(originalDB.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
 
-            plugin.getLogger().info(() -> "Manual backup created successfully: " + backupFileName);
+            plugin.getLogger().info(() -> "Backup created successfully: " + backupFileName);
             return true;
 
-        } catch (IOException | SecurityException e) {
-            plugin.getLogger().log(Level.WARNING, "Error creating manual backup", e);
+        } catch (IOException | SQLException | SecurityException e) {
+            plugin.getLogger().log(Level.WARNING, "Error creating backup", e);
             return false;
         }
     }
@@ -637,14 +976,29 @@ public class DatabaseManager {
         public int getPoints() { return points; }
     }
 
+    public static class PersonalBoost {
+        private final double multiplier;
+        private final long expiry;
+
+        public PersonalBoost(double multiplier, long expiry) {
+            this.multiplier = multiplier;
+            this.expiry = expiry;
+        }
+
+        public double getMultiplier() { return multiplier; }
+        public long getExpiry() { return expiry; }
+    }
+
     public static class GiftRecord {
+        private final long id;
         private final String senderUUID;
         private final String receiverUUID;
         private final String giftName;
         private final int pointsEarned;
         private final long timestamp;
 
-        public GiftRecord(String senderUUID, String receiverUUID, String giftName, int pointsEarned, long timestamp) {
+        public GiftRecord(long id, String senderUUID, String receiverUUID, String giftName, int pointsEarned, long timestamp) {
+            this.id = id;
             this.senderUUID = senderUUID;
             this.receiverUUID = receiverUUID;
             this.giftName = giftName;
@@ -652,6 +1006,7 @@ public class DatabaseManager {
             this.timestamp = timestamp;
         }
 
+        public long getId() { return id; }
         public String getSenderUUID() { return senderUUID; }
         public String getReceiverUUID() { return receiverUUID; }
         public String getGiftName() { return giftName; }
@@ -660,13 +1015,15 @@ public class DatabaseManager {
     }
 
     public static class GiftHistoryEntry {
+        private final long id;
         private final String senderName;
         private final String receiverName;
         private final String giftName;
         private final int points;
         private final long timestamp;
 
-        public GiftHistoryEntry(String senderName, String receiverName, String giftName, int points, long timestamp) {
+        public GiftHistoryEntry(long id, String senderName, String receiverName, String giftName, int points, long timestamp) {
+            this.id = id;
             this.senderName = senderName;
             this.receiverName = receiverName;
             this.giftName = giftName;
@@ -674,10 +1031,34 @@ public class DatabaseManager {
             this.timestamp = timestamp;
         }
 
+        public long getId() { return id; }
         public String getSenderName() { return senderName; }
         public String getReceiverName() { return receiverName; }
         public String getGiftName() { return giftName; }
         public int getPoints() { return points; }
         public long getTimestamp() { return timestamp; }
+
+        /**
+         * Cursor que apunta justo después de esta entrada
+         */
+        public HistoryCursor toCursor() {
+            return new HistoryCursor(timestamp, id);
+        }
+    }
+
+    /**
+     * Posición en el historial: (timestamp, id) desempata regalos del mismo milisegundo
+     */
+    public static class HistoryCursor {
+        private final long timestamp;
+        private final long id;
+
+        public HistoryCursor(long timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public long getTimestamp() { return timestamp; }
+        public long getId() { return id; }
     }
 }
@@ -3,14 +3,16 @@ package com.fredygraces.giftbond.managers;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandException;
-import org.bukkit.entity.Player;
 
 import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.storage.StorageExecutor;
 import com.fredygraces.giftbond.utils.DebugLogger;
 
 public class FriendshipManager {
@@ -27,6 +29,20 @@ public class FriendshipManager {
 
     public int addFriendshipPoints(String senderUUID, String receiverUUID, int points) {
         double multiplier = getActiveMultiplier(senderUUID);
+        int finalPoints = recordFriendshipPoints(senderUUID, receiverUUID, points, multiplier);
+        
+        // Verificar si hay nuevo Top 1 y hacer broadcast
+        checkAndBroadcastTop1();
+        
+        return finalPoints;
+    }
+
+    /**
+     * Registra puntos de amistad con un multiplicador ya calculado.
+     * No accede a la API de Bukkit, por lo que puede ejecutarse en el hilo de almacenamiento.
+     * @return Puntos finales otorgados (con boost)
+     */
+    public int recordFriendshipPoints(String senderUUID, String receiverUUID, int points, double multiplier) {
         debugLogger.debug("[BOOST] Base points: " + points + ", Multiplier: " + multiplier);
         int finalPoints = (int) (points * multiplier);
         debugLogger.debug("[BOOST] Final points calculated: " + finalPoints);
@@ -48,9 +64,6 @@ public class FriendshipManager {
             databaseManager.addPersonalPoints(receiverUUID, receiverPoints);
         }
         
-        // Verificar si hay nuevo Top 1 y hacer broadcast
-        checkAndBroadcastTop1();
-        
         return finalPoints;
     }
 
@@ -68,38 +81,59 @@ public class FriendshipManager {
         }
     }
 
-    private void checkAndBroadcastTop1() {
+    /**
+     * Verifica si cambió la pareja Top 1 y anuncia el cambio.
+     * Lee el ranking en memoria desde cualquier hilo; los nombres se resuelven en el hilo de
+     * almacenamiento y el broadcast siempre se hace en el hilo principal.
+     */
+    public void checkAndBroadcastTop1() {
         if (!plugin.getConfigManager().getMainConfig().getBoolean("settings.broadcast_top1", true)) {
             return;
         }
         
-        List<DatabaseManager.FriendshipPair> topPairs = databaseManager.getTopFriendshipPairs(1);
-        if (topPairs.isEmpty()) return;
+        DatabaseManager.FriendshipPair currentTop = databaseManager.getPairLeaderboard().getTop1();
+        if (currentTop == null) return;
         
-        DatabaseManager.FriendshipPair currentTop = topPairs.get(0);
         String currentKey = currentTop.getPlayer1UUID() + "-" + currentTop.getPlayer2UUID() + "-" + currentTop.getPoints();
         
         // Si es diferente al anterior Top 1, hacer broadcast
-        if (!currentKey.equals(lastTop1Key)) {
+        synchronized (this) {
+            if (currentKey.equals(lastTop1Key)) {
+                return;
+            }
             lastTop1Key = currentKey;
-            
-            OfflinePlayer player1 = Bukkit.getOfflinePlayer(java.util.UUID.fromString(currentTop.getPlayer1UUID()));
-            OfflinePlayer player2 = Bukkit.getOfflinePlayer(java.util.UUID.fromString(currentTop.getPlayer2UUID()));
-            
-            String name1 = player1.getName() != null ? player1.getName() : "Desconocido";
-            String name2 = player2.getName() != null ? player2.getName() : "Desconocido";
-            
-            String message = plugin.getMessage("messages.top1_broadcast", 
-                "&d✨ ¡{player1} y {player2} son ahora la pareja Nº1 con {points} puntos! ✨");
-            message = message.replace("{player1}", name1)
-                           .replace("{player2}", name2)
-                           .replace("{points}", String.valueOf(currentTop.getPoints()));
-            
-            Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', message));
-            
-            // Ejecutar comandos personalizados del config.yml
-            executeTop1Commands(name1, name2, currentTop.getPoints());
         }
+        
+        StorageExecutor storageExecutor = plugin.getStorageExecutor();
+        try {
+            storageExecutor.supply(() -> plugin.getPlayerNameCache()
+                    .resolveNameStrings(List.of(currentTop.getPlayer1UUID(), currentTop.getPlayer2UUID())))
+                .whenComplete((names, error) -> {
+                    if (error != null) {
+                        plugin.getLogger().log(Level.WARNING, "Error resolviendo los nombres del Top 1", error);
+                        return;
+                    }
+                    storageExecutor.runOnMainThread(() -> broadcastTop1(currentTop, names));
+                });
+        } catch (RejectedExecutionException e) {
+            // El plugin se está deteniendo: no se anuncia
+        }
+    }
+    
+    private void broadcastTop1(DatabaseManager.FriendshipPair currentTop, Map<String, String> names) {
+        String name1 = names.get(currentTop.getPlayer1UUID());
+        String name2 = names.get(currentTop.getPlayer2UUID());
+        
+        String message = plugin.getMessage("messages.top1_broadcast", 
+            "&d✨ ¡{player1} y {player2} son ahora la pareja Nº1 con {points} puntos! ✨");
+        message = message.replace("{player1}", name1)
+                       .replace("{player2}", name2)
+                       .replace("{points}", String.valueOf(currentTop.getPoints()));
+        
+        Bukkit.broadcastMessage(ChatColor.translateAlternateColorCodes('&', message));
+        
+        // Ejecutar comandos personalizados del config.yml
+        executeTop1Commands(name1, name2, currentTop.getPoints());
     }
     
     private void executeTop1Commands(String player1, String player2, int points) {
@@ -132,36 +166,14 @@ public class FriendshipManager {
     }
 
     public double getActiveMultiplier(String playerUUID) {
-        // Obtener el jugador
-        Player player = Bukkit.getPlayer(java.util.UUID.fromString(playerUUID));
-        if (player == null) {
-            return 1.0; // Jugador offline, sin boost
-        }
-        
-        // Buscar el boost más alto de todos los configurados por permisos
-        double highestMultiplier = 1.0;
-        
-        if (plugin.getConfigManager().getMainConfig().contains("boosts")) {
-            org.bukkit.configuration.ConfigurationSection boostsSection = plugin.getConfigManager().getMainConfig().getConfigurationSection("boosts");
-            if (boostsSection != null) {
-                for (String boostKey : boostsSection.getKeys(false)) {
-                String permission = plugin.getConfigManager().getMainConfig().getString("boosts." + boostKey + ".permission");
-                double multiplier = plugin.getConfigManager().getMainConfig().getDouble("boosts." + boostKey + ".multiplier", 1.0);
-                
-                if (permission != null && player.hasPermission(permission) && multiplier > highestMultiplier) {
-                    highestMultiplier = multiplier;
-                }
-            }
-        }
-        }
-        
-        // Verificar boost personal temporal de la base de datos
-        double personalBoost = databaseManager.getPersonalBoost(playerUUID);
-        if (personalBoost > 1.0) {
-            highestMultiplier *= personalBoost; // MULTIPLICAR ambos boosts
-        }
-        
-        return highestMultiplier;
+        return getActiveMultiplier(UUID.fromString(playerUUID));
+    }
+
+    /**
+     * Multiplicador activo (permisos × boost temporal), resuelto en memoria
+     */
+    public double getActiveMultiplier(UUID playerId) {
+        return plugin.getBoostResolver().getMultiplier(playerId);
     }
 
     public void setPersonalBoost(String playerUUID, double multiplier, int minutes) {
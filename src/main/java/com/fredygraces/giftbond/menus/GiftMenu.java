@@ -151,7 +151,7 @@ public class GiftMenu {
         ItemStack item = new ItemStack(Material.GOLD_INGOT);
         ItemMeta meta = item.getItemMeta();
         
-        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId().toString());
+        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId());
         int basePoints = moneyGift.getPoints();
         int finalPoints = (int) (basePoints * multiplier);
         
@@ -476,7 +476,7 @@ public class GiftMenu {
             }
         }
         
-        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId().toString());
+        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId());
         int basePoints = gift.getPoints();
         int finalPoints = (int) (basePoints * multiplier);
 
@@ -559,7 +559,7 @@ public class GiftMenu {
             meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', displayName));
         }
             
-        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId().toString());
+        double multiplier = plugin.getFriendshipManager().getActiveMultiplier(sender.getUniqueId());
         int basePoints = gift.getPoints();
         int finalPoints = (int) (basePoints * multiplier);
     
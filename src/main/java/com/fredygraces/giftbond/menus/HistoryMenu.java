@@ -4,6 +4,9 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -19,6 +22,9 @@ import com.fredygraces.giftbond.managers.DatabaseManager;
 public class HistoryMenu {
     private final GiftBond plugin;
     private static final int ITEMS_PER_PAGE = 45; // 5 filas de 9 items
+    
+    // Cursor de inicio de cada página ya visitada (índice = página; la 0 es null)
+    private final Map<UUID, List<DatabaseManager.HistoryCursor>> pageCursors = new ConcurrentHashMap<>();
 
     public HistoryMenu(GiftBond plugin) {
         this.plugin = plugin;
@@ -27,12 +33,66 @@ public class HistoryMenu {
     public void openHistoryMenu(Player player, int page) {
         String playerUUID = player.getUniqueId().toString();
         
-        // Obtener historial paginado
-        int offset = page * ITEMS_PER_PAGE;
+        // Solo se navega página a página: sin cursor conocido se vuelve al inicio
+        List<DatabaseManager.HistoryCursor> cursors = pageCursors.get(player.getUniqueId());
+        if (page <= 0 || cursors == null || page >= cursors.size()) {
+            page = 0;
+            cursors = new ArrayList<>();
+            cursors.add(null);
+            pageCursors.put(player.getUniqueId(), cursors);
+        }
+        
+        // Leer la página fuera del hilo principal y construir el menú al volver
+        final int requestedPage = page;
+        final List<DatabaseManager.HistoryCursor> playerCursors = cursors;
+        DatabaseManager.HistoryCursor pageStart = cursors.get(page);
+        plugin.getAsyncStorage().acceptOnMainThread(
+            plugin.getAsyncStorage().read(() -> loadPage(playerUUID, pageStart)),
+            loaded -> {
+                if (player.isOnline()) {
+                    rememberNextCursor(playerCursors, requestedPage, loaded.entries);
+                    renderHistoryMenu(player, requestedPage, loaded.entries, loaded.totalEntries);
+                }
+            });
+    }
+    
+    /**
+     * Cargar una página de historial y el total (se ejecuta fuera del hilo principal)
+     */
+    private HistoryPage loadPage(String playerUUID, DatabaseManager.HistoryCursor pageStart) {
+        // Obtener historial paginado por cursor (sin OFFSET)
         List<DatabaseManager.GiftHistoryEntry> history = plugin.getDatabaseManager()
-            .getGiftHistory(playerUUID, ITEMS_PER_PAGE, offset);
+            .getGiftHistoryBefore(playerUUID, pageStart, ITEMS_PER_PAGE);
         
-        int totalEntries = plugin.getDatabaseManager().getGiftHistoryCount(playerUUID);
+        // Pasada la ventana reciente, completar con el historial archivado
+        if (history.size() < ITEMS_PER_PAGE && plugin.getHistoryArchiver().isBrowsingEnabled()) {
+            DatabaseManager.HistoryCursor archiveCursor = history.isEmpty()
+                ? pageStart
+                : history.get(history.size() - 1).toCursor();
+            history = new ArrayList<>(history);
+            history.addAll(plugin.getDatabaseManager()
+                .getArchivedGiftHistoryBefore(playerUUID, archiveCursor, ITEMS_PER_PAGE - history.size()));
+        }
+        
+        return new HistoryPage(history, plugin.getDatabaseManager().getGiftHistoryCount(playerUUID));
+    }
+    
+    /**
+     * Recordar dónde empieza la siguiente página
+     */
+    private void rememberNextCursor(List<DatabaseManager.HistoryCursor> cursors, int page,
+                                    List<DatabaseManager.GiftHistoryEntry> history) {
+        if (!history.isEmpty()) {
+            DatabaseManager.HistoryCursor next = history.get(history.size() - 1).toCursor();
+            if (cursors.size() > page + 1) {
+                cursors.set(page + 1, next);
+            } else {
+                cursors.add(next);
+            }
+        }
+    }
+    
+    private void renderHistoryMenu(Player player, int page, List<DatabaseManager.GiftHistoryEntry> history, int totalEntries) {
         int totalPages = (int) Math.ceil((double) totalEntries / ITEMS_PER_PAGE);
         
         // Crear inventario
@@ -139,4 +199,24 @@ public class HistoryMenu {
         
         player.openInventory(inv);
     }
+    
+    /**
+     * Olvidar los cursores de paginación de un jugador
+     */
+    public void forgetPlayer(UUID playerId) {
+        pageCursors.remove(playerId);
+    }
+    
+    /**
+     * Página de historial cargada junto con el total de regalos del jugador
+     */
+    private static class HistoryPage {
+        private final List<DatabaseManager.GiftHistoryEntry> entries;
+        private final int totalEntries;
+        
+        HistoryPage(List<DatabaseManager.GiftHistoryEntry> entries, int totalEntries) {
+            this.entries = entries;
+            this.totalEntries = totalEntries;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.fredygraces.giftbond.models;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.bukkit.inventory.ItemStack;
 
@@ -17,8 +18,8 @@ public class MailboxGift {
     private final String senderName;
     private final String giftId;
     private final String giftName;
-    private final List<ItemStack> originalItems; // Items enviados originalmente
-    private final List<ItemStack> sharedItems;   // Items que recibe el receptor (porcentaje)
+    private final LazyItems originalItems;       // Items enviados originalmente
+    private final LazyItems sharedItems;         // Items que recibe el receptor (porcentaje)
     private final double money;                  // Dinero enviado
     private final int basePoints;                // Puntos base del regalo (sin boost)
     private final int pointsAwarded;             // Puntos finales calculados (con boost del momento de envío)
@@ -36,8 +37,8 @@ public class MailboxGift {
         this.senderName = senderName;
         this.giftId = giftId;
         this.giftName = giftName;
-        this.originalItems = originalItems != null ? new ArrayList<>(originalItems) : new ArrayList<>();
-        this.sharedItems = sharedItems != null ? new ArrayList<>(sharedItems) : new ArrayList<>();
+        this.originalItems = LazyItems.of(originalItems);
+        this.sharedItems = LazyItems.of(sharedItems);
         this.money = money;
         this.basePoints = basePoints;
         this.pointsAwarded = pointsAwarded;
@@ -47,9 +48,11 @@ public class MailboxGift {
     }
     
     // Constructor para cargar desde base de datos
+    // Los items se guardan tal como vienen de la columna y se decodifican con itemDecoder al primer acceso
     public MailboxGift(int id, UUID receiverUUID, String receiverName, UUID senderUUID,
-                      String senderName, String giftId, String giftName, List<ItemStack> originalItems,
-                      List<ItemStack> sharedItems, double money, int basePoints, int pointsAwarded, long timestamp, 
+                      String senderName, String giftId, String giftName, Object originalItemsPayload,
+                      Object sharedItemsPayload, Function<Object, List<ItemStack>> itemDecoder,
+                      double money, int basePoints, int pointsAwarded, long timestamp, 
                       boolean claimed, Long claimTimestamp) {
         this.id = id;
         this.receiverUUID = receiverUUID;
@@ -58,8 +61,8 @@ public class MailboxGift {
         this.senderName = senderName;
         this.giftId = giftId;
         this.giftName = giftName;
-        this.originalItems = originalItems != null ? new ArrayList<>(originalItems) : new ArrayList<>();
-        this.sharedItems = sharedItems != null ? new ArrayList<>(sharedItems) : new ArrayList<>();
+        this.originalItems = LazyItems.encoded(originalItemsPayload, itemDecoder);
+        this.sharedItems = LazyItems.encoded(sharedItemsPayload, itemDecoder);
         this.money = money;
         this.basePoints = basePoints;
         this.pointsAwarded = pointsAwarded;
@@ -81,8 +84,13 @@ public class MailboxGift {
     public String getGiftId() { return giftId; }
     public String getGiftName() { return giftName; }
     
-    public List<ItemStack> getOriginalItems() { return new ArrayList<>(originalItems); }
-    public List<ItemStack> getSharedItems() { return new ArrayList<>(sharedItems); }
+    public List<ItemStack> getOriginalItems() { return new ArrayList<>(originalItems.get()); }
+    public List<ItemStack> getSharedItems() { return new ArrayList<>(sharedItems.get()); }
+    
+    /**
+     * Indica si el receptor recibe items, sin decodificarlos si aún no se ha hecho
+     */
+    public boolean hasSharedItems() { return !sharedItems.isEmpty(); }
     public double getMoney() { return money; }
     public int getBasePoints() { return basePoints; }
     public int getPointsAwarded() { return pointsAwarded; }
@@ -97,4 +105,51 @@ public class MailboxGift {
             this.claimTimestamp = System.currentTimeMillis();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Lista de items que se decodifica en el primer acceso y se conserva
+     * Un payload null equivale a lista vacía (el codec no guarda listas vacías)
+     */
+    private static final class LazyItems {
+        private Object payload;
+        private Function<Object, List<ItemStack>> decoder;
+        private volatile List<ItemStack> items;
+        
+        private LazyItems(Object payload, Function<Object, List<ItemStack>> decoder, List<ItemStack> items) {
+            this.payload = payload;
+            this.decoder = decoder;
+            this.items = items;
+        }
+        
+        static LazyItems of(List<ItemStack> items) {
+            return new LazyItems(null, null, items != null ? new ArrayList<>(items) : new ArrayList<>());
+        }
+        
+        static LazyItems encoded(Object payload, Function<Object, List<ItemStack>> decoder) {
+            return payload == null ? of(null) : new LazyItems(payload, decoder, null);
+        }
+        
+        List<ItemStack> get() {
+            List<ItemStack> result = items;
+            if (result == null) {
+                synchronized (this) {
+                    result = items;
+                    if (result == null) {
+                        List<ItemStack> decoded = decoder.apply(payload);
+                        result = decoded != null ? decoded : new ArrayList<>();
+                        items = result;
+                        // El payload ya no hace falta
+                        payload = null;
+                        decoder = null;
+                    }
+                }
+            }
+            return result;
+        }
+        
+        boolean isEmpty() {
+            List<ItemStack> result = items;
+            return result != null && result.isEmpty();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.fredygraces.giftbond.placeholders;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 
 import com.fredygraces.giftbond.GiftBond;
@@ -17,7 +19,14 @@ import me.clip.placeholderapi.expansion.PlaceholderExpansion;
  */
 public class GiftBondPlaceholders extends PlaceholderExpansion {
     
+    // PlaceholderAPI pide los valores en el hilo principal: se sirve el último valor leído
+    // y se refresca en segundo plano cuando caduca
+    private static final long PERSONAL_POINTS_TTL_MS = 5_000L;
+    private static final int PERSONAL_POINTS_PRUNE_SIZE = 512;
+    
     private final GiftBond plugin;
+    private final Map<UUID, CachedPoints> personalPoints = new ConcurrentHashMap<>();
+    private final Set<UUID> refreshing = ConcurrentHashMap.newKeySet();
     
     public GiftBondPlaceholders(GiftBond plugin) {
         this.plugin = plugin;
@@ -58,12 +67,40 @@ public class GiftBondPlaceholders extends PlaceholderExpansion {
         // Handle personal points placeholder
         if (params.equals("personal_points")) {
             if (player == null) return "0";
-            return String.valueOf(plugin.getFriendshipManager().getPersonalPoints(player.getUniqueId().toString()));
+            return String.valueOf(getCachedPersonalPoints(player.getUniqueId()));
         }
         
         return null; // Unknown placeholder
     }
     
+    /**
+     * Puntos personales sin bloquear: último valor conocido, refrescado de forma asíncrona
+     */
+    private int getCachedPersonalPoints(UUID playerId) {
+        // Jugador conectado: su sesión en memoria siempre está al día
+        Integer live = plugin.getPlayerSessionCache().getPersonalPoints(playerId.toString());
+        if (live != null) {
+            return live;
+        }
+        CachedPoints cached = personalPoints.get(playerId);
+        if ((cached == null || System.currentTimeMillis() - cached.loadedAt > PERSONAL_POINTS_TTL_MS)
+                && refreshing.add(playerId)) {
+            plugin.getAsyncStorage().getPersonalPoints(playerId.toString())
+                .whenComplete((points, error) -> {
+                    if (points != null) {
+                        long now = System.currentTimeMillis();
+                        // Descartar jugadores que ya no se consultan (desconectados)
+                        if (personalPoints.size() > PERSONAL_POINTS_PRUNE_SIZE) {
+                            personalPoints.values().removeIf(entry -> now - entry.loadedAt > PERSONAL_POINTS_TTL_MS * 12);
+                        }
+                        personalPoints.put(playerId, new CachedPoints(points, now));
+                    }
+                    refreshing.remove(playerId);
+                });
+        }
+        return cached != null ? cached.points : 0;
+    }
+    
     /**
      * Handles couple top placeholders (%giftbond_couple_top_1%, %giftbond_couple_top_2%, etc.)
      */
@@ -89,9 +126,11 @@ public class GiftBondPlaceholders extends PlaceholderExpansion {
             // Get the specific couple
             DatabaseManager.FriendshipPair pair = topPairs.get(position - 1);
             
-            // Get player names
-            String player1Name = getPlayerName(pair.getPlayer1UUID());
-            String player2Name = getPlayerName(pair.getPlayer2UUID());
+            // Get player names (one batch lookup for both)
+            Map<String, String> names = plugin.getPlayerNameCache()
+                .resolveNameStrings(List.of(pair.getPlayer1UUID(), pair.getPlayer2UUID()));
+            String player1Name = names.get(pair.getPlayer1UUID());
+            String player2Name = names.get(pair.getPlayer2UUID());
             
             // Return formatted couple names
             return player1Name + " & " + player2Name;
@@ -133,15 +172,15 @@ public class GiftBondPlaceholders extends PlaceholderExpansion {
     }
     
     /**
-     * Gets player name from UUID, returns "Desconocido" if not found
+     * Puntos personales leídos y el momento de la lectura
      */
-    private String getPlayerName(String uuidString) {
-        try {
-            UUID uuid = UUID.fromString(uuidString);
-            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-            return player.getName() != null ? player.getName() : "Desconocido";
-        } catch (Exception e) {
-            return "Desconocido";
+    private static class CachedPoints {
+        private final int points;
+        private final long loadedAt;
+        
+        CachedPoints(int points, long loadedAt) {
+            this.points = points;
+            this.loadedAt = loadedAt;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+package com.fredygraces.giftbond.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftHistoryEntry;
+import com.fredygraces.giftbond.managers.DatabaseManager.HistoryCursor;
+
+/**
+ * Fachada asíncrona del almacenamiento: cada operación devuelve un CompletableFuture
+ * Las lecturas se ejecutan en un ejecutor acotado propio (hilos virtuales en Java 21+,
+ * con la concurrencia limitada igualmente); las escrituras pasan por el StorageExecutor
+ * para conservar su orden. mainThread() permite volver al hilo principal de Bukkit
+ * Las operaciones tipadas pasan por DatabaseManager (sesiones, cache de lecturas y
+ * escritura diferida), igual que las llamadas síncronas
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class AsyncStorage {
+    private static final Logger logger = Logger.getLogger(AsyncStorage.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5L;
+
+    private final GiftBond plugin;
+    private final ExecutorService readExecutor;
+    private final Semaphore readPermits;
+    private final boolean virtualThreads;
+    private final Executor mainThreadExecutor;
+
+    public AsyncStorage(GiftBond plugin) {
+        this.plugin = plugin;
+        this.mainThreadExecutor = task -> plugin.getStorageExecutor().runOnMainThread(task);
+
+        FileConfiguration config = plugin.getConfigManager().getDatabaseConfig();
+        int readThreads = Math.max(1, config.getInt("async.read_threads", 4));
+        int queueSize = Math.max(16, config.getInt("async.queue_size", 1000));
+
+        ExecutorService virtual = config.getBoolean("async.virtual_threads", true) ? createVirtualExecutor() : null;
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            // Un hilo virtual por tarea; el semáforo limita cuántas usan conexiones a la vez
+            this.readExecutor = virtual;
+            this.readPermits = new Semaphore(readThreads);
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            this.readExecutor = new ThreadPoolExecutor(readThreads, readThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "GiftBond-Read-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            ((ThreadPoolExecutor) this.readExecutor).allowCoreThreadTimeOut(true);
+            this.readPermits = null;
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() si el servidor corre en Java 21+
+     * (por reflexión: el plugin se compila para Java 17)
+     */
+    private static ExecutorService createVirtualExecutor() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return (ExecutorService) java.util.concurrent.Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.FINE, "Hilos virtuales no disponibles", e);
+            return null;
+        }
+    }
+
+    /**
+     * Indica si las lecturas usan hilos virtuales
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // ===== Ejecución =====
+
+    /**
+     * Ejecutar una lectura en el ejecutor acotado
+     * Si la cola está llena el futuro se completa con RejectedExecutionException
+     */
+    public <T> CompletableFuture<T> read(Supplier<T> task) {
+        Supplier<T> bounded = readPermits == null ? task : () -> {
+            readPermits.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                readPermits.release();
+            }
+        };
+        try {
+            return CompletableFuture.supplyAsync(bounded, readExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ejecutar una escritura con resultado en el hilo de almacenamiento (en orden)
+     */
+    public <T> CompletableFuture<T> write(Supplier<T> task) {
+        try {
+            return plugin.getStorageExecutor().supply(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ejecutar una escritura sin resultado en el hilo de almacenamiento (en orden)
+     */
+    public CompletableFuture<Void> write(Runnable task) {
+        try {
+            return plugin.getStorageExecutor().run(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ejecutor del hilo principal de Bukkit, para thenAcceptAsync(..., mainThread())
+     */
+    public Executor mainThread() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Consumir el resultado en el hilo principal; los errores se registran y no llegan al consumidor
+     */
+    public <T> CompletableFuture<Void> acceptOnMainThread(CompletableFuture<T> future, Consumer<T> action) {
+        return future.handle((value, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "Error en operación de almacenamiento asíncrona", error);
+            } else {
+                mainThreadExecutor.execute(() -> action.accept(value));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Detener el ejecutor de lecturas
+     */
+    public void shutdown() {
+        readExecutor.shutdown();
+        try {
+            if (!readExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                readExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readExecutor.shutdownNow();
+        }
+    }
+
+    private DatabaseManager database() {
+        return plugin.getDatabaseManager();
+    }
+
+    // ===== FRIENDSHIP POINTS =====
+
+    public CompletableFuture<Void> saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        return write(() -> database().saveFriendshipPoints(senderUUID, receiverUUID, points));
+    }
+
+    public CompletableFuture<Integer> getFriendshipPoints(String senderUUID, String receiverUUID) {
+        return read(() -> database().getFriendshipPoints(senderUUID, receiverUUID));
+    }
+
+    public CompletableFuture<Map<String, Integer>> getPlayerFriendsWithPoints(String playerUUID) {
+        return read(() -> database().getPlayerFriendsWithPoints(playerUUID));
+    }
+
+    public CompletableFuture<Integer> getTotalFriendshipPoints(String playerUUID) {
+        return read(() -> database().getTotalFriendshipPoints(playerUUID));
+    }
+
+    public CompletableFuture<List<FriendshipPair>> getTopFriendshipPairs(int limit) {
+        return read(() -> database().getTopFriendshipPairs(limit));
+    }
+
+    // ===== PERSONAL POINTS =====
+
+    public CompletableFuture<Void> addPersonalPoints(String playerUUID, int points) {
+        return write(() -> database().addPersonalPoints(playerUUID, points));
+    }
+
+    public CompletableFuture<Integer> getPersonalPoints(String playerUUID) {
+        return read(() -> database().getPersonalPoints(playerUUID));
+    }
+
+    public CompletableFuture<Boolean> spendPersonalPoints(String playerUUID, int amount) {
+        return write(() -> database().spendPersonalPoints(playerUUID, amount));
+    }
+
+    public CompletableFuture<Void> setPersonalPoints(String playerUUID, int points) {
+        return write(() -> database().setPersonalPoints(playerUUID, points));
+    }
+
+    // ===== BOOSTS =====
+
+    public CompletableFuture<Void> setPersonalBoost(String playerUUID, double multiplier, long expiry) {
+        return write(() -> database().setPersonalBoost(playerUUID, multiplier, expiry));
+    }
+
+    public CompletableFuture<Double> getPersonalBoost(String playerUUID) {
+        return read(() -> database().getPersonalBoost(playerUUID));
+    }
+
+    // ===== GIFT HISTORY =====
+
+    public CompletableFuture<Void> saveGiftHistory(String senderUUID, String receiverUUID, String giftName, int points) {
+        return write(() -> database().saveGiftHistory(senderUUID, receiverUUID, giftName, points));
+    }
+
+    public CompletableFuture<List<GiftHistoryEntry>> getGiftHistory(String playerUUID, int limit, int offset) {
+        return read(() -> database().getGiftHistory(playerUUID, limit, offset));
+    }
+
+    public CompletableFuture<List<GiftHistoryEntry>> getGiftHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        return read(() -> database().getGiftHistoryBefore(playerUUID, cursor, limit));
+    }
+
+    public CompletableFuture<Integer> getGiftHistoryCount(String playerUUID) {
+        return read(() -> database().getGiftHistoryCount(playerUUID));
+    }
+
+    // ===== DAILY LIMIT =====
+
+    public CompletableFuture<Integer> getDailyGiftCount(String playerUUID) {
+        return read(() -> database().getDailyGiftCount(playerUUID));
+    }
+
+    public CompletableFuture<Void> incrementDailyGiftCount(String playerUUID) {
+        return write(() -> database().incrementDailyGiftCount(playerUUID));
+    }
+
+    // ===== BACKUP & MAINTENANCE =====
+
+    public CompletableFuture<Boolean> createManualBackup() {
+        return write(() -> database().createManualBackup());
+    }
+}
@@ -1,8 +1,16 @@
 package com.fredygraces.giftbond.storage;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +22,11 @@ import com.zaxxer.hikari.HikariDataSource;
  * Sistema avanzado de connection pooling con HikariCP
  * Optimiza el rendimiento de conexiones a base de datos
  * 
+ * Es la única fuente de conexiones del plugin:
+ * - Lecturas: conexiones del pool, concurrentes gracias al modo WAL
+ * - Escrituras: una única conexión dedicada protegida por un lock, ya que SQLite
+ *   solo admite un escritor a la vez
+ * 
  * @author GiftBond Team
  * @version 1.2.0
  */
@@ -25,12 +38,19 @@ public class ConnectionPoolManager {
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final String DATABASE_NAME = "friendships.db";
     
+    // Conexión de escritura dedicada; reentrante para permitir transacciones anidadas en el mismo hilo
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private Connection writerConnection;
+    // Sentencias preparadas sobre la conexión de escritura, reutilizadas entre transacciones
+    private final Map<String, PreparedStatement> writerStatements = new HashMap<>();
+    
     // Configuración optimizada
     private static final int MINIMUM_IDLE = 2;
     private static final int MAXIMUM_POOL_SIZE = 10;
     private static final long CONNECTION_TIMEOUT = 30000L; // 30 segundos
     private static final long IDLE_TIMEOUT = 600000L; // 10 minutos
     private static final long MAX_LIFETIME = 1800000L; // 30 minutos
+    private static final int BUSY_TIMEOUT_MS = 5000;
     
     public ConnectionPoolManager(GiftBond plugin) {
         this.plugin = plugin;
@@ -51,8 +71,11 @@ public class ConnectionPoolManager {
             HikariConfig config = new HikariConfig();
             
             // Configuración de base de datos
-            String dbPath = plugin.getDataFolder().toPath().resolve(DATABASE_NAME).toString();
-            config.setJdbcUrl("jdbc:sqlite:" + dbPath);
+            Class.forName("org.sqlite.JDBC");
+            if (!plugin.getDataFolder().exists()) {
+                plugin.getDataFolder().mkdirs();
+            }
+            config.setJdbcUrl(getJdbcUrl());
             config.setDriverClassName("org.sqlite.JDBC");
             
             // Configuración de pool
@@ -66,16 +89,15 @@ public class ConnectionPoolManager {
             config.setLeakDetectionThreshold(60000L); // 1 minuto
             config.setValidationTimeout(5000L); // 5 segundos
             
-            // Propiedades de SQLite
-            config.addDataSourceProperty("cachePrepStmts", "true");
-            config.addDataSourceProperty("prepStmtCacheSize", "250");
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-            config.addDataSourceProperty("journalMode", "WAL");
-            config.addDataSourceProperty("synchronous", "NORMAL");
+            // Propiedades de SQLite (nombres de pragma del driver sqlite-jdbc)
+            config.setDataSourceProperties(createSqliteProperties());
             
             // Nombre del pool
             config.setPoolName("GiftBond-Pool");
             
+            // La conexión de escritura se abre primero para que active el modo WAL
+            openWriterConnection();
+            
             // Crear datasource
             dataSource = new HikariDataSource(config);
             
@@ -99,13 +121,19 @@ public class ConnectionPoolManager {
     }
     
     /**
-     * Obtener conexión del pool
+     * Obtener conexión de lectura del pool
+     * Si el hilo actual tiene la conexión de escritura (p. ej. dentro de una transacción),
+     * se devuelve esa misma conexión para que la lectura vea los cambios sin confirmar
      */
     public Connection getConnection() throws SQLException {
         if (!initialized.get()) {
             throw new SQLException("Connection pool no inicializado");
         }
         
+        if (writerLock.isHeldByCurrentThread()) {
+            return lease(writerConnection, null);
+        }
+        
         try {
             Connection conn = dataSource.getConnection();
             if (conn == null) {
@@ -118,6 +146,56 @@ public class ConnectionPoolManager {
         }
     }
     
+    /**
+     * Obtener la conexión de escritura dedicada
+     * Bloquea hasta que el escritor esté libre; close() libera el lock sin cerrar la conexión
+     */
+    public Connection getWriterConnection() throws SQLException {
+        if (!initialized.get()) {
+            throw new SQLException("Connection pool no inicializado");
+        }
+        
+        writerLock.lock();
+        try {
+            if (writerConnection == null || writerConnection.isClosed()) {
+                logger.warning("⚠ Conexión de escritura cerrada - reabriendo");
+                openWriterConnection();
+            }
+            return lease(writerConnection, writerLock);
+        } catch (SQLException e) {
+            writerLock.unlock();
+            throw e;
+        }
+    }
+    
+    /**
+     * Obtener una sentencia preparada cacheada sobre la conexión de escritura
+     * Requiere tener el escritor (getWriterConnection); la sentencia no debe cerrarse
+     * y se devuelve sin parámetros ni lotes pendientes
+     */
+    public PreparedStatement prepareWriterStatement(String sql) throws SQLException {
+        if (!writerLock.isHeldByCurrentThread()) {
+            throw new SQLException("La conexión de escritura no pertenece a este hilo");
+        }
+        
+        PreparedStatement statement = writerStatements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = writerConnection.prepareStatement(sql);
+            writerStatements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        return statement;
+    }
+    
+    /**
+     * Verificar si el hilo actual tiene la conexión de escritura
+     */
+    public boolean isWriterHeldByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+    
     /**
      * Cerrar el connection pool
      */
@@ -132,6 +210,83 @@ public class ConnectionPoolManager {
                 logger.log(Level.WARNING, "Error cerrando connection pool", e);
             }
         }
+        
+        writerLock.lock();
+        try {
+            closeWriterStatements();
+            if (writerConnection != null) {
+                writerConnection.close();
+                writerConnection = null;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error cerrando conexión de escritura", e);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+    
+    private String getJdbcUrl() {
+        return "jdbc:sqlite:" + plugin.getDataFolder().toPath().resolve(DATABASE_NAME).toAbsolutePath();
+    }
+    
+    private Properties createSqliteProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("journal_mode", "WAL");
+        properties.setProperty("synchronous", "NORMAL");
+        properties.setProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT_MS));
+        return properties;
+    }
+    
+    private void openWriterConnection() throws SQLException {
+        closeWriterStatements();
+        writerConnection = DriverManager.getConnection(getJdbcUrl(), createSqliteProperties());
+    }
+    
+    private void closeWriterStatements() {
+        for (PreparedStatement statement : writerStatements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Error cerrando sentencia cacheada", e);
+            }
+        }
+        writerStatements.clear();
+    }
+    
+    /**
+     * Envuelve una conexión compartida para que close() solo la libere
+     * @param lock Lock a liberar al cerrar, o null si no hay que liberar nada
+     */
+    private static Connection lease(Connection target, ReentrantLock lock) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (released.compareAndSet(false, true) && lock != null) {
+                            lock.unlock();
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        if (released.get()) {
+                            return true;
+                        }
+                    }
+                    default -> {
+                        if (released.get()) {
+                            throw new SQLException("Conexión ya liberada");
+                        }
+                    }
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
     }
     
     /**
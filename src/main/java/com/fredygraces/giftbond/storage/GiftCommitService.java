@@ -0,0 +1,208 @@
+package com.fredygraces.giftbond.storage;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.cache.AdvancedCacheManager;
+import com.fredygraces.giftbond.cache.PairLeaderboard;
+import com.fredygraces.giftbond.cache.PlayerSessionCache;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+import com.fredygraces.giftbond.models.MailboxGift;
+
+/**
+ * Confirma todas las escrituras de un regalo en una única transacción:
+ * regalo del mailbox (si lo hay), puntos de amistad, puntos personales,
+ * historial y contador diario. Un fallo deshace el regalo completo y el
+ * commit se sincroniza a disco una sola vez por regalo. También aplica en bloque
+ * los puntos de los regalos reclamados (MailboxDAO.claimGifts)
+ *
+ * Escribe directamente sobre la conexión de escritura con sentencias cacheadas,
+ * sin pasar por la escritura diferida (las lecturas suman igualmente lo pendiente)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class GiftCommitService {
+    private static final Logger logger = Logger.getLogger(GiftCommitService.class.getName());
+
+    private final GiftBond plugin;
+
+    public GiftCommitService(GiftBond plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Confirmar un regalo
+     * Debe llamarse desde el hilo de almacenamiento; no accede a la API de Bukkit
+     * @param mailboxGift Regalo a guardar en el mailbox, o null en entrega directa
+     * @param extraReceiverPoints Puntos personales adicionales para el receptor (0 si no hay)
+     * @return Puntos finales otorgados (con boost), o -1 si no se aplicó nada
+     */
+    public int commitGift(String senderUUID, String receiverUUID, String giftName, int points, double multiplier,
+                          MailboxGift mailboxGift, int extraReceiverPoints) {
+        PointsBatch batch = newPointsBatch();
+        int finalPoints = batch.addGift(senderUUID, receiverUUID, points, multiplier);
+        if (extraReceiverPoints != 0) {
+            batch.addPersonalPoints(receiverUUID, extraReceiverPoints);
+        }
+
+        ConnectionPoolManager pool = plugin.getConnectionPoolManager();
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+        String operationName = mailboxGift != null ? "gift_commit_mailbox" : "gift_commit";
+
+        try {
+            plugin.getTransactionManager().executeInTransaction(conn -> {
+                if (mailboxGift != null && !plugin.getMailboxDAO().insertGift(conn, mailboxGift)) {
+                    throw new SQLException("No se pudo insertar el regalo en el mailbox");
+                }
+
+                long now = System.currentTimeMillis();
+                writePoints(batch, now);
+
+                PreparedStatement history = pool.prepareWriterStatement(WriteBehindQueue.INSERT_HISTORY_SQL);
+                uuids.bind(history, 1, senderUUID);
+                uuids.bind(history, 2, receiverUUID);
+                history.setString(3, giftName);
+                history.setInt(4, finalPoints);
+                history.setLong(5, now);
+                history.executeUpdate();
+
+                PreparedStatement daily = pool.prepareWriterStatement(WriteBehindQueue.UPSERT_DAILY_SQL);
+                uuids.bind(daily, 1, senderUUID);
+                daily.setString(2, LocalDate.now().toString());
+                daily.setInt(3, 1);
+                daily.executeUpdate();
+                return null;
+            }, operationName);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "❌ Error confirmando regalo (transacción revertida): " + e.getMessage(), e);
+            return -1;
+        }
+
+        publishPoints(batch);
+        plugin.getCacheManager().onHistoryChanged(senderUUID, receiverUUID);
+        plugin.getPlayerSessionCache().incrementDailyGiftCount(senderUUID);
+        if (mailboxGift != null) {
+            plugin.getMailboxDAO().afterGiftSaved(mailboxGift);
+        }
+        return finalPoints;
+    }
+
+    /**
+     * Nuevo acumulador de puntos con la configuración actual
+     */
+    PointsBatch newPointsBatch() {
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        return new PointsBatch(config.getBoolean("settings.dual_personal_points", false),
+            config.getBoolean("settings.boost_dual_personal_points", true));
+    }
+
+    /**
+     * Escribir los puntos acumulados dentro de la transacción actual (una sentencia por lote)
+     * Requiere tener la conexión de escritura
+     */
+    void writePoints(PointsBatch batch, long now) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ConnectionPoolManager pool = plugin.getConnectionPoolManager();
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+
+        PreparedStatement friendship = pool.prepareWriterStatement(DatabaseManager.UPSERT_FRIENDSHIP_SQL);
+        PreparedStatement pairTotal = pool.prepareWriterStatement(DatabaseManager.UPSERT_PAIR_TOTAL_SQL);
+        for (Map.Entry<String, Integer> entry : batch.pairPoints.entrySet()) {
+            String[] pair = entry.getKey().split("\\|", 2);
+            uuids.bind(friendship, 1, pair[0]);
+            uuids.bind(friendship, 2, pair[1]);
+            friendship.setInt(3, entry.getValue());
+            friendship.setLong(4, now);
+            friendship.addBatch();
+
+            DatabaseManager.bindPairTotal(pairTotal, uuids, pair[0], pair[1], entry.getValue());
+            pairTotal.addBatch();
+        }
+        friendship.executeBatch();
+        pairTotal.executeBatch();
+
+        PreparedStatement personal = pool.prepareWriterStatement(WriteBehindQueue.UPSERT_PERSONAL_SQL);
+        for (Map.Entry<String, Integer> entry : batch.personalPoints.entrySet()) {
+            uuids.bind(personal, 1, entry.getKey());
+            personal.setInt(2, entry.getValue());
+            personal.addBatch();
+        }
+        personal.executeBatch();
+    }
+
+    /**
+     * Reflejar en el ranking y en las sesiones en memoria unos puntos ya confirmados,
+     * e invalidar las lecturas cacheadas de las parejas afectadas
+     * Solo debe llamarse después del commit, para no mostrar puntos revertidos
+     */
+    void publishPoints(PointsBatch batch) {
+        PairLeaderboard leaderboard = plugin.getDatabaseManager().getPairLeaderboard();
+        PlayerSessionCache sessions = plugin.getPlayerSessionCache();
+        AdvancedCacheManager caches = plugin.getCacheManager();
+        for (Map.Entry<String, Integer> entry : batch.pairPoints.entrySet()) {
+            String[] pair = entry.getKey().split("\\|", 2);
+            leaderboard.addPoints(pair[0], pair[1], entry.getValue());
+            sessions.addFriendshipPoints(pair[0], pair[1], entry.getValue());
+            caches.onFriendshipChanged(pair[0], pair[1]);
+        }
+        for (Map.Entry<String, Integer> entry : batch.personalPoints.entrySet()) {
+            sessions.addPersonalPoints(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Puntos de uno o varios regalos, agrupados por pareja ordenada y por jugador
+     * Aplica las mismas reglas que FriendshipManager.recordFriendshipPoints
+     */
+    static class PointsBatch {
+        private final Map<String, Integer> pairPoints = new LinkedHashMap<>();
+        private final Map<String, Integer> personalPoints = new LinkedHashMap<>();
+        private final boolean dualPoints;
+        private final boolean boostDual;
+
+        PointsBatch(boolean dualPoints, boolean boostDual) {
+            this.dualPoints = dualPoints;
+            this.boostDual = boostDual;
+        }
+
+        /**
+         * @return Puntos finales del regalo (con boost)
+         */
+        int addGift(String senderUUID, String receiverUUID, int points, double multiplier) {
+            int finalPoints = (int) (points * multiplier);
+            String pairKey = senderUUID.compareTo(receiverUUID) <= 0
+                ? senderUUID + "|" + receiverUUID
+                : receiverUUID + "|" + senderUUID;
+            pairPoints.merge(pairKey, finalPoints, Integer::sum);
+            personalPoints.merge(senderUUID, finalPoints, Integer::sum);
+            if (dualPoints) {
+                personalPoints.merge(receiverUUID, boostDual ? finalPoints : points, Integer::sum);
+            }
+            return finalPoints;
+        }
+
+        void addPersonalPoints(String playerUUID, int points) {
+            personalPoints.merge(playerUUID, points, Integer::sum);
+        }
+
+        void clear() {
+            pairPoints.clear();
+            personalPoints.clear();
+        }
+
+        boolean isEmpty() {
+            return pairPoints.isEmpty() && personalPoints.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.compression.DataCompression;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftRecord;
+import com.fredygraces.giftbond.managers.DatabaseManager.HistoryCursor;
+
+/**
+ * Archivado del historial de regalos
+ * Mueve las filas de gift_history más antiguas que el periodo de retención a segmentos
+ * comprimidos por jugador y mes (gift_history_archive), en lotes pequeños, cada uno en
+ * su propia transacción. Cada regalo se guarda en el segmento del emisor y en el del
+ * receptor, así el historial archivado de un jugador se lee sin descomprimir el de otros
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class HistoryArchiver {
+    private static final Logger logger = Logger.getLogger(HistoryArchiver.class.getName());
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    // Las filas se insertan en orden de tiempo: recorrer por id encuentra primero las más antiguas
+    private static final String SELECT_BATCH_SQL = """
+        SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp
+        FROM gift_history
+        WHERE timestamp < ?
+        ORDER BY id
+        LIMIT ?
+        """;
+
+    private static final String INSERT_SEGMENT_SQL = """
+        INSERT INTO gift_history_archive (player_uuid, month, first_timestamp, last_timestamp, entry_count, payload)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String SELECT_SEGMENTS_SQL = """
+        SELECT last_timestamp, payload
+        FROM gift_history_archive
+        WHERE player_uuid = ? AND first_timestamp <= ?
+        ORDER BY last_timestamp DESC, id DESC
+        """;
+
+    private final GiftBond plugin;
+    private final boolean enabled;
+    private final boolean browseArchive;
+    private final long retentionMs;
+    private final int batchSize;
+    private final long intervalMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean stopping = false;
+    private long archivedInRun = 0;
+    private BukkitTask archiveTask;
+
+    public HistoryArchiver(GiftBond plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfigManager().getDatabaseConfig();
+        this.enabled = config.getBoolean("history_archive.enabled", true);
+        this.browseArchive = config.getBoolean("history_archive.browse_archive", true);
+        this.retentionMs = TimeUnit.DAYS.toMillis(Math.max(1, config.getInt("history_archive.retention_days", 180)));
+        this.batchSize = Math.max(10, config.getInt("history_archive.batch_size", 500));
+        this.intervalMinutes = Math.max(1L, config.getLong("history_archive.interval_minutes", 60L));
+    }
+
+    /**
+     * Iniciar la tarea periódica de archivado
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long intervalTicks = intervalMinutes * 60L * 20L;
+        archiveTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+            this::scheduleRun, 20L * 60L, intervalTicks);
+    }
+
+    /**
+     * Detener el archivado; el lote en curso termina su transacción
+     */
+    public void shutdown() {
+        stopping = true;
+        if (archiveTask != null) {
+            archiveTask.cancel();
+            archiveTask = null;
+        }
+    }
+
+    /**
+     * Indica si el menú de historial puede leer segmentos archivados
+     */
+    public boolean isBrowsingEnabled() {
+        return browseArchive;
+    }
+
+    // ===== Archivado =====
+
+    /**
+     * Programar una pasada en el hilo de almacenamiento (como máximo una a la vez)
+     */
+    private void scheduleRun() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        archivedInRun = 0;
+        submitBatch();
+    }
+
+    private void submitBatch() {
+        try {
+            plugin.getStorageExecutor().run(this::runBatch);
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Archivar un lote; si quedan más filas se vuelve a encolar para no acaparar el hilo
+     */
+    private void runBatch() {
+        if (stopping) {
+            running.set(false);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int archived;
+        try {
+            archived = archiveBatch(start - retentionMs);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "⚠ Error archivando historial de regalos - se reintentará", e);
+            running.set(false);
+            return;
+        }
+
+        archivedInRun += archived;
+        if (archived >= batchSize && !stopping) {
+            submitBatch();
+            return;
+        }
+
+        if (archivedInRun > 0) {
+            logger.info("✅ Historial archivado: " + archivedInRun + " regalos movidos a gift_history_archive");
+        }
+        running.set(false);
+    }
+
+    /**
+     * Mover un lote de filas anteriores al corte a segmentos comprimidos
+     * @return Filas archivadas
+     */
+    private int archiveBatch(long cutoffTimestamp) throws SQLException {
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+
+        return plugin.getTransactionManager().executeInTransaction(conn -> {
+            List<GiftRecord> rows = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(SELECT_BATCH_SQL)) {
+                pstmt.setLong(1, cutoffTimestamp);
+                pstmt.setInt(2, batchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new GiftRecord(
+                            rs.getLong("id"),
+                            uuids.readString(rs, "sender_uuid"),
+                            uuids.readString(rs, "receiver_uuid"),
+                            rs.getString("gift_name"),
+                            rs.getInt("points_earned"),
+                            rs.getLong("timestamp")
+                        ));
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            // Un segmento por jugador y mes dentro del lote
+            Map<String, Segment> segments = new LinkedHashMap<>();
+            for (GiftRecord row : rows) {
+                String month = MONTH_FORMAT.format(Instant.ofEpochMilli(row.getTimestamp()).atZone(ZoneId.systemDefault()));
+                segments.computeIfAbsent(row.getSenderUUID() + "|" + month, key -> new Segment(row.getSenderUUID(), month))
+                    .add(row);
+                if (!row.getReceiverUUID().equals(row.getSenderUUID())) {
+                    segments.computeIfAbsent(row.getReceiverUUID() + "|" + month, key -> new Segment(row.getReceiverUUID(), month))
+                        .add(row);
+                }
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(INSERT_SEGMENT_SQL)) {
+                for (Segment segment : segments.values()) {
+                    uuids.bind(insert, 1, segment.playerUUID);
+                    insert.setString(2, segment.month);
+                    insert.setLong(3, segment.firstTimestamp);
+                    insert.setLong(4, segment.lastTimestamp);
+                    insert.setInt(5, segment.rows.size());
+                    insert.setBytes(6, encode(segment.rows));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM gift_history WHERE id = ?")) {
+                for (GiftRecord row : rows) {
+                    delete.setLong(1, row.getId());
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+
+            return rows.size();
+        }, "archive_history");
+    }
+
+    // ===== Lectura =====
+
+    /**
+     * Leer historial archivado anterior a un cursor, descomprimiendo solo los segmentos necesarios
+     * @param cursor Posición de la última entrada mostrada, o null para empezar por lo más reciente
+     */
+    public List<GiftRecord> getArchivedHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        long cursorTimestamp = cursor != null ? cursor.getTimestamp() : Long.MAX_VALUE;
+        long cursorId = cursor != null ? cursor.getId() : Long.MAX_VALUE;
+        Comparator<GiftRecord> newestFirst = Comparator.comparingLong(GiftRecord::getTimestamp)
+            .thenComparingLong(GiftRecord::getId)
+            .reversed();
+
+        List<GiftRecord> candidates = new ArrayList<>();
+        try (Connection conn = plugin.getDatabaseManager().getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_SEGMENTS_SQL)) {
+            plugin.getDatabaseManager().getUuidCodec().bind(pstmt, 1, playerUUID);
+            pstmt.setLong(2, cursorTimestamp);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // Segmentos en orden descendente: si ya hay suficientes más recientes, parar
+                    if (candidates.size() >= limit && rs.getLong("last_timestamp") < candidates.get(limit - 1).getTimestamp()) {
+                        break;
+                    }
+                    for (GiftRecord row : decode(rs.getBytes("payload"))) {
+                        if (row.getTimestamp() < cursorTimestamp
+                                || (row.getTimestamp() == cursorTimestamp && row.getId() < cursorId)) {
+                            candidates.add(row);
+                        }
+                    }
+                    candidates.sort(newestFirst);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            logger.log(Level.WARNING, "Error leyendo historial archivado", e);
+        }
+
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+
+    // ===== Formato de segmento =====
+
+    private static byte[] encode(List<GiftRecord> rows) throws SQLException {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bos)) {
+                out.writeInt(rows.size());
+                for (GiftRecord row : rows) {
+                    out.writeLong(row.getId());
+                    out.writeUTF(row.getSenderUUID());
+                    out.writeUTF(row.getReceiverUUID());
+                    out.writeUTF(row.getGiftName());
+                    out.writeInt(row.getPointsEarned());
+                    out.writeLong(row.getTimestamp());
+                }
+            }
+            return DataCompression.compressBytes(bos.toByteArray());
+        } catch (IOException e) {
+            throw new SQLException("No se pudo comprimir el segmento de historial", e);
+        }
+    }
+
+    private static List<GiftRecord> decode(byte[] payload) throws IOException {
+        byte[] data = DataCompression.decompressBytes(payload);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            List<GiftRecord> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new GiftRecord(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readLong()));
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Regalos de un jugador en un mes, pendientes de escribir como segmento
+     */
+    private static class Segment {
+        private final String playerUUID;
+        private final String month;
+        private final List<GiftRecord> rows = new ArrayList<>();
+        private long firstTimestamp = Long.MAX_VALUE;
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        Segment(String playerUUID, String month) {
+            this.playerUUID = playerUUID;
+            this.month = month;
+        }
+
+        void add(GiftRecord row) {
+            rows.add(row);
+            firstTimestamp = Math.min(firstTimestamp, row.getTimestamp());
+            lastTimestamp = Math.max(lastTimestamp, row.getTimestamp());
+        }
+    }
+}
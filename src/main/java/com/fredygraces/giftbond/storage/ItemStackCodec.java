@@ -0,0 +1,315 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+
+import com.fredygraces.giftbond.compression.DataCompression;
+
+/**
+ * Codec binario compacto y versionado para las listas de items del mailbox
+ *
+ * Formato: [versión][flags][cuerpo], con el cuerpo comprimido con GZIP si es grande:
+ * - número de items (varint) y, por cada item, SIMPLE (material + cantidad) para
+ *   los items sin meta, o FULL con el árbol de ItemStack.serialize() etiquetado por tipo
+ * - los ConfigurationSerializable anidados (ItemMeta...) se guardan como mapas con
+ *   la clave "==", igual que en YAML
+ * decodeLegacy() lee el formato anterior (serialización Java + Base64 en TEXT)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public final class ItemStackCodec {
+    private static final Logger logger = Logger.getLogger(ItemStackCodec.class.getName());
+
+    public static final byte VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+    // Por debajo de este tamaño GZIP no compensa (cabecera de ~20 bytes)
+    private static final int COMPRESS_THRESHOLD = 512;
+
+    private static final byte ITEM_SIMPLE = 0;
+    private static final byte ITEM_FULL = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_SHORT = 6;
+    private static final byte TYPE_BYTE = 7;
+    private static final byte TYPE_BOOLEAN = 8;
+    private static final byte TYPE_LIST = 9;
+    private static final byte TYPE_MAP = 10;
+
+    private ItemStackCodec() {
+    }
+
+    /**
+     * Codificar una lista de items
+     * @return Bytes del codec, o null si la lista está vacía
+     */
+    public static byte[] encode(List<ItemStack> items) throws IOException {
+        List<ItemStack> present = new ArrayList<>(items.size());
+        for (ItemStack item : items) {
+            if (item != null && item.getType() != Material.AIR) {
+                present.add(item);
+            }
+        }
+        if (present.isEmpty()) {
+            return null;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(16 + present.size() * 16);
+        DataOutputStream out = new DataOutputStream(body);
+        writeVarInt(out, present.size());
+        for (ItemStack item : present) {
+            if (!item.hasItemMeta()) {
+                out.writeByte(ITEM_SIMPLE);
+                writeString(out, item.getType().name());
+                writeVarInt(out, item.getAmount());
+            } else {
+                out.writeByte(ITEM_FULL);
+                writeValue(out, item.serialize());
+            }
+        }
+        out.flush();
+
+        byte[] payload = body.toByteArray();
+        int flags = 0;
+        if (payload.length >= COMPRESS_THRESHOLD) {
+            byte[] compressed = DataCompression.compressBytes(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_GZIP;
+            }
+        }
+
+        byte[] result = new byte[payload.length + 2];
+        result[0] = VERSION;
+        result[1] = (byte) flags;
+        System.arraycopy(payload, 0, result, 2, payload.length);
+        return result;
+    }
+
+    /**
+     * Decodificar bytes producidos por encode()
+     * Los items que no se pueden recrear (p. ej. material eliminado) se omiten
+     */
+    public static List<ItemStack> decode(byte[] data) throws IOException {
+        List<ItemStack> items = new ArrayList<>();
+        if (data == null || data.length == 0) {
+            return items;
+        }
+        if (data.length < 2 || data[0] != VERSION) {
+            throw new IOException("Versión de codec de items desconocida: " + (data.length > 0 ? data[0] : -1));
+        }
+
+        byte[] payload = new byte[data.length - 2];
+        System.arraycopy(data, 2, payload, 0, payload.length);
+        if ((data[1] & FLAG_GZIP) != 0) {
+            payload = DataCompression.decompressBytes(payload);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            try {
+                if (kind == ITEM_SIMPLE) {
+                    String materialName = readString(in);
+                    int amount = readVarInt(in);
+                    Material material = Material.matchMaterial(materialName);
+                    if (material == null) {
+                        logger.warning("⚠ Material desconocido en el mailbox: " + materialName);
+                        continue;
+                    }
+                    items.add(new ItemStack(material, amount));
+                } else if (kind == ITEM_FULL) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> itemData = (Map<String, Object>) readValue(in);
+                    items.add(ItemStack.deserialize(itemData));
+                } else {
+                    throw new IOException("Tipo de item desconocido: " + kind);
+                }
+            } catch (IllegalArgumentException | ClassCastException e) {
+                logger.warning("⚠ Error recreando item: " + e.getMessage());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Decodificar el formato anterior: List<Map> con serialización Java, en Base64
+     */
+    @SuppressWarnings("unchecked")
+    public static List<ItemStack> decodeLegacy(String serialized) throws IOException {
+        List<ItemStack> items = new ArrayList<>();
+        if (serialized == null || serialized.isEmpty()) {
+            return items;
+        }
+
+        byte[] data = Base64.getDecoder().decode(serialized);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            List<Map<String, Object>> itemDataList = (List<Map<String, Object>>) ois.readObject();
+            for (Map<String, Object> itemData : itemDataList) {
+                try {
+                    items.add(ItemStack.deserialize(itemData));
+                } catch (Exception e) {
+                    logger.warning("⚠ Error recreando item: " + e.getMessage());
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Formato antiguo de items ilegible", e);
+        }
+        return items;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, string);
+        } else if (value instanceof Integer number) {
+            out.writeByte(TYPE_INT);
+            writeVarInt(out, (number << 1) ^ (number >> 31));
+        } else if (value instanceof Long number) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Float number) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat(number);
+        } else if (value instanceof Short number) {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort(number);
+        } else if (value instanceof Byte number) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TYPE_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TYPE_MAP);
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof ConfigurationSerializable serializable) {
+            // Mismo convenio que YAML: el alias de la clase bajo "=="
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY,
+                ConfigurationSerialization.getAlias(serializable.getClass()));
+            data.putAll(serializable.serialize());
+            writeValue(out, data);
+        } else {
+            throw new IOException("Tipo no soportado en item: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INT: {
+                int zigzag = readVarInt(in);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_SHORT:
+                return in.readShort();
+            case TYPE_BYTE:
+                return in.readByte();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_LIST: {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TYPE_MAP: {
+                int size = readVarInt(in);
+                Map<String, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in));
+                }
+                if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                    return ConfigurationSerialization.deserializeObject(map);
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Etiqueta de tipo desconocida: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("VarInt demasiado largo");
+    }
+}
@@ -1,19 +1,19 @@
 package com.fredygraces.giftbond.storage;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.bukkit.inventory.ItemStack;
@@ -30,123 +30,128 @@ public class MailboxDAO {
     private final GiftBond plugin;
     private final DebugLogger debugLogger;
     private final DatabaseManager databaseManager;
+    private final UuidCodec uuids;
+    
+    // Máximo de IDs por sentencia IN (...), por debajo del límite de parámetros de SQLite
+    private static final int CLAIM_CHUNK_SIZE = 500;
+
+    // Consultas de lectura; MailboxQueryPlanTest comprueba que todas usan un índice
+    static final String PENDING_SUMMARY_SQL = """
+        SELECT sender_name, COUNT(*) as gift_count, MAX(timestamp) as last_gift
+        FROM pending_gifts
+        WHERE receiver_uuid = ? AND claimed = 0
+        GROUP BY sender_name
+        ORDER BY last_gift DESC
+        """;
+
+    static final String MAILBOX_SUMMARY_SQL =
+        "SELECT pending_count, total_money, estimated_slots FROM mailbox_counters WHERE receiver_uuid = ?";
+
+    static final String PENDING_FROM_SENDER_SQL = """
+        SELECT * FROM pending_gifts
+        WHERE receiver_uuid = ? AND sender_name = ? AND claimed = 0
+        ORDER BY timestamp ASC
+        """;
+
+    static final String ALL_PENDING_SQL = """
+        SELECT * FROM pending_gifts
+        WHERE receiver_uuid = ? AND claimed = 0
+        ORDER BY timestamp ASC
+        """;
+
+    static final String EXPIRED_BATCH_SQL = """
+        SELECT id, receiver_uuid, money, estimated_slots FROM pending_gifts
+        WHERE claimed = 0 AND timestamp < ?
+        ORDER BY timestamp
+        LIMIT ?
+        """;
+
+    static final String PENDING_ROW_SQL =
+        "SELECT receiver_uuid, money, estimated_slots FROM pending_gifts WHERE id = ? AND claimed = 0";
 
     public MailboxDAO(GiftBond plugin) {
         this.plugin = plugin;
         this.debugLogger = new DebugLogger(plugin);
         this.databaseManager = plugin.getDatabaseManager();
+        this.uuids = databaseManager.getUuidCodec();
     }
 
     /**
-     * Inicializar tablas de mailbox en la base de datos SQLite
+     * Guardar un nuevo regalo en el mailbox
      */
-    public void initializeTables() {
+    public boolean saveGift(MailboxGift gift) {
+        // Usar transacción atómica con retry
         try {
-            Connection conn = databaseManager.getConnection();
-
-            // Crear tabla de regalos pendientes
-            String createGiftsTable = """
-                CREATE TABLE IF NOT EXISTS pending_gifts (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    receiver_uuid TEXT NOT NULL,
-                    receiver_name TEXT NOT NULL,
-                    sender_uuid TEXT NOT NULL,
-                    sender_name TEXT NOT NULL,
-                    gift_id TEXT NOT NULL,
-                    gift_name TEXT NOT NULL,
-                    items_serialized TEXT,
-                    shared_items_serialized TEXT,
-                    money REAL DEFAULT 0,
-                    base_points INTEGER NOT NULL DEFAULT 0,    -- Puntos base del regalo
-                    points_awarded INTEGER NOT NULL DEFAULT 0, -- Puntos con boost del momento de envío
-                    timestamp INTEGER NOT NULL,
-                    claimed INTEGER DEFAULT 0,
-                    claim_timestamp INTEGER
-                )
-                """;
-
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createGiftsTable);
-                debugLogger.debug("✅ Tabla pending_gifts creada/verificada en SQLite");
+            boolean saved = plugin.getTransactionManager().executeInTransaction(
+                conn -> insertGift(conn, gift), "save_gift_" + gift.getGiftId());
+            if (saved) {
+                afterGiftSaved(gift);
             }
-
-            // Crear tabla de estadísticas
-            String createStatsTable = """
-                CREATE TABLE IF NOT EXISTS mailbox_stats (
-                    player_uuid TEXT PRIMARY KEY,
-                    total_received INTEGER DEFAULT 0,
-                    total_claimed INTEGER DEFAULT 0,
-                    total_expired INTEGER DEFAULT 0,
-                    last_activity INTEGER
-                )
-                """;
-
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createStatsTable);
-                debugLogger.debug("✅ Tabla mailbox_stats creada/verificada en SQLite");
-            }
-
+            return saved;
+            
         } catch (SQLException e) {
-            plugin.getLogger().severe(() -> "❌ Error inicializando tablas de mailbox: " + e.getMessage());
+            plugin.getLogger().severe(() -> "❌ Error guardando regalo en mailbox (transacción fallida): " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Guardar un nuevo regalo en el mailbox
+     * Reflejar un regalo ya confirmado en las estadísticas y en la sesión del receptor
      */
-    public boolean saveGift(MailboxGift gift) {
-        // Usar transacción atómica con retry
-        try {
-            return plugin.getTransactionManager().executeInTransaction(conn -> {
-                String sql = """
-                    INSERT INTO pending_gifts
-                    (receiver_uuid, receiver_name, sender_uuid, sender_name, gift_id, gift_name,
-                     items_serialized, shared_items_serialized, money, base_points, points_awarded, timestamp, claimed)
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                    pstmt.setString(1, gift.getReceiverUUID().toString());
-                    pstmt.setString(2, gift.getReceiverName());
-                    pstmt.setString(3, gift.getSenderUUID().toString());
-                    pstmt.setString(4, gift.getSenderName());
-                    pstmt.setString(5, gift.getGiftId());
-                    pstmt.setString(6, gift.getGiftName());
-                    pstmt.setString(7, serializeItems(gift.getOriginalItems()));
-                    pstmt.setString(8, serializeItems(gift.getSharedItems()));
-                    pstmt.setDouble(9, gift.getMoney());
-                    pstmt.setInt(10, gift.getBasePoints());
-                    pstmt.setInt(11, gift.getPointsAwarded());
-                    pstmt.setLong(12, gift.getTimestamp());
-                    pstmt.setInt(13, gift.isClaimed() ? 1 : 0);
-                    
-                    int affectedRows = pstmt.executeUpdate();
-                    
-                    if (affectedRows > 0) {
-                        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                            if (generatedKeys.next()) {
-                                gift.setId(generatedKeys.getInt(1));
-                                
-                                // Actualizar estadísticas con sincronización
-                                plugin.getSynchronizationManager().executeSynchronized(
-                                    "stats_" + gift.getReceiverUUID().toString(), 
-                                    () -> {
-                                        updateStats(gift.getReceiverUUID(), "received");
-                                        return null;
-                                    }
-                                );
-                                
-                                debugLogger.debug("✅ Regalo guardado en mailbox (ID: " + gift.getId() + ")");
-                                return true;
-                            }
+    void afterGiftSaved(MailboxGift gift) {
+        plugin.getMailboxStatsBuffer().recordReceived(gift.getReceiverUUID());
+        if (!gift.isClaimed()) {
+            plugin.getPlayerSessionCache().adjustMailbox(gift.getReceiverUUID(), 1, gift.getMoney(),
+                estimateSlots(gift.getSharedItems()));
+        }
+    }
+
+    /**
+     * Insertar el regalo usando la conexión de una transacción ya abierta
+     * Lo usa también GiftCommitService para guardar el regalo junto con sus puntos
+     * Estadísticas y sesión se actualizan con afterGiftSaved() tras el commit
+     */
+    boolean insertGift(Connection conn, MailboxGift gift) throws SQLException {
+        String sql = """
+            INSERT INTO pending_gifts
+            (receiver_uuid, receiver_name, sender_uuid, sender_name, gift_id, gift_name,
+             items_serialized, shared_items_serialized, money, base_points, points_awarded, timestamp, claimed,
+             estimated_slots)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        int slots = estimateSlots(gift.getSharedItems());
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            uuids.bind(pstmt, 1, gift.getReceiverUUID());
+            pstmt.setString(2, gift.getReceiverName());
+            uuids.bind(pstmt, 3, gift.getSenderUUID());
+            pstmt.setString(4, gift.getSenderName());
+            pstmt.setString(5, gift.getGiftId());
+            pstmt.setString(6, gift.getGiftName());
+            pstmt.setBytes(7, encodeItems(gift.getOriginalItems()));
+            pstmt.setBytes(8, encodeItems(gift.getSharedItems()));
+            pstmt.setDouble(9, gift.getMoney());
+            pstmt.setInt(10, gift.getBasePoints());
+            pstmt.setInt(11, gift.getPointsAwarded());
+            pstmt.setLong(12, gift.getTimestamp());
+            pstmt.setInt(13, gift.isClaimed() ? 1 : 0);
+            pstmt.setInt(14, slots);
+            
+            int affectedRows = pstmt.executeUpdate();
+            
+            if (affectedRows > 0) {
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        gift.setId(generatedKeys.getInt(1));
+                        if (!gift.isClaimed()) {
+                            adjustCounters(conn, gift.getReceiverUUID(), 1, gift.getMoney(), slots);
                         }
+                        
+                        debugLogger.debug("✅ Regalo guardado en mailbox (ID: " + gift.getId() + ")");
+                        return true;
                     }
-                    return false;
                 }
-            }, "save_gift_" + gift.getGiftId());
-            
-        } catch (SQLException e) {
-            plugin.getLogger().severe(() -> "❌ Error guardando regalo en mailbox (transacción fallida): " + e.getMessage());
+            }
             return false;
         }
     }
@@ -155,34 +160,21 @@ public class MailboxDAO {
      * Obtener resumen de regalos pendientes por remitente
      */
     public List<GiftSummary> getPendingGiftSummaries(UUID receiverUUID) {
-        String sql = """
-            SELECT sender_name, COUNT(*) as gift_count, MAX(timestamp) as last_gift
-            FROM pending_gifts
-            WHERE receiver_uuid = ? AND claimed = 0
-            GROUP BY sender_name
-            ORDER BY last_gift DESC
-            """;
-
         List<GiftSummary> summaries = new ArrayList<>();
 
-        try {
-            Connection conn = databaseManager.getConnection();
-            if (conn == null) return summaries;
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, receiverUUID.toString());
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        summaries.add(new GiftSummary(
-                            rs.getString("sender_name"),
-                            rs.getInt("gift_count"),
-                            rs.getLong("last_gift")
-                        ));
-                    }
+        try (Connection conn = databaseManager.getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PENDING_SUMMARY_SQL)) {
+            uuids.bind(pstmt, 1, receiverUUID);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new GiftSummary(
+                        rs.getString("sender_name"),
+                        rs.getInt("gift_count"),
+                        rs.getLong("last_gift")
+                    ));
                 }
             }
-
         } catch (SQLException e) {
             plugin.getLogger().severe(() -> "❌ Error obteniendo resumen de mailbox: " + e.getMessage());
         }
@@ -190,30 +182,43 @@ public class MailboxDAO {
         return summaries;
     }
 
+    /**
+     * Totales del mailbox desde mailbox_counters: una fila por jugador, sin leer los items
+     */
+    public MailboxSummary getMailboxSummary(UUID receiverUUID) {
+        MailboxSummary cached = plugin.getPlayerSessionCache().getMailboxSummary(receiverUUID);
+        if (cached != null) {
+            return cached;
+        }
+        try (Connection conn = databaseManager.getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(MAILBOX_SUMMARY_SQL)) {
+            uuids.bind(pstmt, 1, receiverUUID);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new MailboxSummary(rs.getInt("pending_count"), rs.getDouble("total_money"),
+                        rs.getInt("estimated_slots"));
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe(() -> "❌ Error obteniendo totales de mailbox: " + e.getMessage());
+        }
+
+        return new MailboxSummary(0, 0, 0);
+    }
+
     /**
      * Obtener regalos pendientes de un remitente específico
      */
     public List<MailboxGift> getPendingGiftsFromSender(UUID receiverUUID, String senderName) {
-        String sql = """
-            SELECT * FROM pending_gifts
-            WHERE receiver_uuid = ? AND sender_name = ? AND claimed = 0
-            ORDER BY timestamp ASC
-            """;
-
-        return getGiftsByQuery(sql, receiverUUID.toString(), senderName);
+        return getGiftsByQuery(PENDING_FROM_SENDER_SQL, uuids.toParameter(receiverUUID), senderName);
     }
 
     /**
      * Obtener todos los regalos pendientes de un jugador
      */
     public List<MailboxGift> getAllPendingGifts(UUID receiverUUID) {
-        String sql = """
-            SELECT * FROM pending_gifts
-            WHERE receiver_uuid = ? AND claimed = 0
-            ORDER BY timestamp ASC
-            """;
-
-        return getGiftsByQuery(sql, receiverUUID.toString());
+        return getGiftsByQuery(ALL_PENDING_SQL, uuids.toParameter(receiverUUID));
     }
 
     /**
@@ -222,7 +227,12 @@ public class MailboxDAO {
     public boolean markAsClaimed(int giftId) {
         // Usar transacción atómica
         try {
-            return plugin.getTransactionManager().executeInTransaction(conn -> {
+            PendingRow claimed = plugin.getTransactionManager().executeInTransaction(conn -> {
+                PendingRow row = findPendingRow(conn, giftId);
+                if (row == null) {
+                    return null;
+                }
+                
                 String sql = "UPDATE pending_gifts SET claimed = 1, claim_timestamp = ? WHERE id = ?";
                 
                 try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -231,66 +241,274 @@ public class MailboxDAO {
                     
                     int rowsAffected = pstmt.executeUpdate();
                     if (rowsAffected > 0) {
+                        adjustCounters(conn, row.receiverUUID, -1, -row.money, -row.slots);
                         debugLogger.debug("✅ Regalo marcado como reclamado (ID: " + giftId + ")");
-                        return true;
+                        return row;
                     }
-                    return false;
+                    return null;
                 }
             }, "mark_claimed_" + giftId);
             
+            if (claimed == null) {
+                return false;
+            }
+            plugin.getMailboxStatsBuffer().recordClaimed(claimed.receiverUUID, 1);
+            plugin.getPlayerSessionCache().adjustMailbox(claimed.receiverUUID, -1, -claimed.money, -claimed.slots);
+            return true;
+            
         } catch (SQLException e) {
             plugin.getLogger().severe(() -> "❌ Error marcando regalo como reclamado (transacción fallida): " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Reclamar varios regalos en una sola transacción
+     * Borra los regalos con un DELETE ... WHERE id IN (...) y aplica los puntos agrupados por pareja
+     * @param senderMultipliers Multiplicador activo de cada remitente (UUID como texto); 1.0 si falta
+     * @return IDs realmente reclamados (los que ya no estaban pendientes se omiten); vacío si falla
+     */
+    public Set<Integer> claimGifts(UUID receiverUUID, Collection<Integer> giftIds, Map<String, Double> senderMultipliers) {
+        if (giftIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        
+        GiftCommitService commitService = plugin.getGiftCommitService();
+        GiftCommitService.PointsBatch batch = commitService.newPointsBatch();
+        String receiver = receiverUUID.toString();
+        List<Integer> ids = new ArrayList<>(giftIds);
+        PendingRow[] totals = new PendingRow[1];
+        
+        try {
+            Set<Integer> claimed = plugin.getTransactionManager().executeInTransaction(conn -> {
+                // Un reintento vuelve a leer los regalos desde cero
+                batch.clear();
+                Set<Integer> found = new LinkedHashSet<>();
+                double money = 0;
+                int slots = 0;
+                for (int from = 0; from < ids.size(); from += CLAIM_CHUNK_SIZE) {
+                    List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + CLAIM_CHUNK_SIZE));
+                    
+                    try (PreparedStatement pstmt = conn.prepareStatement(claimSelectSql(chunk.size()))) {
+                        bindClaimChunk(pstmt, receiverUUID, chunk);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                String sender = uuids.readString(rs, "sender_uuid");
+                                found.add(rs.getInt("id"));
+                                money += rs.getDouble("money");
+                                slots += rs.getInt("estimated_slots");
+                                batch.addGift(sender, receiver, rs.getInt("base_points"),
+                                    senderMultipliers.getOrDefault(sender, 1.0));
+                            }
+                        }
+                    }
+                    
+                    try (PreparedStatement pstmt = conn.prepareStatement(claimDeleteSql(chunk.size()))) {
+                        bindClaimChunk(pstmt, receiverUUID, chunk);
+                        pstmt.executeUpdate();
+                    }
+                }
+                
+                adjustCounters(conn, receiverUUID, -found.size(), -money, -slots);
+                commitService.writePoints(batch, System.currentTimeMillis());
+                totals[0] = new PendingRow(receiverUUID, money, slots, found.size());
+                return found;
+            }, "claim_gifts_" + receiver);
+            
+            commitService.publishPoints(batch);
+            plugin.getMailboxStatsBuffer().recordClaimed(receiverUUID, claimed.size());
+            plugin.getPlayerSessionCache().adjustMailbox(receiverUUID, -totals[0].count, -totals[0].money, -totals[0].slots);
+            debugLogger.debug("✅ " + claimed.size() + " regalo(s) reclamados en bloque por " + receiver);
+            return claimed;
+            
+        } catch (SQLException e) {
+            plugin.getLogger().severe(() -> "❌ Error reclamando regalos (transacción fallida): " + e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+    
+    static String claimSelectSql(int idCount) {
+        return "SELECT id, sender_uuid, base_points, money, estimated_slots FROM pending_gifts "
+            + "WHERE receiver_uuid = ? AND claimed = 0 AND id IN (" + placeholders(idCount) + ")";
+    }
+    
+    static String claimDeleteSql(int idCount) {
+        return "DELETE FROM pending_gifts WHERE receiver_uuid = ? AND id IN (" + placeholders(idCount) + ")";
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private void bindClaimChunk(PreparedStatement pstmt, UUID receiverUUID, List<Integer> chunk) throws SQLException {
+        uuids.bind(pstmt, 1, receiverUUID);
+        for (int i = 0; i < chunk.size(); i++) {
+            pstmt.setInt(i + 2, chunk.get(i));
+        }
+    }
+
     /**
      * Eliminar regalo completamente (después de reclamar)
      */
     public boolean deleteGift(int giftId) {
-        String sql = "DELETE FROM pending_gifts WHERE id = ?";
-
+        PendingRow[] deleted = new PendingRow[1];
         try {
-            Connection conn = databaseManager.getConnection();
-            if (conn == null) return false;
+            boolean removed = plugin.getTransactionManager().executeInTransaction(conn -> {
+                PendingRow row = findPendingRow(conn, giftId);
+                deleted[0] = row;
+                
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM pending_gifts WHERE id = ?")) {
+                    pstmt.setInt(1, giftId);
+                    
+                    int rowsAffected = pstmt.executeUpdate();
+                    if (rowsAffected > 0) {
+                        if (row != null) {
+                            adjustCounters(conn, row.receiverUUID, -1, -row.money, -row.slots);
+                        }
+                        debugLogger.debug("✅ Regalo eliminado del mailbox (ID: " + giftId + ")");
+                        return true;
+                    }
+                    return false;
+                }
+            }, "delete_gift_" + giftId);
+            
+            if (removed && deleted[0] != null) {
+                PendingRow row = deleted[0];
+                plugin.getPlayerSessionCache().adjustMailbox(row.receiverUUID, -1, -row.money, -row.slots);
+            }
+            return removed;
             
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setInt(1, giftId);
+        } catch (SQLException e) {
+            plugin.getLogger().severe(() -> "❌ Error eliminando regalo: " + e.getMessage());
+            return false;
+        }
+    }
 
-                int rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected > 0) {
-                    debugLogger.debug("✅ Regalo eliminado del mailbox (ID: " + giftId + ")");
-                    return true;
+    /**
+     * Borrar un lote de regalos caducados en una transacción, descontándolos de
+     * mailbox_counters; tras el commit se suman a las estadísticas de caducados
+     * @return Regalos borrados
+     */
+    int expireBatch(long cutoffTimestamp, int limit) throws SQLException {
+        Map<UUID, PendingRow> perReceiver = new LinkedHashMap<>();
+        int expired = plugin.getTransactionManager().executeInTransaction(conn -> {
+            // Un reintento vuelve a leer el lote desde cero
+            perReceiver.clear();
+            List<Integer> ids = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(EXPIRED_BATCH_SQL)) {
+                pstmt.setLong(1, cutoffTimestamp);
+                pstmt.setInt(2, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt("id"));
+                        UUID receiver = uuids.readUuid(rs, "receiver_uuid");
+                        PendingRow row = new PendingRow(receiver, rs.getDouble("money"), rs.getInt("estimated_slots"), 1);
+                        perReceiver.merge(receiver, row, PendingRow::plus);
+                    }
                 }
             }
+            if (ids.isEmpty()) {
+                return 0;
+            }
 
-        } catch (SQLException e) {
-            plugin.getLogger().severe(() -> "❌ Error eliminando regalo: " + e.getMessage());
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM pending_gifts WHERE id IN (" + placeholders(ids.size()) + ")")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    pstmt.setInt(i + 1, ids.get(i));
+                }
+                pstmt.executeUpdate();
+            }
+
+            for (PendingRow row : perReceiver.values()) {
+                adjustCounters(conn, row.receiverUUID, -row.count, -row.money, -row.slots);
+            }
+            return ids.size();
+        }, "expire_gifts");
+
+        MailboxStatsBuffer stats = plugin.getMailboxStatsBuffer();
+        for (PendingRow row : perReceiver.values()) {
+            stats.recordExpired(row.receiverUUID, row.count);
+            plugin.getPlayerSessionCache().adjustMailbox(row.receiverUUID, -row.count, -row.money, -row.slots);
+        }
+        return expired;
+    }
+
+    /**
+     * Sumar (o restar, con valores negativos) a los contadores de regalos pendientes del receptor
+     * Se llama dentro de la misma transacción que modifica pending_gifts
+     */
+    private void adjustCounters(Connection conn, UUID receiverUUID, int count, double money, int slots) throws SQLException {
+        if (count == 0) {
+            return;
+        }
+        String upsert = """
+            INSERT INTO mailbox_counters (receiver_uuid, pending_count, total_money, estimated_slots)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT(receiver_uuid) DO UPDATE SET
+                pending_count = pending_count + excluded.pending_count,
+                total_money = total_money + excluded.total_money,
+                estimated_slots = estimated_slots + excluded.estimated_slots
+            """;
+        try (PreparedStatement pstmt = conn.prepareStatement(upsert)) {
+            uuids.bind(pstmt, 1, receiverUUID);
+            pstmt.setInt(2, count);
+            pstmt.setDouble(3, money);
+            pstmt.setInt(4, slots);
+            pstmt.executeUpdate();
+        }
+        if (count < 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM mailbox_counters WHERE receiver_uuid = ? AND pending_count <= 0")) {
+                uuids.bind(pstmt, 1, receiverUUID);
+                pstmt.executeUpdate();
+            }
         }
+    }
 
-        return false;
+    /**
+     * Datos de un regalo aún pendiente necesarios para descontarlo de los contadores
+     */
+    private PendingRow findPendingRow(Connection conn, int giftId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(PENDING_ROW_SQL)) {
+            pstmt.setInt(1, giftId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new PendingRow(uuids.readUuid(rs, "receiver_uuid"), rs.getDouble("money"),
+                        rs.getInt("estimated_slots"), 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Huecos de inventario que ocuparán los items al entregarse (sin fusionar stacks)
+     */
+    public static int estimateSlots(List<ItemStack> items) {
+        int slots = 0;
+        for (ItemStack item : items) {
+            if (item != null && item.getAmount() > 0) {
+                slots += (item.getAmount() + item.getMaxStackSize() - 1) / Math.max(1, item.getMaxStackSize());
+            }
+        }
+        return slots;
     }
 
     // Métodos utilitarios privados
     private List<MailboxGift> getGiftsByQuery(String sql, Object... params) {
         List<MailboxGift> gifts = new ArrayList<>();
 
-        try {
-            Connection conn = databaseManager.getConnection();
-            if (conn == null) return gifts;
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                for (int i = 0; i < params.length; i++) {
-                    pstmt.setObject(i + 1, params[i]);
-                }
+        try (Connection conn = databaseManager.getReaderConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
 
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        gifts.add(mapResultSetToGift(rs));
-                    }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    gifts.add(mapResultSetToGift(rs));
                 }
             }
-
         } catch (SQLException e) {
             plugin.getLogger().severe(() -> "❌ Error ejecutando consulta de regalos: " + e.getMessage());
         }
@@ -299,27 +517,19 @@ public class MailboxDAO {
     }
 
     private MailboxGift mapResultSetToGift(ResultSet rs) throws SQLException {
-        // Primero intentamos obtener base_points, si no existe usamos points_awarded como fallback
-        int basePoints;
-        try {
-            basePoints = rs.getInt("base_points");
-        } catch (SQLException e) {
-            // Columna no existe, usar points_awarded como base
-            basePoints = rs.getInt("points_awarded");
-        }
-
         return new MailboxGift(
             rs.getInt("id"),
-            UUID.fromString(rs.getString("receiver_uuid")),
+            uuids.readUuid(rs, "receiver_uuid"),
             rs.getString("receiver_name"),
-            UUID.fromString(rs.getString("sender_uuid")),
+            uuids.readUuid(rs, "sender_uuid"),
             rs.getString("sender_name"),
             rs.getString("gift_id"),
             rs.getString("gift_name"),
-            deserializeItems(rs.getString("items_serialized")),
-            deserializeItems(rs.getString("shared_items_serialized")),
+            rs.getObject("items_serialized"),
+            rs.getObject("shared_items_serialized"),
+            this::decodeItems,
             rs.getDouble("money"),
-            basePoints,  // base_points
+            rs.getInt("base_points"),
             rs.getInt("points_awarded"), // points_awarded
             rs.getLong("timestamp"),
             rs.getInt("claimed") == 1,
@@ -327,89 +537,66 @@ public class MailboxDAO {
         );
     }
 
-    private String serializeItems(List<ItemStack> items) {
+    private static byte[] encodeItems(List<ItemStack> items) throws SQLException {
         try {
-            // Convertir ItemStack a formato serializable
-            List<Map<String, Object>> serializableItems = new ArrayList<>();
-
-            for (ItemStack item : items) {
-                if (item != null) {
-                    // Crear una copia para asegurar que sea serializable
-                    ItemStack copy = item.clone();
-                    Map<String, Object> itemData = copy.serialize();
-                    serializableItems.add(itemData);
-                }
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-                oos.writeObject(serializableItems);
-            }
-            return Base64.getEncoder().encodeToString(baos.toByteArray());
-        } catch (IOException e) {
-            plugin.getLogger().severe(() -> "❌ Error serializando items: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            return "";
+            return ItemStackCodec.encode(items);
+        } catch (IOException | RuntimeException e) {
+            // Abortar la transacción: mejor no guardar el regalo que guardarlo sin items
+            throw new SQLException("No se pudieron codificar los items: " + e.getMessage(), e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<ItemStack> deserializeItems(String serialized) {
-        if (serialized == null || serialized.isEmpty()) {
-            return new ArrayList<>();
-        }
-
+    /**
+     * Decodificar el valor de una columna de items: BLOB del codec binario o TEXT del formato antiguo
+     * MailboxGift lo llama al acceder a los items por primera vez
+     */
+    private List<ItemStack> decodeItems(Object value) {
         try {
-            byte[] data = Base64.getDecoder().decode(serialized);
-            ByteArrayInputStream bais = new ByteArrayInputStream(data);
-            try (ObjectInputStream ois = new ObjectInputStream(bais)) {
-                List<Map<String, Object>> itemDataList = (List<Map<String, Object>>) ois.readObject();
-                List<ItemStack> items = new ArrayList<>();
-
-                for (Map<String, Object> itemData : itemDataList) {
-                    try {
-                        ItemStack item = ItemStack.deserialize(itemData);
-                        items.add(item);
-                    } catch (Exception e) {
-                        plugin.getLogger().warning(() -> "⚠ Error recreando item: " + e.getMessage());
-                    }
-                }
-
-                return items;
+            if (value instanceof byte[] data) {
+                return ItemStackCodec.decode(data);
             }
-        } catch (IOException | ClassNotFoundException e) {
+            if (value instanceof String legacy) {
+                return ItemStackCodec.decodeLegacy(legacy);
+            }
+        } catch (IOException | RuntimeException e) {
             plugin.getLogger().severe(() -> "❌ Error deserializando items: " + e.getMessage());
-            return new ArrayList<>();
         }
+        return new ArrayList<>();
     }
 
-    private void updateStats(UUID playerUUID, String action) {
-        String sql = """
-            INSERT OR REPLACE INTO mailbox_stats
-            (player_uuid, total_received, total_claimed, last_activity)
-            VALUES (?,
-                   COALESCE((SELECT total_received FROM mailbox_stats WHERE player_uuid = ?), 0) +
-                   CASE WHEN ? = 'received' THEN 1 ELSE 0 END,
-                   COALESCE((SELECT total_claimed FROM mailbox_stats WHERE player_uuid = ?), 0) +
-                   CASE WHEN ? = 'claimed' THEN 1 ELSE 0 END,
-                   ?)
-            """;
+    // Totales de regalos pendientes de un jugador
+    public static class MailboxSummary {
+        private final int pendingCount;
+        private final double totalMoney;
+        private final int estimatedSlots;
 
-        try {
-            Connection conn = databaseManager.getConnection();
-            if (conn == null) return;
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, playerUUID.toString());
-                pstmt.setString(2, playerUUID.toString());
-                pstmt.setString(3, action);
-                pstmt.setString(4, playerUUID.toString());
-                pstmt.setString(5, action);
-                pstmt.setLong(6, System.currentTimeMillis());
-                pstmt.executeUpdate();
-            }
+        public MailboxSummary(int pendingCount, double totalMoney, int estimatedSlots) {
+            this.pendingCount = pendingCount;
+            this.totalMoney = totalMoney;
+            this.estimatedSlots = estimatedSlots;
+        }
 
-        } catch (SQLException e) {
-            debugLogger.debugWarning("No se pudieron actualizar estadísticas: " + e.getMessage());
+        public int getPendingCount() { return pendingCount; }
+        public double getTotalMoney() { return totalMoney; }
+        public int getEstimatedSlots() { return estimatedSlots; }
+    }
+
+    // Regalo(s) pendiente(s) de un receptor, para descontarlos de los contadores
+    private static class PendingRow {
+        private final UUID receiverUUID;
+        private final double money;
+        private final int slots;
+        private final int count;
+
+        PendingRow(UUID receiverUUID, double money, int slots, int count) {
+            this.receiverUUID = receiverUUID;
+            this.money = money;
+            this.slots = slots;
+            this.count = count;
+        }
+
+        PendingRow plus(PendingRow other) {
+            return new PendingRow(receiverUUID, money + other.money, slots + other.slots, count + other.count);
         }
     }
 
@@ -0,0 +1,128 @@
+package com.fredygraces.giftbond.storage;
+
+import java.sql.SQLException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.fredygraces.giftbond.GiftBond;
+
+/**
+ * Limpieza incremental de regalos caducados del mailbox
+ * Cada pasada borra lotes acotados de pending_gifts, cada uno en su propia transacción
+ * (contadores y mailbox_stats.total_expired incluidos), y se detiene al agotar su
+ * presupuesto de tiempo; lo que quede se borra en la siguiente pasada
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class MailboxExpirationSweeper {
+    private static final Logger logger = Logger.getLogger(MailboxExpirationSweeper.class.getName());
+
+    private final GiftBond plugin;
+    private final boolean enabled;
+    private final long storageDurationMs;
+    private final int batchSize;
+    private final long timeBudgetNanos;
+    private final long intervalMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean stopping = false;
+    private long expiredInRun = 0;
+    private long spentInRunNanos = 0;
+    private BukkitTask sweepTask;
+
+    public MailboxExpirationSweeper(GiftBond plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfigManager().getMainConfig();
+        int durationDays = config.getInt("mailbox.storage_duration_days", 7);
+        this.enabled = config.getBoolean("mailbox.enabled", true) && durationDays > 0;
+        this.storageDurationMs = TimeUnit.DAYS.toMillis(Math.max(1, durationDays));
+        this.batchSize = Math.max(10, config.getInt("mailbox.cleanup_batch_size", 200));
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(5L, config.getLong("mailbox.cleanup_time_budget_ms", 200L)));
+        this.intervalMinutes = Math.max(1L, config.getLong("mailbox.cleanup_interval_minutes", 60L));
+    }
+
+    /**
+     * Iniciar la tarea periódica de limpieza
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long intervalTicks = intervalMinutes * 60L * 20L;
+        sweepTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+            this::scheduleRun, 20L * 60L, intervalTicks);
+    }
+
+    /**
+     * Detener la limpieza; el lote en curso termina su transacción
+     */
+    public void shutdown() {
+        stopping = true;
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+
+    /**
+     * Programar una pasada en el hilo de almacenamiento (como máximo una a la vez)
+     */
+    private void scheduleRun() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        expiredInRun = 0;
+        spentInRunNanos = 0;
+        submitBatch(System.currentTimeMillis() - storageDurationMs);
+    }
+
+    private void submitBatch(long cutoffTimestamp) {
+        try {
+            plugin.getStorageExecutor().run(() -> runBatch(cutoffTimestamp));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Borrar un lote; si quedan regalos y hay presupuesto se vuelve a encolar,
+     * dejando pasar entre lotes las demás tareas del hilo de almacenamiento
+     */
+    private void runBatch(long cutoffTimestamp) {
+        if (stopping) {
+            running.set(false);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int expired;
+        try {
+            expired = plugin.getMailboxDAO().expireBatch(cutoffTimestamp, batchSize);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "⚠ Error limpiando regalos caducados del mailbox - se reintentará", e);
+            running.set(false);
+            return;
+        }
+        spentInRunNanos += System.nanoTime() - start;
+        expiredInRun += expired;
+
+        if (expired >= batchSize && spentInRunNanos < timeBudgetNanos && !stopping) {
+            submitBatch(cutoffTimestamp);
+            return;
+        }
+
+        if (expiredInRun > 0) {
+            logger.info("✅ Mailbox: " + expiredInRun + " regalos caducados eliminados en "
+                + TimeUnit.NANOSECONDS.toMillis(spentInRunNanos) + "ms"
+                + (expired >= batchSize ? " (quedan más para la próxima pasada)" : ""));
+        }
+        running.set(false);
+    }
+}
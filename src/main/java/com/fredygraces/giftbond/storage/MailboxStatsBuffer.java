@@ -0,0 +1,253 @@
+package com.fredygraces.giftbond.storage;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.scheduler.BukkitTask;
+
+import com.fredygraces.giftbond.GiftBond;
+
+/**
+ * Contadores de mailbox_stats acumulados en memoria
+ * Los regalos recibidos, reclamados y caducados se suman en LongAdders por jugador
+ * y se guardan con un UPSERT por lotes periódicamente y al apagar. Cada suma se hace
+ * dentro de compute() sobre la clave del jugador, así una entrada no se puede retirar
+ * del mapa mientras otro hilo la está incrementando
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class MailboxStatsBuffer {
+    private static final Logger logger = Logger.getLogger(MailboxStatsBuffer.class.getName());
+
+    static final String UPSERT_STATS_SQL = """
+        INSERT INTO mailbox_stats (player_uuid, total_received, total_claimed, total_expired, last_activity)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT(player_uuid) DO UPDATE SET
+            total_received = total_received + excluded.total_received,
+            total_claimed = total_claimed + excluded.total_claimed,
+            total_expired = total_expired + excluded.total_expired,
+            last_activity = COALESCE(MAX(last_activity, excluded.last_activity), last_activity, excluded.last_activity)
+        """;
+
+    private final GiftBond plugin;
+    private final long flushIntervalMs;
+    private final Map<UUID, PlayerStats> stats = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private BukkitTask flushTask;
+
+    public MailboxStatsBuffer(GiftBond plugin) {
+        this.plugin = plugin;
+        this.flushIntervalMs = Math.max(1000L,
+            plugin.getConfigManager().getMainConfig().getLong("mailbox.stats_flush_interval_ms", 30000L));
+    }
+
+    /**
+     * Iniciar la tarea periódica de vaciado
+     */
+    public void start() {
+        long intervalTicks = Math.max(1L, flushIntervalMs / 50L);
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+            this::scheduleFlush, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Detener la tarea periódica y guardar lo acumulado
+     * Debe llamarse después de vaciar el hilo de almacenamiento y antes de cerrar el pool
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        if (!flush()) {
+            logger.severe("❌ No se pudieron guardar las estadísticas del mailbox al apagar");
+        }
+    }
+
+    // ===== Registro =====
+
+    public void recordReceived(UUID playerUUID) {
+        update(playerUUID, entry -> {
+            entry.lastActivity = System.currentTimeMillis();
+            entry.received.increment();
+        });
+    }
+
+    public void recordClaimed(UUID playerUUID, int count) {
+        if (count <= 0) {
+            return;
+        }
+        update(playerUUID, entry -> {
+            entry.lastActivity = System.currentTimeMillis();
+            entry.claimed.add(count);
+        });
+    }
+
+    public void recordExpired(UUID playerUUID, int count) {
+        if (count <= 0) {
+            return;
+        }
+        update(playerUUID, entry -> entry.expired.add(count));
+    }
+
+    /**
+     * Modificar los contadores de un jugador bajo el bloqueo de su clave (ver drain())
+     */
+    private void update(UUID playerUUID, Consumer<PlayerStats> change) {
+        stats.compute(playerUUID, (uuid, entry) -> {
+            PlayerStats target = entry != null ? entry : new PlayerStats();
+            change.accept(target);
+            return target;
+        });
+    }
+
+    /**
+     * Jugadores con contadores en memoria
+     */
+    public int getTrackedPlayers() {
+        return stats.size();
+    }
+
+    // ===== Vaciado =====
+
+    /**
+     * Programar un vaciado en el hilo de almacenamiento (como máximo uno en cola)
+     */
+    private void scheduleFlush() {
+        if (stats.isEmpty() || !flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            plugin.getStorageExecutor().run(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // El ejecutor ya se detuvo: el vaciado final lo hace shutdown()
+            flushScheduled.set(false);
+        }
+    }
+
+    /**
+     * Guardar los contadores acumulados en una transacción
+     * Si falla, los valores se devuelven a los contadores y se reintentan en el siguiente vaciado
+     * @return true si se guardó todo
+     */
+    public synchronized boolean flush() {
+        List<StatsRow> rows = drain();
+        if (rows.isEmpty()) {
+            return true;
+        }
+
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+        try {
+            plugin.getTransactionManager().executeInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_STATS_SQL)) {
+                    for (StatsRow row : rows) {
+                        uuids.bind(pstmt, 1, row.playerUUID);
+                        pstmt.setLong(2, row.received);
+                        pstmt.setLong(3, row.claimed);
+                        pstmt.setLong(4, row.expired);
+                        if (row.lastActivity > 0) {
+                            pstmt.setLong(5, row.lastActivity);
+                        } else {
+                            pstmt.setNull(5, Types.BIGINT);
+                        }
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                return null;
+            }, "flush_mailbox_stats");
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "⚠ Error guardando estadísticas del mailbox de " + rows.size()
+                + " jugadores - se reintentará", e);
+            for (StatsRow row : rows) {
+                update(row.playerUUID, entry -> {
+                    // La entrada pudo eliminarse o recrearse: se conserva la actividad más reciente
+                    entry.lastActivity = Math.max(entry.lastActivity, row.lastActivity);
+                    entry.received.add(row.received);
+                    entry.claimed.add(row.claimed);
+                    entry.expired.add(row.expired);
+                });
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tomar y poner a cero los contadores; los jugadores sin actividad desde el
+     * último vaciado se eliminan del mapa
+     */
+    private List<StatsRow> drain() {
+        List<StatsRow> rows = new ArrayList<>();
+        for (Map.Entry<UUID, PlayerStats> mapEntry : stats.entrySet()) {
+            StatsRow row = mapEntry.getValue().drain(mapEntry.getKey());
+            if (row != null) {
+                rows.add(row);
+            } else {
+                // Bajo el mismo bloqueo que update(): si llegó un incremento, la entrada se queda
+                stats.computeIfPresent(mapEntry.getKey(), (uuid, entry) -> entry.isIdle() ? null : entry);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Contadores en memoria de un jugador
+     */
+    private static class PlayerStats {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder claimed = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+        private volatile long lastActivity;
+
+        StatsRow drain(UUID playerUUID) {
+            long r = received.sumThenReset();
+            long c = claimed.sumThenReset();
+            long e = expired.sumThenReset();
+            if (r == 0 && c == 0 && e == 0) {
+                return null;
+            }
+            return new StatsRow(playerUUID, r, c, e, lastActivity);
+        }
+
+        boolean isIdle() {
+            return received.sum() == 0 && claimed.sum() == 0 && expired.sum() == 0;
+        }
+    }
+
+    /**
+     * Fila de mailbox_stats pendiente de guardar
+     */
+    private static class StatsRow {
+        private final UUID playerUUID;
+        private final long received;
+        private final long claimed;
+        private final long expired;
+        private final long lastActivity;
+
+        StatsRow(UUID playerUUID, long received, long claimed, long expired, long lastActivity) {
+            this.playerUUID = playerUUID;
+            this.received = received;
+            this.claimed = claimed;
+            this.expired = expired;
+            this.lastActivity = lastActivity;
+        }
+    }
+}
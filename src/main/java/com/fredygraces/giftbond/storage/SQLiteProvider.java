@@ -121,6 +121,11 @@ public class SQLiteProvider implements StorageProvider {
         return databaseManager.getGiftHistory(playerUUID, limit, offset);
     }
     
+    @Override
+    public List<DatabaseManager.GiftHistoryEntry> getGiftHistoryBefore(String playerUUID, DatabaseManager.HistoryCursor cursor, int limit) {
+        return databaseManager.getGiftHistoryBefore(playerUUID, cursor, limit);
+    }
+    
     @Override
     public int getGiftHistoryCount(String playerUUID) {
         return databaseManager.getGiftHistoryCount(playerUUID);
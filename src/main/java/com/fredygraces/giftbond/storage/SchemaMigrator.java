@@ -0,0 +1,773 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+
+/**
+ * Migraciones versionadas del esquema de friendships.db
+ * Cada paso se aplica una sola vez, en orden y dentro de una transacción; la versión
+ * aplicada se guarda en schema_version. Los rellenos de tablas grandes se hacen por
+ * bloques de rowid, cada bloque en su propia transacción, y se reanudan si el servidor
+ * se detiene a mitad (progreso en schema_backfill). También convierte las columnas UUID
+ * al formato configurado en database.yml
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class SchemaMigrator {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    // Columnas que guardan UUIDs; toda tabla nueva con UUIDs debe añadirse aquí
+    private static final Map<String, List<String>> UUID_COLUMNS = Map.ofEntries(
+        Map.entry("friendships", List.of("sender_uuid", "receiver_uuid")),
+        Map.entry("pair_totals", List.of("player1_uuid", "player2_uuid")),
+        Map.entry("player_points", List.of("player_uuid")),
+        Map.entry("player_boosts", List.of("player_uuid")),
+        Map.entry("gift_history", List.of("sender_uuid", "receiver_uuid")),
+        Map.entry("gift_history_archive", List.of("player_uuid")),
+        Map.entry("daily_gifts", List.of("player_uuid")),
+        Map.entry("pending_gifts", List.of("receiver_uuid", "sender_uuid")),
+        Map.entry("mailbox_stats", List.of("player_uuid")),
+        Map.entry("mailbox_counters", List.of("receiver_uuid")),
+        Map.entry("player_names", List.of("uuid"))
+    );
+
+    private final GiftBond plugin;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator(GiftBond plugin) {
+        this.plugin = plugin;
+        registerMigrations();
+    }
+
+    /**
+     * Registrar los pasos del esquema en orden de versión
+     * Nunca modificar un paso ya publicado: añadir uno nuevo con la siguiente versión
+     */
+    private void registerMigrations() {
+        migrations.add(new Migration(1, "Tablas base", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS friendships (
+                        sender_uuid VARCHAR(36) NOT NULL,
+                        receiver_uuid VARCHAR(36) NOT NULL,
+                        points INTEGER DEFAULT 0,
+                        last_interaction BIGINT DEFAULT 0,
+                        PRIMARY KEY (sender_uuid, receiver_uuid)
+                    )
+                    """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_receiver_points ON friendships(receiver_uuid, points)");
+
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS player_points (
+                        player_uuid VARCHAR(36) PRIMARY KEY,
+                        points INTEGER DEFAULT 0
+                    )
+                    """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS player_boosts (
+                        player_uuid VARCHAR(36) PRIMARY KEY,
+                        multiplier DOUBLE DEFAULT 1.0,
+                        expiry BIGINT DEFAULT 0
+                    )
+                    """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS gift_history (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        sender_uuid VARCHAR(36) NOT NULL,
+                        receiver_uuid VARCHAR(36) NOT NULL,
+                        gift_name VARCHAR(100) NOT NULL,
+                        points_earned INTEGER NOT NULL,
+                        timestamp BIGINT NOT NULL
+                    )
+                    """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS daily_gifts (
+                        player_uuid VARCHAR(36) NOT NULL,
+                        date VARCHAR(10) NOT NULL,
+                        gift_count INTEGER DEFAULT 0,
+                        PRIMARY KEY (player_uuid, date)
+                    )
+                    """);
+
+                // Mailbox: base_points se añade en la versión 2 para bases de datos antiguas
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS pending_gifts (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        receiver_uuid TEXT NOT NULL,
+                        receiver_name TEXT NOT NULL,
+                        sender_uuid TEXT NOT NULL,
+                        sender_name TEXT NOT NULL,
+                        gift_id TEXT NOT NULL,
+                        gift_name TEXT NOT NULL,
+                        items_serialized TEXT,
+                        shared_items_serialized TEXT,
+                        money REAL DEFAULT 0,
+                        points_awarded INTEGER NOT NULL DEFAULT 0,
+                        timestamp INTEGER NOT NULL,
+                        claimed INTEGER DEFAULT 0,
+                        claim_timestamp INTEGER
+                    )
+                    """);
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS mailbox_stats (
+                        player_uuid TEXT PRIMARY KEY,
+                        total_received INTEGER DEFAULT 0,
+                        total_claimed INTEGER DEFAULT 0,
+                        total_expired INTEGER DEFAULT 0,
+                        last_activity INTEGER
+                    )
+                    """);
+            }
+        }));
+
+        migrations.add(new Migration(2, "Columna base_points en pending_gifts", conn -> {
+            if (columnExists(conn, "pending_gifts", "base_points")) {
+                return;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE pending_gifts ADD COLUMN base_points INTEGER NOT NULL DEFAULT 0");
+                // Sin dato original: los puntos otorgados son la mejor aproximación
+                stmt.executeUpdate("UPDATE pending_gifts SET base_points = points_awarded");
+            }
+        }));
+
+        migrations.add(new Migration(3, "Ranking de parejas pair_totals", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS pair_totals (
+                        player1_uuid VARCHAR(36) NOT NULL,
+                        player2_uuid VARCHAR(36) NOT NULL,
+                        total_points INTEGER NOT NULL DEFAULT 0,
+                        PRIMARY KEY (player1_uuid, player2_uuid)
+                    )
+                    """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_pair_totals_points ON pair_totals(total_points DESC)");
+
+                // Fusionar filas invertidas (receptor, emisor) en su pareja canónica
+                stmt.executeUpdate("""
+                    INSERT INTO friendships (sender_uuid, receiver_uuid, points, last_interaction)
+                    SELECT receiver_uuid, sender_uuid, points, last_interaction
+                    FROM friendships
+                    WHERE sender_uuid > receiver_uuid
+                    ON CONFLICT(sender_uuid, receiver_uuid)
+                    DO UPDATE SET points = points + excluded.points,
+                                  last_interaction = MAX(last_interaction, excluded.last_interaction)
+                    """);
+                stmt.executeUpdate("DELETE FROM friendships WHERE sender_uuid > receiver_uuid");
+                stmt.executeUpdate("DELETE FROM pair_totals");
+            }
+        }, new Backfill("friendships", (conn, fromRowId, toRowId) -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("""
+                    INSERT INTO pair_totals (player1_uuid, player2_uuid, total_points)
+                    SELECT sender_uuid, receiver_uuid, points FROM friendships
+                    WHERE rowid > ? AND rowid <= ?
+                    ON CONFLICT(player1_uuid, player2_uuid)
+                    DO UPDATE SET total_points = total_points + excluded.total_points
+                    """)) {
+                pstmt.setLong(1, fromRowId);
+                pstmt.setLong(2, toRowId);
+                return pstmt.executeUpdate();
+            }
+        })));
+
+        migrations.add(new Migration(4, "Cache de nombres player_names", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS player_names (
+                        uuid VARCHAR(36) PRIMARY KEY,
+                        name VARCHAR(16) NOT NULL,
+                        last_seen BIGINT DEFAULT 0
+                    )
+                    """);
+            }
+        }));
+
+        migrations.add(new Migration(5, "Índices del historial por jugador y fecha", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_sender_time ON gift_history(sender_uuid, timestamp)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_receiver_time ON gift_history(receiver_uuid, timestamp)");
+            }
+        }));
+
+        migrations.add(new Migration(6, "Archivo comprimido del historial", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS gift_history_archive (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        player_uuid VARCHAR(36) NOT NULL,
+                        month VARCHAR(7) NOT NULL,
+                        first_timestamp BIGINT NOT NULL,
+                        last_timestamp BIGINT NOT NULL,
+                        entry_count INTEGER NOT NULL,
+                        payload BLOB NOT NULL
+                    )
+                    """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_archive_player ON gift_history_archive(player_uuid, last_timestamp)");
+            }
+        }));
+
+        migrations.add(new Migration(7, "Items del mailbox en BLOB binario", conn -> {
+            // SQLite no cambia el tipo de una columna: se reconstruye la tabla conservando ids.
+            // Las filas se copian (y recodifican) por bloques; la tabla nueva sustituye a la
+            // antigua en la transacción final
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS pending_gifts_v7");
+                stmt.execute("""
+                    CREATE TABLE pending_gifts_v7 (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        receiver_uuid TEXT NOT NULL,
+                        receiver_name TEXT NOT NULL,
+                        sender_uuid TEXT NOT NULL,
+                        sender_name TEXT NOT NULL,
+                        gift_id TEXT NOT NULL,
+                        gift_name TEXT NOT NULL,
+                        items_serialized BLOB,
+                        shared_items_serialized BLOB,
+                        money REAL DEFAULT 0,
+                        base_points INTEGER NOT NULL DEFAULT 0,
+                        points_awarded INTEGER NOT NULL DEFAULT 0,
+                        timestamp INTEGER NOT NULL,
+                        claimed INTEGER DEFAULT 0,
+                        claim_timestamp INTEGER
+                    )
+                    """);
+            }
+        }, new Backfill("pending_gifts", SchemaMigrator::copyPendingGifts), conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE pending_gifts");
+                stmt.execute("ALTER TABLE pending_gifts_v7 RENAME TO pending_gifts");
+            }
+        }));
+
+        migrations.add(new Migration(8, "Contadores de mailbox por jugador", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                if (!columnExists(conn, "pending_gifts", "estimated_slots")) {
+                    stmt.execute("ALTER TABLE pending_gifts ADD COLUMN estimated_slots INTEGER NOT NULL DEFAULT 0");
+                }
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS mailbox_counters (
+                        receiver_uuid TEXT PRIMARY KEY,
+                        pending_count INTEGER NOT NULL DEFAULT 0,
+                        total_money REAL NOT NULL DEFAULT 0,
+                        estimated_slots INTEGER NOT NULL DEFAULT 0
+                    )
+                    """);
+                stmt.executeUpdate("DELETE FROM mailbox_counters");
+            }
+        }, new Backfill("pending_gifts", SchemaMigrator::fillMailboxCounters)));
+
+        migrations.add(new Migration(9, "Índice parcial de regalos pendientes", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                // Solo indexa los regalos sin reclamar: las consultas deben incluir "claimed = 0"
+                stmt.execute("""
+                    CREATE INDEX IF NOT EXISTS idx_pending_receiver_sender
+                    ON pending_gifts(receiver_uuid, sender_name, timestamp)
+                    WHERE claimed = 0
+                    """);
+            }
+        }));
+
+        migrations.add(new Migration(10, "Índice de caducidad del mailbox", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_pending_expiry ON pending_gifts(timestamp) WHERE claimed = 0");
+            }
+        }));
+    }
+
+    /**
+     * Aplicar todas las migraciones pendientes
+     * @return Versión del esquema tras migrar
+     */
+    public int migrate() throws SQLException {
+        TransactionManager transactionManager = plugin.getTransactionManager();
+        transactionManager.executeInTransaction(conn -> {
+            createVersionTables(conn);
+            return null;
+        }, "schema_version_init");
+
+        int currentVersion = getCurrentVersion();
+        for (Migration migration : migrations) {
+            if (migration.version <= currentVersion) {
+                continue;
+            }
+            apply(migration);
+            currentVersion = migration.version;
+        }
+
+        convertUuidFormat(UuidCodec.configuredFormat(plugin));
+        return currentVersion;
+    }
+
+    /**
+     * Última versión registrada en el código
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    private void apply(Migration migration) throws SQLException {
+        TransactionManager transactionManager = plugin.getTransactionManager();
+        String transactionName = "schema_v" + migration.version;
+        long start = System.currentTimeMillis();
+
+        Long resumeFrom = migration.backfill != null ? getBackfillProgress(migration.version) : null;
+        if (resumeFrom == null) {
+            transactionManager.executeInTransaction(conn -> {
+                migration.step.apply(conn);
+                if (migration.backfill != null) {
+                    saveBackfillProgress(conn, migration.version, 0L);
+                } else {
+                    recordVersion(conn, migration, System.currentTimeMillis() - start);
+                }
+                return null;
+            }, transactionName);
+        } else {
+            logger.info("⚠ Reanudando relleno de esquema v" + migration.version + " desde rowid " + resumeFrom);
+        }
+
+        if (migration.backfill != null) {
+            long rows = runBackfill(migration, resumeFrom != null ? resumeFrom : 0L);
+            transactionManager.executeInTransaction(conn -> {
+                if (migration.finish != null) {
+                    migration.finish.apply(conn);
+                }
+                recordVersion(conn, migration, System.currentTimeMillis() - start);
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM schema_backfill WHERE version = ?")) {
+                    pstmt.setInt(1, migration.version);
+                    pstmt.executeUpdate();
+                }
+                return null;
+            }, transactionName);
+            logger.info("✅ Relleno de esquema v" + migration.version + ": " + rows + " filas procesadas");
+        }
+
+        logger.info("✅ Esquema v" + migration.version + " aplicado (" + migration.description + ") en "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Recorrer la tabla origen por bloques de rowid; cada bloque y su progreso se guardan juntos
+     */
+    private long runBackfill(Migration migration, long fromRowId) throws SQLException {
+        Backfill backfill = migration.backfill;
+        return runInChunks(backfill.sourceTable, fromRowId, "schema_v" + migration.version + "_backfill",
+            (conn, from, to) -> {
+                int rows = backfill.chunk.apply(conn, from, to);
+                saveBackfillProgress(conn, migration.version, to);
+                return rows;
+            });
+    }
+
+    /**
+     * Recorrer una tabla por bloques de rowid, cada bloque en su propia transacción
+     * @return Filas afectadas en total
+     */
+    private long runInChunks(String table, long fromRowId, String transactionName, BackfillChunk chunk) throws SQLException {
+        String boundSql = "SELECT MAX(rowid) FROM (SELECT rowid FROM " + table
+            + " WHERE rowid > ? ORDER BY rowid LIMIT ?)";
+
+        long lastRowId = fromRowId;
+        long[] totalRows = {0L};
+        while (true) {
+            long from = lastRowId;
+            Long to = plugin.getTransactionManager().executeInTransaction(conn -> {
+                long upper;
+                try (PreparedStatement pstmt = conn.prepareStatement(boundSql)) {
+                    pstmt.setLong(1, from);
+                    pstmt.setInt(2, DEFAULT_CHUNK_SIZE);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        upper = rs.next() ? rs.getLong(1) : 0L;
+                        if (rs.wasNull() || upper <= from) {
+                            return null;
+                        }
+                    }
+                }
+                totalRows[0] += chunk.apply(conn, from, upper);
+                return upper;
+            }, transactionName);
+
+            if (to == null) {
+                return totalRows[0];
+            }
+            lastRowId = to;
+        }
+    }
+
+    /**
+     * Convertir las columnas UUID al formato configurado (texto ↔ BLOB de 16 bytes)
+     * Antes de reescribir las tablas se copia la base de datos a la carpeta de backups; si
+     * no se puede copiar, no se convierte. Cada bloque solo toca filas aún no convertidas,
+     * así que una conversión interrumpida se reanuda al siguiente arranque
+     */
+    private void convertUuidFormat(UuidCodec.Format target) throws SQLException {
+        UuidCodec.Format current = UuidCodec.Format.fromConfig(getSetting("uuid_format", "text"));
+        if (current == target) {
+            return;
+        }
+
+        if (hasRowsToConvert(target)) {
+            DatabaseManager databaseManager = plugin.getDatabaseManager();
+            if (databaseManager == null || !databaseManager.createBackup("pre_uuid_" + target.configValue())) {
+                throw new SQLException("No se pudo crear el backup previo a la conversión de UUIDs");
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        logger.info("⚠ Convirtiendo UUIDs al formato " + target.configValue() + "...");
+
+        long convertedRows = 0;
+        for (Map.Entry<String, List<String>> entry : UUID_COLUMNS.entrySet()) {
+            convertedRows += convertTable(entry.getKey(), entry.getValue(), target);
+        }
+
+        plugin.getTransactionManager().executeInTransaction(conn -> {
+            saveSetting(conn, "uuid_format", target.configValue());
+            return null;
+        }, "uuid_format");
+
+        // Las páginas liberadas solo se devuelven al sistema reconstruyendo el archivo
+        if (convertedRows > 0) {
+            try (Connection conn = plugin.getConnectionPoolManager().getWriterConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("VACUUM");
+            }
+        }
+
+        logger.info("✅ UUIDs convertidos al formato " + target.configValue() + ": " + convertedRows
+            + " filas en " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Alguna fila con UUIDs en el formato anterior (una base de datos nueva no necesita backup)
+     */
+    private boolean hasRowsToConvert(UuidCodec.Format target) throws SQLException {
+        try (Connection conn = plugin.getConnectionPoolManager().getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, List<String>> entry : UUID_COLUMNS.entrySet()) {
+                String sql = "SELECT 1 FROM " + entry.getKey() + " WHERE "
+                    + pendingCondition(entry.getValue(), target) + " LIMIT 1";
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Condición SQL de las filas con alguna columna aún sin convertir
+     */
+    private static String pendingCondition(List<String> columns, UuidCodec.Format target) {
+        String pendingType = target == UuidCodec.Format.BINARY ? "text" : "blob";
+        List<String> pending = new ArrayList<>();
+        for (String column : columns) {
+            pending.add("typeof(" + column + ") = '" + pendingType + "'");
+        }
+        return "(" + String.join(" OR ", pending) + ")";
+    }
+
+    private long convertTable(String table, List<String> columns, UuidCodec.Format target) throws SQLException {
+        List<String> assignments = new ArrayList<>();
+        for (String column : columns) {
+            String expression = target == UuidCodec.Format.BINARY
+                ? UuidCodec.toBinarySql(column)
+                : UuidCodec.toTextSql(column);
+            assignments.add(column + " = " + expression);
+        }
+
+        String sql = "UPDATE " + table + " SET " + String.join(", ", assignments)
+            + " WHERE rowid > ? AND rowid <= ? AND " + pendingCondition(columns, target);
+
+        return runInChunks(table, 0L, "uuid_format_" + table, (conn, from, to) -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, from);
+                pstmt.setLong(2, to);
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Copiar un bloque de pending_gifts a la tabla reconstruida (mismos ids) y recodificar sus items
+     */
+    private static int copyPendingGifts(Connection conn, long fromRowId, long toRowId) throws SQLException {
+        int copied;
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO pending_gifts_v7
+                (id, receiver_uuid, receiver_name, sender_uuid, sender_name, gift_id, gift_name,
+                 items_serialized, shared_items_serialized, money, base_points, points_awarded,
+                 timestamp, claimed, claim_timestamp)
+                SELECT id, receiver_uuid, receiver_name, sender_uuid, sender_name, gift_id, gift_name,
+                       items_serialized, shared_items_serialized, money, base_points, points_awarded,
+                       timestamp, claimed, claim_timestamp
+                FROM pending_gifts
+                WHERE rowid > ? AND rowid <= ?
+                """)) {
+            pstmt.setLong(1, fromRowId);
+            pstmt.setLong(2, toRowId);
+            copied = pstmt.executeUpdate();
+        }
+        convertLegacyItems(conn, "pending_gifts_v7", fromRowId, toRowId);
+        return copied;
+    }
+
+    /**
+     * Recodificar las filas con items en el formato antiguo (Base64 en TEXT) al codec binario
+     * Una fila ilegible se deja como está: MailboxDAO sigue leyendo el formato antiguo
+     */
+    private static int convertLegacyItems(Connection conn, String table, long fromRowId, long toRowId) throws SQLException {
+        String select = "SELECT rowid, items_serialized, shared_items_serialized FROM " + table
+            + " WHERE rowid > ? AND rowid <= ?"
+            + " AND (typeof(items_serialized) = 'text' OR typeof(shared_items_serialized) = 'text')";
+        int converted = 0;
+        try (PreparedStatement query = conn.prepareStatement(select);
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE " + table + " SET items_serialized = ?, shared_items_serialized = ? WHERE rowid = ?")) {
+            query.setLong(1, fromRowId);
+            query.setLong(2, toRowId);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    long rowId = rs.getLong(1);
+                    try {
+                        update.setObject(1, recodeItems(rs.getObject(2)));
+                        update.setObject(2, recodeItems(rs.getObject(3)));
+                    } catch (IOException | RuntimeException e) {
+                        logger.warning("⚠ No se pudieron convertir los items del regalo " + rowId + ": " + e.getMessage());
+                        continue;
+                    }
+                    update.setLong(3, rowId);
+                    update.addBatch();
+                    converted++;
+                }
+            }
+            update.executeBatch();
+        }
+        return converted;
+    }
+
+    /**
+     * Calcular los huecos de cada regalo y sumar los pendientes del bloque a mailbox_counters
+     */
+    private static int fillMailboxCounters(Connection conn, long fromRowId, long toRowId) throws SQLException {
+        int updated = 0;
+        try (PreparedStatement query = conn.prepareStatement(
+                 "SELECT rowid, shared_items_serialized FROM pending_gifts WHERE rowid > ? AND rowid <= ?");
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE pending_gifts SET estimated_slots = ? WHERE rowid = ?")) {
+            query.setLong(1, fromRowId);
+            query.setLong(2, toRowId);
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    Object items = rs.getObject(2);
+                    int slots;
+                    try {
+                        slots = MailboxDAO.estimateSlots(items instanceof byte[] data
+                            ? ItemStackCodec.decode(data)
+                            : ItemStackCodec.decodeLegacy((String) items));
+                    } catch (IOException | RuntimeException e) {
+                        slots = 0;
+                    }
+                    update.setInt(1, slots);
+                    update.setLong(2, rs.getLong(1));
+                    update.addBatch();
+                    updated++;
+                }
+            }
+            update.executeBatch();
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO mailbox_counters (receiver_uuid, pending_count, total_money, estimated_slots)
+                SELECT receiver_uuid, COUNT(*), SUM(money), SUM(estimated_slots) FROM pending_gifts
+                WHERE rowid > ? AND rowid <= ? AND claimed = 0
+                GROUP BY receiver_uuid
+                ON CONFLICT(receiver_uuid) DO UPDATE SET
+                    pending_count = pending_count + excluded.pending_count,
+                    total_money = total_money + excluded.total_money,
+                    estimated_slots = estimated_slots + excluded.estimated_slots
+                """)) {
+            pstmt.setLong(1, fromRowId);
+            pstmt.setLong(2, toRowId);
+            pstmt.executeUpdate();
+        }
+        return updated;
+    }
+
+    private static Object recodeItems(Object value) throws IOException {
+        if (value instanceof String legacy) {
+            return ItemStackCodec.encode(ItemStackCodec.decodeLegacy(legacy));
+        }
+        return value;
+    }
+
+    private static void createVersionTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at BIGINT NOT NULL,
+                    duration_ms BIGINT NOT NULL
+                )
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_settings (
+                    key TEXT PRIMARY KEY,
+                    value TEXT NOT NULL
+                )
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_backfill (
+                    version INTEGER PRIMARY KEY,
+                    last_rowid BIGINT NOT NULL
+                )
+                """);
+        }
+    }
+
+    private int getCurrentVersion() throws SQLException {
+        try (Connection conn = plugin.getConnectionPoolManager().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private String getSetting(String key, String defaultValue) throws SQLException {
+        try (Connection conn = plugin.getConnectionPoolManager().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT value FROM schema_settings WHERE key = ?")) {
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : defaultValue;
+            }
+        }
+    }
+
+    private static void saveSetting(Connection conn, String key, String value) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO schema_settings (key, value) VALUES (?, ?)
+                ON CONFLICT(key) DO UPDATE SET value = excluded.value
+                """)) {
+            pstmt.setString(1, key);
+            pstmt.setString(2, value);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private Long getBackfillProgress(int version) throws SQLException {
+        try (Connection conn = plugin.getConnectionPoolManager().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT last_rowid FROM schema_backfill WHERE version = ?")) {
+            pstmt.setInt(1, version);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static void saveBackfillProgress(Connection conn, int version, long lastRowId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO schema_backfill (version, last_rowid) VALUES (?, ?)
+                ON CONFLICT(version) DO UPDATE SET last_rowid = excluded.last_rowid
+                """)) {
+            pstmt.setInt(1, version);
+            pstmt.setLong(2, lastRowId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static void recordVersion(Connection conn, Migration migration, long durationMs) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description, applied_at, duration_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, migration.version);
+            pstmt.setString(2, migration.description);
+            pstmt.setLong(3, System.currentTimeMillis());
+            pstmt.setLong(4, durationMs);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cambio de esquema ejecutado dentro de la transacción de su versión
+     */
+    @FunctionalInterface
+    public interface SchemaStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Bloque de relleno sobre el rango de rowid (fromRowId, toRowId]
+     */
+    @FunctionalInterface
+    public interface BackfillChunk {
+        int apply(Connection conn, long fromRowId, long toRowId) throws SQLException;
+    }
+
+    /**
+     * Paso versionado del esquema, opcionalmente seguido de un relleno por bloques
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final SchemaStep step;
+        private final Backfill backfill;
+        // Se aplica tras el relleno, en la misma transacción que registra la versión
+        private final SchemaStep finish;
+
+        Migration(int version, String description, SchemaStep step) {
+            this(version, description, step, null, null);
+        }
+
+        Migration(int version, String description, SchemaStep step, Backfill backfill) {
+            this(version, description, step, backfill, null);
+        }
+
+        Migration(int version, String description, SchemaStep step, Backfill backfill, SchemaStep finish) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+            this.backfill = backfill;
+            this.finish = finish;
+        }
+    }
+
+    /**
+     * Relleno por bloques de una tabla origen
+     */
+    private static class Backfill {
+        private final String sourceTable;
+        private final BackfillChunk chunk;
+
+        Backfill(String sourceTable, BackfillChunk chunk) {
+            this.sourceTable = sourceTable;
+            this.chunk = chunk;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.fredygraces.giftbond.storage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+
+import com.fredygraces.giftbond.GiftBond;
+
+/**
+ * Ejecutor dedicado para operaciones de almacenamiento
+ * Mantiene el trabajo de SQLite fuera del hilo principal del servidor y
+ * permite devolver los resultados al hilo principal de Bukkit
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class StorageExecutor {
+    private static final Logger logger = Logger.getLogger(StorageExecutor.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+
+    private final GiftBond plugin;
+    private final ExecutorService executor;
+    private volatile Thread storageThread;
+
+    public StorageExecutor(GiftBond plugin) {
+        this.plugin = plugin;
+        // Un único hilo: las escrituras se aplican en el mismo orden en que se encolan
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GiftBond-Storage");
+            thread.setDaemon(true);
+            storageThread = thread;
+            return thread;
+        });
+    }
+
+    /**
+     * Ejecutar una tarea con resultado en el hilo de almacenamiento
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Ejecutar una tarea sin resultado en el hilo de almacenamiento
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    /**
+     * Programar una tarea en el hilo principal del servidor
+     * Si ya estamos en el hilo principal se ejecuta inmediatamente
+     */
+    public void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+            return;
+        }
+
+        // Durante el apagado el scheduler ya no acepta tareas del plugin
+        if (!plugin.isEnabled()) {
+            logger.fine("Plugin deshabilitado - se descarta tarea del hilo principal");
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    /**
+     * Verificar si el hilo actual es el hilo de almacenamiento
+     */
+    public boolean isStorageThread() {
+        return Thread.currentThread() == storageThread;
+    }
+
+    /**
+     * Detener el ejecutor esperando a que terminen las escrituras pendientes
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("⚠ Tareas de almacenamiento pendientes tras " + SHUTDOWN_TIMEOUT_SECONDS + "s - forzando cierre");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            logger.log(Level.WARNING, "Interrumpido esperando tareas de almacenamiento", e);
+        }
+    }
+}
@@ -7,13 +7,12 @@ import com.fredygraces.giftbond.managers.DatabaseManager;
 
 /**
  * Gestor de almacenamiento que coordina entre diferentes tipos de bases de datos
- * Actualmente solo soporta SQLite local
+ * El almacenamiento local es SQLite
  */
 public class StorageManager {
     private final GiftBond plugin;
     private final DatabaseManager databaseManager;
     
-    // Solo soportamos SQLite local ahora
     private StorageProvider localProvider;
     private final boolean localEnabled = true;
     
@@ -23,21 +22,17 @@ public class StorageManager {
     }
     
     public boolean initialize() {
-        // Solo inicializamos SQLite local
+        // Todo el plugin lee y escribe a través de DatabaseManager (SQLite)
+        String provider = plugin.getConfigManager().getDatabaseConfig().getString("local.provider", "sqlite");
+        if (!"sqlite".equalsIgnoreCase(provider)) {
+            plugin.getLogger().warning("⚠ local.provider '" + provider + "' no soportado, se usa SQLite");
+        }
         localProvider = new SQLiteProvider(plugin, databaseManager);
         if (!localProvider.initialize()) {
-            plugin.getLogger().severe("Error al inicializar SQLite storage!");
+            plugin.getLogger().severe("Error al inicializar " + localProvider.getType() + " storage!");
             return false;
         }
         
-        /*
-        plugin.getLogger().info("=== Storage Configuration ===");
-        plugin.getLogger().info("Local (SQLite): ENABLED");
-        plugin.getLogger().info("Remote: DISABLED (H2 eliminado)");
-        plugin.getLogger().info("✓ Local storage (SQLite) inicializado");
-        plugin.getLogger().info("============================");
-        */
-        
         return true;
     }
     
@@ -52,10 +47,10 @@ public class StorageManager {
     }
     
     public String getType() {
-        return "sqlite";
+        return localProvider != null ? localProvider.getType() : "sqlite";
     }
     
-    // Métodos delegados a SQLite
+    // Métodos delegados al proveedor local
     public void saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
         if (localProvider != null) {
             localProvider.saveFriendshipPoints(senderUUID, receiverUUID, points);
@@ -62,6 +62,8 @@ public interface StorageProvider {
     
     List<DatabaseManager.GiftHistoryEntry> getGiftHistory(String playerUUID, int limit, int offset);
     
+    List<DatabaseManager.GiftHistoryEntry> getGiftHistoryBefore(String playerUUID, DatabaseManager.HistoryCursor cursor, int limit);
+    
     int getGiftHistoryCount(String playerUUID);
     
     // ===== DAILY LIMIT =====
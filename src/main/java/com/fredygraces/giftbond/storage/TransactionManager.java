@@ -45,48 +45,40 @@ public class TransactionManager {
      * Ejecutar operación en transacción con nombre específico
      */
     public <T> T executeInTransaction(TransactionOperation<T> operation, String transactionName) throws SQLException {
-        Connection conn = null;
+        ConnectionPoolManager pool = plugin.getConnectionPoolManager();
+        
+        // Transacción anidada en el mismo hilo: se une a la transacción exterior
+        if (pool.isWriterHeldByCurrentThread()) {
+            try (Connection conn = pool.getWriterConnection()) {
+                if (!conn.getAutoCommit()) {
+                    logger.fine("[" + transactionName + "] Uniéndose a la transacción en curso");
+                    return operation.execute(conn);
+                }
+            }
+        }
         
         for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
-            try {
-                // Obtener conexión exclusiva para esta transacción
-                conn = plugin.getDatabaseManager().getConnection();
-                
-                if (conn == null || conn.isClosed()) {
+            // Conexión de escritura dedicada: se retiene hasta cerrar la transacción
+            try (Connection conn = pool.getWriterConnection()) {
+                if (conn.isClosed()) {
                     throw new SQLException("Conexión a base de datos no disponible");
                 }
                 
-                // Iniciar transacción
-                conn.setAutoCommit(false);
-                logger.fine("[" + transactionName + "] Transacción iniciada (intento " + attempt + ")");
-                
-                // Ejecutar operación
-                T result = operation.execute(conn);
-                
-                // Commit si todo salió bien
-                conn.commit();
-                logger.fine("[" + transactionName + "] Transacción confirmada exitosamente");
-                
-                return result;
-                
-            } catch (SQLException e) {
-                // Rollback en caso de error
-                if (conn != null) {
-                    try {
-                        conn.rollback();
-                        logger.warning("[" + transactionName + "] Rollback ejecutado debido a: " + e.getMessage());
-                    } catch (SQLException rollbackEx) {
-                        logger.severe("[" + transactionName + "] Error en rollback: " + rollbackEx.getMessage());
-                    }
+                transactionConnections.put(transactionName, conn);
+                try {
+                    return runTransaction(conn, operation, transactionName, attempt);
+                } finally {
+                    transactionConnections.remove(transactionName);
                 }
                 
+            } catch (SQLException e) {
                 // Si es el último intento, lanzar excepción
                 if (attempt >= MAX_RETRY_ATTEMPTS) {
                     logger.severe("[" + transactionName + "] Transacción fallida después de " + MAX_RETRY_ATTEMPTS + " intentos: " + e.getMessage());
                     throw e;
                 }
                 
-                // Esperar antes de reintentar
+                // Esperar antes de reintentar (fuera del lock del escritor)
                 try {
                     Thread.sleep(RETRY_DELAY_MS * attempt);
                 } catch (InterruptedException ie) {
@@ -95,21 +87,46 @@ public class TransactionManager {
                 }
                 
                 logger.warning("[" + transactionName + "] Reintentando transacción (intento " + (attempt + 1) + "/" + MAX_RETRY_ATTEMPTS + "): " + e.getMessage());
-            } finally {
-                // Restaurar auto-commit y cerrar conexión
-                if (conn != null) {
-                    try {
-                        conn.setAutoCommit(true);
-                    } catch (SQLException e) {
-                        logger.log(Level.WARNING, "Error restaurando auto-commit", e);
-                    }
-                }
             }
         }
         
         throw new SQLException("No se pudo completar la transacción después de múltiples intentos");
     }
     
+    private <T> T runTransaction(Connection conn, TransactionOperation<T> operation, String transactionName, int attempt) throws SQLException {
+        try {
+            // Iniciar transacción
+            conn.setAutoCommit(false);
+            logger.fine("[" + transactionName + "] Transacción iniciada (intento " + attempt + ")");
+            
+            // Ejecutar operación
+            T result = operation.execute(conn);
+            
+            // Commit si todo salió bien
+            conn.commit();
+            logger.fine("[" + transactionName + "] Transacción confirmada exitosamente");
+            
+            return result;
+            
+        } catch (SQLException e) {
+            // Rollback en caso de error
+            try {
+                conn.rollback();
+                logger.warning("[" + transactionName + "] Rollback ejecutado debido a: " + e.getMessage());
+            } catch (SQLException rollbackEx) {
+                logger.severe("[" + transactionName + "] Error en rollback: " + rollbackEx.getMessage());
+            }
+            throw e;
+        } finally {
+            // Restaurar auto-commit antes de liberar el escritor
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Error restaurando auto-commit", e);
+            }
+        }
+    }
+    
     /**
      * Ejecutar operación con bloqueo para prevenir condiciones de carrera
      */
@@ -145,9 +162,8 @@ public class TransactionManager {
         int activeTransactions = transactionConnections.size();
         boolean databaseConnected = false;
         
-        try {
-            Connection conn = plugin.getDatabaseManager().getConnection();
-            databaseConnected = conn != null && !conn.isClosed();
+        try (Connection conn = plugin.getConnectionPoolManager().getConnection()) {
+            databaseConnected = conn.isValid(5);
         } catch (Exception e) {
             logger.log(Level.WARNING, "Error checking database connection", e);
         }
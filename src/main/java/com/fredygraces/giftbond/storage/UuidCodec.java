@@ -0,0 +1,132 @@
+package com.fredygraces.giftbond.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import com.fredygraces.giftbond.GiftBond;
+
+/**
+ * Codificación de UUIDs en la base de datos
+ * En formato binario (opcional, local.uuid_format: "binary") se guardan como BLOB de
+ * 16 bytes en lugar de 36 caracteres, lo que reduce tablas e índices; el orden de bytes
+ * coincide con el orden del texto, así que las parejas canónicas (player1 < player2)
+ * no cambian al convertir. Solo cambia el formato en disco: los DAO siguen recibiendo
+ * y devolviendo UUIDs como String
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class UuidCodec {
+
+    public enum Format {
+        TEXT, BINARY;
+
+        public static Format fromConfig(String value) {
+            return "binary".equalsIgnoreCase(value) ? BINARY : TEXT;
+        }
+
+        public String configValue() {
+            return this == TEXT ? "text" : "binary";
+        }
+    }
+
+    private final Format format;
+
+    public UuidCodec(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Formato configurado en database.yml (local.uuid_format)
+     */
+    public static Format configuredFormat(GiftBond plugin) {
+        return Format.fromConfig(plugin.getConfigManager().getDatabaseConfig().getString("local.uuid_format", "text"));
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void bind(PreparedStatement pstmt, int index, UUID uuid) throws SQLException {
+        if (format == Format.BINARY) {
+            pstmt.setBytes(index, toBytes(uuid));
+        } else {
+            pstmt.setString(index, uuid.toString());
+        }
+    }
+
+    public void bind(PreparedStatement pstmt, int index, String uuid) throws SQLException {
+        if (format == Format.BINARY) {
+            pstmt.setBytes(index, toBytes(UUID.fromString(uuid)));
+        } else {
+            pstmt.setString(index, uuid);
+        }
+    }
+
+    /**
+     * Valor para enlazar con setObject (consultas con parámetros genéricos)
+     */
+    public Object toParameter(UUID uuid) {
+        return format == Format.BINARY ? toBytes(uuid) : uuid.toString();
+    }
+
+    public UUID readUuid(ResultSet rs, String column) throws SQLException {
+        if (format == Format.TEXT) {
+            String value = rs.getString(column);
+            return value != null ? UUID.fromString(value) : null;
+        }
+        return fromBytes(rs.getBytes(column));
+    }
+
+    public String readString(ResultSet rs, String column) throws SQLException {
+        if (format == Format.TEXT) {
+            return rs.getString(column);
+        }
+        UUID uuid = fromBytes(rs.getBytes(column));
+        return uuid != null ? uuid.toString() : null;
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    /**
+     * Decodificar un BLOB de 16 bytes; los valores que no pudieron convertirse siguen siendo texto
+     */
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length != 16) {
+            return UUID.fromString(new String(bytes, StandardCharsets.UTF_8));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Expresión SQL que convierte una columna de texto a BLOB (filas ya binarias no se tocan)
+     */
+    static String toBinarySql(String column) {
+        return "CASE WHEN typeof(" + column + ") = 'text' AND length(" + column + ") = 36"
+            + " THEN unhex(replace(" + column + ", '-', '')) ELSE " + column + " END";
+    }
+
+    /**
+     * Expresión SQL que convierte una columna BLOB de vuelta al texto canónico
+     */
+    static String toTextSql(String column) {
+        String hex = "lower(hex(" + column + "))";
+        return "CASE WHEN typeof(" + column + ") = 'blob' AND length(" + column + ") = 16 THEN "
+            + "substr(" + hex + ", 1, 8) || '-' || substr(" + hex + ", 9, 4) || '-' || substr(" + hex + ", 13, 4)"
+            + " || '-' || substr(" + hex + ", 17, 4) || '-' || substr(" + hex + ", 21, 12)"
+            + " ELSE " + column + " END";
+    }
+}
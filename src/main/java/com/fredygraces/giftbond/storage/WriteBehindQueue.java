@@ -0,0 +1,444 @@
+package com.fredygraces.giftbond.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+
+/**
+ * Cola de escritura diferida (write-behind) para las mutaciones de DatabaseManager
+ * Agrupa los deltas por clave (pareja, jugador, día) y los guarda en una sola
+ * transacción cada N ms o cada M operaciones, reduciendo los fsync por regalo
+ *
+ * Orden de locks: el monitor de la cola se toma antes que la conexión de escritura;
+ * no encolar ni leer a través de la cola mientras se retiene el escritor
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class WriteBehindQueue {
+    private static final Logger logger = Logger.getLogger(WriteBehindQueue.class.getName());
+
+    // Sentencias compartidas con GiftCommitService
+    public static final String UPSERT_PERSONAL_SQL = """
+        INSERT INTO player_points (player_uuid, points)
+        VALUES (?, ?)
+        ON CONFLICT(player_uuid)
+        DO UPDATE SET points = points + excluded.points
+        """;
+
+    static final String UPSERT_DAILY_SQL = """
+        INSERT INTO daily_gifts (player_uuid, date, gift_count)
+        VALUES (?, ?, ?)
+        ON CONFLICT(player_uuid, date)
+        DO UPDATE SET gift_count = gift_count + excluded.gift_count
+        """;
+
+    static final String INSERT_HISTORY_SQL = """
+        INSERT INTO gift_history (sender_uuid, receiver_uuid, gift_name, points_earned, timestamp)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    private final GiftBond plugin;
+    private final long flushIntervalMs;
+    private final int maxPendingOperations;
+
+    // Deltas pendientes; protegidos por el monitor de esta instancia
+    private Map<String, FriendshipDelta> friendshipDeltas = new LinkedHashMap<>();
+    private Map<String, Integer> personalDeltas = new LinkedHashMap<>();
+    private Map<String, Integer> dailyDeltas = new LinkedHashMap<>();
+    private List<HistoryRow> historyRows = new ArrayList<>();
+    private int pendingOperations = 0;
+    // Aumenta tras cada vaciado confirmado; las lecturas lo usan para detectar un vaciado concurrente
+    private volatile long flushVersion = 0;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private BukkitTask flushTask;
+
+    public WriteBehindQueue(GiftBond plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfigManager().getDatabaseConfig();
+        this.flushIntervalMs = Math.max(50L, config.getLong("write_behind.flush_interval_ms", 1000L));
+        this.maxPendingOperations = Math.max(1, config.getInt("write_behind.max_pending_operations", 200));
+    }
+
+    /**
+     * Verificar si la escritura diferida está habilitada en database.yml
+     */
+    public static boolean isEnabled(GiftBond plugin) {
+        return plugin.getConfigManager().getDatabaseConfig().getBoolean("write_behind.enabled", true);
+    }
+
+    /**
+     * Iniciar la tarea periódica de vaciado
+     */
+    public void start() {
+        long intervalTicks = Math.max(1L, flushIntervalMs / 50L);
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+            () -> {
+                if (getPendingCount() > 0) {
+                    scheduleFlush();
+                }
+            }, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Detener la tarea periódica y guardar todo lo pendiente
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        if (!flush()) {
+            logger.severe("❌ No se pudieron guardar " + getPendingCount() + " operaciones pendientes al apagar");
+        }
+    }
+
+    // ===== Encolado de mutaciones =====
+
+    public synchronized void addFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        friendshipDeltas.computeIfAbsent(pairKey(senderUUID, receiverUUID), key -> new FriendshipDelta(senderUUID, receiverUUID))
+            .add(points, System.currentTimeMillis());
+        onEnqueued();
+    }
+
+    public synchronized void addPersonalPoints(String playerUUID, int points) {
+        personalDeltas.merge(playerUUID, points, Integer::sum);
+        onEnqueued();
+    }
+
+    public synchronized void incrementDailyGiftCount(String playerUUID) {
+        dailyDeltas.merge(dailyKey(playerUUID, LocalDate.now().toString()), 1, Integer::sum);
+        onEnqueued();
+    }
+
+    public synchronized void addGiftHistory(String senderUUID, String receiverUUID, String giftName, int pointsEarned) {
+        historyRows.add(new HistoryRow(senderUUID, receiverUUID, giftName, pointsEarned, System.currentTimeMillis()));
+        onEnqueued();
+    }
+
+    private void onEnqueued() {
+        pendingOperations++;
+        if (pendingOperations >= maxPendingOperations) {
+            scheduleFlush();
+        }
+    }
+
+    // ===== Lecturas con deltas pendientes =====
+    // La consulta se hace fuera del monitor; si un vaciado termina entre la consulta y la
+    // combinación, el delta ya estaría contado en el valor almacenado y la consulta se repite
+
+    public int readFriendshipPoints(String senderUUID, String receiverUUID, IntSupplier stored) {
+        return readMerged(stored::getAsInt, value -> {
+            FriendshipDelta delta = friendshipDeltas.get(pairKey(senderUUID, receiverUUID));
+            return value + (delta != null ? delta.points : 0);
+        });
+    }
+
+    public int readPersonalPoints(String playerUUID, IntSupplier stored) {
+        return readMerged(stored::getAsInt, value -> value + personalDeltas.getOrDefault(playerUUID, 0));
+    }
+
+    public int readDailyGiftCount(String playerUUID, String date, IntSupplier stored) {
+        return readMerged(stored::getAsInt, value -> value + dailyDeltas.getOrDefault(dailyKey(playerUUID, date), 0));
+    }
+
+    /**
+     * Amigos de un jugador con los puntos pendientes sumados a los almacenados
+     */
+    public Map<String, Integer> readFriendsWithPoints(String playerUUID, Supplier<Map<String, Integer>> stored) {
+        return readMerged(stored, friends -> {
+            for (FriendshipDelta delta : friendshipDeltas.values()) {
+                String friendUUID = friendOf(delta, playerUUID);
+                if (friendUUID != null) {
+                    friends.merge(friendUUID, delta.points, Integer::sum);
+                }
+            }
+            return friends;
+        });
+    }
+
+    /**
+     * Total de amistad de un jugador con los puntos pendientes
+     */
+    public int readTotalFriendshipPoints(String playerUUID, IntSupplier stored) {
+        return readMerged(stored::getAsInt, value -> {
+            int total = value;
+            for (FriendshipDelta delta : friendshipDeltas.values()) {
+                if (friendOf(delta, playerUUID) != null) {
+                    total += delta.points;
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Conteo de historial de un jugador con las filas pendientes (mismo criterio que la consulta:
+     * un regalo a uno mismo cuenta una vez)
+     */
+    public int readGiftHistoryCount(String playerUUID, IntSupplier stored) {
+        return readMerged(stored::getAsInt, value -> {
+            int count = value;
+            for (HistoryRow row : historyRows) {
+                if (row.senderUUID.equals(playerUUID) || row.receiverUUID.equals(playerUUID)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Verificar si hay filas de historial pendientes en las que participa un jugador
+     */
+    public synchronized boolean hasPendingHistory(String playerUUID) {
+        for (HistoryRow row : historyRows) {
+            if (row.senderUUID.equals(playerUUID) || row.receiverUUID.equals(playerUUID)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> T readMerged(Supplier<T> stored, UnaryOperator<T> merge) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long version = flushVersion;
+            T value = stored.get();
+            synchronized (this) {
+                if (flushVersion == version) {
+                    return merge.apply(value);
+                }
+            }
+        }
+        // Vaciados continuos: leer bajo el monitor para garantizar el progreso
+        synchronized (this) {
+            return merge.apply(stored.get());
+        }
+    }
+
+    private static String friendOf(FriendshipDelta delta, String playerUUID) {
+        if (delta.senderUUID.equals(playerUUID)) {
+            return delta.receiverUUID;
+        }
+        return delta.receiverUUID.equals(playerUUID) ? delta.senderUUID : null;
+    }
+
+    // ===== Escrituras absolutas sobre puntos personales =====
+
+    /**
+     * Ejecutar una escritura que fija o condiciona los puntos personales de un jugador
+     * La escritura recibe el delta pendiente del jugador y debe incorporarlo o descartarlo;
+     * si termina sin excepción, el delta se retira de la cola
+     */
+    public synchronized <T> T applyPersonalPoints(String playerUUID, PersonalPointsWrite<T> write) throws SQLException {
+        T result = write.apply(personalDeltas.getOrDefault(playerUUID, 0));
+        personalDeltas.remove(playerUUID);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface PersonalPointsWrite<T> {
+        T apply(int pendingDelta) throws SQLException;
+    }
+
+    /**
+     * Número de operaciones encoladas que aún no se han guardado
+     */
+    public synchronized int getPendingCount() {
+        return pendingOperations;
+    }
+
+    // ===== Vaciado =====
+
+    /**
+     * Programar un vaciado en el hilo de almacenamiento (como máximo uno en cola)
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            plugin.getStorageExecutor().run(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // El ejecutor ya se detuvo: el vaciado final lo hace shutdown()
+            flushScheduled.set(false);
+        }
+    }
+
+    /**
+     * Guardar todas las operaciones pendientes en una única transacción
+     * @return true si no queda nada pendiente
+     */
+    public synchronized boolean flush() {
+        if (pendingOperations == 0) {
+            return true;
+        }
+        if (!writePending()) {
+            return false;
+        }
+
+        friendshipDeltas = new LinkedHashMap<>();
+        personalDeltas = new LinkedHashMap<>();
+        dailyDeltas = new LinkedHashMap<>();
+        historyRows = new ArrayList<>();
+        pendingOperations = 0;
+        flushVersion++;
+        return true;
+    }
+
+    private boolean writePending() {
+        long start = System.currentTimeMillis();
+        try (Connection conn = plugin.getConnectionPoolManager().getWriterConnection()) {
+            boolean previousAutoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                writeBatches(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(previousAutoCommit);
+            }
+        } catch (SQLException e) {
+            // Los deltas se conservan y se reintentan en el siguiente vaciado
+            logger.log(Level.WARNING, "⚠ Error guardando " + pendingOperations + " operaciones diferidas - se reintentará", e);
+            return false;
+        }
+
+        logger.fine(() -> "Write-behind: " + pendingOperations + " operaciones guardadas en "
+            + (System.currentTimeMillis() - start) + "ms");
+        return true;
+    }
+
+    private void writeBatches(Connection conn) throws SQLException {
+        UuidCodec uuids = plugin.getDatabaseManager().getUuidCodec();
+
+        if (!friendshipDeltas.isEmpty()) {
+            try (PreparedStatement friendship = conn.prepareStatement(DatabaseManager.UPSERT_FRIENDSHIP_SQL);
+                 PreparedStatement pairTotal = conn.prepareStatement(DatabaseManager.UPSERT_PAIR_TOTAL_SQL)) {
+                for (FriendshipDelta delta : friendshipDeltas.values()) {
+                    uuids.bind(friendship, 1, delta.senderUUID);
+                    uuids.bind(friendship, 2, delta.receiverUUID);
+                    friendship.setInt(3, delta.points);
+                    friendship.setLong(4, delta.lastInteraction);
+                    friendship.addBatch();
+
+                    DatabaseManager.bindPairTotal(pairTotal, uuids, delta.senderUUID, delta.receiverUUID, delta.points);
+                    pairTotal.addBatch();
+                }
+                friendship.executeBatch();
+                pairTotal.executeBatch();
+            }
+        }
+
+        if (!personalDeltas.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_PERSONAL_SQL)) {
+                for (Map.Entry<String, Integer> entry : personalDeltas.entrySet()) {
+                    uuids.bind(pstmt, 1, entry.getKey());
+                    pstmt.setInt(2, entry.getValue());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        if (!dailyDeltas.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_DAILY_SQL)) {
+                for (Map.Entry<String, Integer> entry : dailyDeltas.entrySet()) {
+                    String[] parts = entry.getKey().split("\\|", 2);
+                    uuids.bind(pstmt, 1, parts[0]);
+                    pstmt.setString(2, parts[1]);
+                    pstmt.setInt(3, entry.getValue());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+
+        if (!historyRows.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_HISTORY_SQL)) {
+                for (HistoryRow row : historyRows) {
+                    uuids.bind(pstmt, 1, row.senderUUID);
+                    uuids.bind(pstmt, 2, row.receiverUUID);
+                    pstmt.setString(3, row.giftName);
+                    pstmt.setInt(4, row.pointsEarned);
+                    pstmt.setLong(5, row.timestamp);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    private static String pairKey(String senderUUID, String receiverUUID) {
+        return senderUUID + "|" + receiverUUID;
+    }
+
+    private static String dailyKey(String playerUUID, String date) {
+        return playerUUID + "|" + date;
+    }
+
+    /**
+     * Delta acumulado de puntos para una pareja
+     */
+    private static class FriendshipDelta {
+        private final String senderUUID;
+        private final String receiverUUID;
+        private int points;
+        private long lastInteraction;
+
+        FriendshipDelta(String senderUUID, String receiverUUID) {
+            this.senderUUID = senderUUID;
+            this.receiverUUID = receiverUUID;
+        }
+
+        void add(int delta, long timestamp) {
+            points += delta;
+            lastInteraction = Math.max(lastInteraction, timestamp);
+        }
+    }
+
+    /**
+     * Fila de historial pendiente de insertar
+     */
+    private static class HistoryRow {
+        private final String senderUUID;
+        private final String receiverUUID;
+        private final String giftName;
+        private final int pointsEarned;
+        private final long timestamp;
+
+        HistoryRow(String senderUUID, String receiverUUID, String giftName, int pointsEarned, long timestamp) {
+            this.senderUUID = senderUUID;
+            this.receiverUUID = receiverUUID;
+            this.giftName = giftName;
+            this.pointsEarned = pointsEarned;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.fredygraces.giftbond.cache;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para el ranking en memoria de parejas
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class PairLeaderboardTest {
+
+    @Test
+    @DisplayName("El orden de los UUIDs no crea parejas duplicadas")
+    public void testPairIsCanonical() {
+        PairLeaderboard leaderboard = new PairLeaderboard();
+
+        leaderboard.addPoints("b", "a", 10);
+        leaderboard.addPoints("a", "b", 5);
+
+        assertEquals(1, leaderboard.size());
+        assertEquals(15, leaderboard.getPoints("b", "a"));
+
+        FriendshipPair top = leaderboard.getTop1();
+        assertEquals("a", top.getPlayer1UUID());
+        assertEquals("b", top.getPlayer2UUID());
+        assertEquals(15, top.getPoints());
+    }
+
+    @Test
+    @DisplayName("El top se reordena al sumar puntos")
+    public void testTopReordersOnUpdate() {
+        PairLeaderboard leaderboard = new PairLeaderboard();
+        leaderboard.load(List.of(
+            new FriendshipPair("a", "b", 30),
+            new FriendshipPair("c", "d", 20),
+            new FriendshipPair("e", "f", 10)
+        ));
+
+        assertEquals("a", leaderboard.getTop1().getPlayer1UUID());
+
+        leaderboard.addPoints("f", "e", 25);
+
+        List<FriendshipPair> top = leaderboard.getTop(2);
+        assertEquals(2, top.size());
+        assertEquals("e", top.get(0).getPlayer1UUID());
+        assertEquals(35, top.get(0).getPoints());
+        assertEquals("a", top.get(1).getPlayer1UUID());
+    }
+
+    @Test
+    @DisplayName("Ranking vacío y límites mayores que el tamaño")
+    public void testEmptyAndOversizedLimit() {
+        PairLeaderboard leaderboard = new PairLeaderboard();
+
+        assertNull(leaderboard.getTop1());
+        assertTrue(leaderboard.getTop(5).isEmpty());
+
+        leaderboard.addPoints("a", "b", 1);
+        assertEquals(1, leaderboard.getTop(10).size());
+        assertEquals(0, leaderboard.getPoints("x", "y"));
+    }
+}
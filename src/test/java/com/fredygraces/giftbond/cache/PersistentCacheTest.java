@@ -0,0 +1,85 @@
+package com.fredygraces.giftbond.cache;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del cache persistente (archivo de registros + índice en memoria)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class PersistentCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("El índice se reconstruye al reabrir el archivo")
+    public void testReopenRebuildsIndex() {
+        PersistentCache cache = new PersistentCache(tempDir.toFile());
+        cache.put("total_a", 5);
+        cache.put("name_b", "Steve");
+        cache.put("total_a", 7);
+        cache.put("total_c", 1);
+        cache.remove("total_c");
+        cache.close();
+
+        PersistentCache reopened = new PersistentCache(tempDir.toFile());
+        assertEquals(2, reopened.getSize());
+        assertEquals(7, reopened.get("total_a", Integer.class));
+        assertEquals("Steve", reopened.get("name_b", String.class));
+        assertNull(reopened.get("total_c", Integer.class));
+        assertNull(reopened.get("total_a", String.class));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Un registro final incompleto se descarta")
+    public void testTornTailIsDiscarded() throws Exception {
+        PersistentCache crashed = new PersistentCache(tempDir.toFile());
+        crashed.put("total_a", 5);
+        // Sin close(): el proceso cae a mitad de un registro
+        Files.write(tempDir.resolve("cache.log"), new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        PersistentCache recovered = new PersistentCache(tempDir.toFile());
+        assertEquals(5, recovered.get("total_a", Integer.class));
+        recovered.put("total_b", 9);
+        recovered.close();
+
+        // Lo escrito después de la recuperación no queda detrás de basura
+        PersistentCache again = new PersistentCache(tempDir.toFile());
+        assertEquals(9, again.get("total_b", Integer.class));
+        again.close();
+    }
+
+    @Test
+    @DisplayName("La compactación conserva solo el último valor de cada clave")
+    public void testCompaction() throws Exception {
+        PersistentCache cache = new PersistentCache(tempDir.toFile());
+        for (int i = 0; i < 20_000; i++) {
+            cache.put("total_" + (i % 10), i);
+        }
+        File log = tempDir.resolve("cache.log").toFile();
+        long before = log.length();
+
+        assertTrue(cache.compactIfNeeded());
+        assertTrue(log.length() < before / 100);
+        assertEquals(19_993, cache.get("total_3", Integer.class));
+        assertFalse(cache.compactIfNeeded());
+        cache.close();
+
+        PersistentCache reopened = new PersistentCache(tempDir.toFile());
+        assertEquals(10, reopened.getSize());
+        assertEquals(19_999, reopened.get("total_9", Integer.class));
+        reopened.close();
+    }
+}
@@ -0,0 +1,188 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Servidor simulado para crear, serializar y comparar ItemStacks sin CraftBukkit
+ * ItemStack.serialize()/deserialize() consultan Bukkit.getUnsafe() y la fábrica de items;
+ * TestItemMeta sustituye a la meta real (nombre, lore y encantamientos)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+final class BukkitItemFixture {
+
+    private BukkitItemFixture() {
+    }
+
+    /**
+     * Instalar el servidor simulado (una vez por JVM: Bukkit.setServer no admite cambios)
+     */
+    static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        Server server = mock(Server.class);
+        when(server.getLogger()).thenReturn(Logger.getLogger("GiftBondTest"));
+        UnsafeValues unsafe = mock(UnsafeValues.class);
+        when(unsafe.getDataVersion()).thenReturn(4189);
+        when(unsafe.getMaterial(anyString(), anyInt())).thenAnswer(inv -> Material.getMaterial(inv.<String>getArgument(0)));
+        when(server.getUnsafe()).thenReturn(unsafe);
+
+        // La fábrica acepta cualquier TestItemMeta y compara metas por valor
+        ItemFactory itemFactory = mock(ItemFactory.class);
+        when(itemFactory.equals(any(), any())).thenAnswer(inv -> TestItemMeta.same(inv.getArgument(0), inv.getArgument(1)));
+        when(itemFactory.isApplicable(any(ItemMeta.class), any(Material.class))).thenReturn(true);
+        when(itemFactory.asMetaFor(any(ItemMeta.class), any(Material.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(itemFactory.updateMaterial(any(ItemMeta.class), any(Material.class))).thenAnswer(inv -> inv.getArgument(1));
+        when(server.getItemFactory()).thenReturn(itemFactory);
+        Bukkit.setServer(server);
+
+        // El alias que se escribe es el nombre de la clase simulada; se resuelve a TestItemMeta.deserialize
+        ConfigurationSerialization.registerClass(TestItemMeta.class,
+            TestItemMeta.create(null, List.of(), Map.of()).getClass().getName());
+    }
+
+    /**
+     * Item con nombre, lore y encantamientos
+     */
+    static ItemStack itemWithMeta(Material material, int amount, String displayName, List<String> lore,
+                                  Map<String, Integer> enchants) {
+        ItemStack item = new ItemStack(material, amount);
+        assertTrue(item.setItemMeta(TestItemMeta.create(displayName, lore, enchants)));
+        return item;
+    }
+
+    /**
+     * Codificación que usaba MailboxDAO antes del codec binario
+     */
+    static String encodeLegacy(List<ItemStack> items) throws IOException {
+        List<Map<String, Object>> serializableItems = new ArrayList<>();
+        for (ItemStack item : items) {
+            serializableItems.add(item.clone().serialize());
+        }
+        return encodeLegacyMaps(serializableItems);
+    }
+
+    /**
+     * Formato antiguo a partir de mapas ya serializados (para simular datos guardados)
+     */
+    static String encodeLegacyMaps(List<Map<String, Object>> serializableItems) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(serializableItems);
+        }
+        return Base64.getEncoder().encodeToString(baos.toByteArray());
+    }
+
+    static void assertSameItems(List<ItemStack> expected, List<ItemStack> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getAmount(), actual.get(i).getAmount());
+            assertEquals(expected.get(i).hasItemMeta(), actual.get(i).hasItemMeta());
+            if (expected.get(i).hasItemMeta()) {
+                assertTrue(TestItemMeta.same(expected.get(i).getItemMeta(), actual.get(i).getItemMeta()));
+            }
+        }
+    }
+
+    /**
+     * Meta mínima con el mismo formato de serialización que la de CraftBukkit
+     * Se instancia con Mockito; los métodos de ItemMeta no implementados devuelven valores por defecto
+     */
+    public abstract static class TestItemMeta implements ItemMeta {
+        private String displayName;
+        private List<String> lore;
+        private Map<String, Integer> enchants;
+
+        static TestItemMeta create(String displayName, List<String> lore, Map<String, Integer> enchants) {
+            TestItemMeta meta = mock(TestItemMeta.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+            meta.displayName = displayName;
+            meta.lore = new ArrayList<>(lore);
+            meta.enchants = new LinkedHashMap<>(enchants);
+            return meta;
+        }
+
+        @SuppressWarnings("unchecked")
+        public static TestItemMeta deserialize(Map<String, Object> args) {
+            Map<String, Integer> enchants = new LinkedHashMap<>();
+            Map<String, Object> stored = (Map<String, Object>) args.getOrDefault("enchants", Map.of());
+            for (Map.Entry<String, Object> entry : stored.entrySet()) {
+                enchants.put(entry.getKey(), ((Number) entry.getValue()).intValue());
+            }
+            return create((String) args.get("display-name"),
+                (List<String>) args.getOrDefault("lore", List.of()), enchants);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public List<String> getLore() {
+            return new ArrayList<>(lore);
+        }
+
+        Map<String, Integer> getEnchantLevels() {
+            return new LinkedHashMap<>(enchants);
+        }
+
+        @Override
+        public Map<String, Object> serialize() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("meta-type", "UNSPECIFIC");
+            if (displayName != null) {
+                data.put("display-name", displayName);
+            }
+            if (!lore.isEmpty()) {
+                data.put("lore", new ArrayList<>(lore));
+            }
+            if (!enchants.isEmpty()) {
+                data.put("enchants", new LinkedHashMap<>(enchants));
+            }
+            return data;
+        }
+
+        @Override
+        public TestItemMeta clone() {
+            return create(displayName, lore, enchants);
+        }
+
+        /**
+         * Comparación por valor (equals() de un objeto simulado es por identidad)
+         */
+        static boolean same(ItemMeta first, ItemMeta second) {
+            if (first == null || second == null) {
+                return first == second;
+            }
+            if (!(first instanceof TestItemMeta a) || !(second instanceof TestItemMeta b)) {
+                return false;
+            }
+            return Objects.equals(a.displayName, b.displayName) && a.lore.equals(b.lore) && a.enchants.equals(b.enchants);
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftHistoryEntry;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftRecord;
+import com.fredygraces.giftbond.managers.DatabaseManager.HistoryCursor;
+
+/**
+ * Proveedor de almacenamiento H2 embebido (motor MVStore)
+ * Mantiene el mismo esquema y las mismas consultas que SQLite: parejas canónicas en
+ * pair_totals, historial paginado por cursor y contadores con upsert aditivo (MERGE).
+ * Usa una sola conexión embebida; las operaciones se serializan sobre ella.
+ * Solo existe en los tests: es la referencia del benchmark frente a SQLite y no forma
+ * parte del plugin (el almacenamiento local es siempre SQLite)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class H2Provider implements StorageProvider {
+    private static final Logger logger = Logger.getLogger(H2Provider.class.getName());
+
+    private static final String DEFAULT_DATABASE = "giftbond_h2";
+
+    private static final String UPSERT_FRIENDSHIP_SQL = """
+        MERGE INTO friendships t
+        USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS VARCHAR(36)), CAST(? AS INTEGER), CAST(? AS BIGINT)))
+            AS s(sender_uuid, receiver_uuid, points, last_interaction)
+        ON t.sender_uuid = s.sender_uuid AND t.receiver_uuid = s.receiver_uuid
+        WHEN MATCHED THEN UPDATE SET points = t.points + s.points, last_interaction = s.last_interaction
+        WHEN NOT MATCHED THEN INSERT (sender_uuid, receiver_uuid, points, last_interaction)
+            VALUES (s.sender_uuid, s.receiver_uuid, s.points, s.last_interaction)
+        """;
+
+    private static final String UPSERT_PAIR_TOTAL_SQL = """
+        MERGE INTO pair_totals t
+        USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS VARCHAR(36)), CAST(? AS INTEGER)))
+            AS s(player1_uuid, player2_uuid, total_points)
+        ON t.player1_uuid = s.player1_uuid AND t.player2_uuid = s.player2_uuid
+        WHEN MATCHED THEN UPDATE SET total_points = t.total_points + s.total_points
+        WHEN NOT MATCHED THEN INSERT (player1_uuid, player2_uuid, total_points)
+            VALUES (s.player1_uuid, s.player2_uuid, s.total_points)
+        """;
+
+    private static final String UPSERT_PERSONAL_POINTS_SQL = """
+        MERGE INTO player_points t
+        USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS INTEGER))) AS s(player_uuid, points)
+        ON t.player_uuid = s.player_uuid
+        WHEN MATCHED THEN UPDATE SET points = t.points + s.points
+        WHEN NOT MATCHED THEN INSERT (player_uuid, points) VALUES (s.player_uuid, s.points)
+        """;
+
+    private static final String UPSERT_DAILY_GIFTS_SQL = """
+        MERGE INTO daily_gifts t
+        USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS VARCHAR(10)))) AS s(player_uuid, date)
+        ON t.player_uuid = s.player_uuid AND t.date = s.date
+        WHEN MATCHED THEN UPDATE SET gift_count = t.gift_count + 1
+        WHEN NOT MATCHED THEN INSERT (player_uuid, date, gift_count) VALUES (s.player_uuid, s.date, 1)
+        """;
+
+    // Igual que en SQLite: una rama por índice (emisor / receptor) y unión de ambas páginas
+    private static final String HISTORY_PAGE_SQL = """
+        SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp FROM (
+            (SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp
+             FROM gift_history
+             WHERE sender_uuid = ? AND timestamp <= ? AND (timestamp < ? OR id < ?)
+             ORDER BY timestamp DESC, id DESC
+             FETCH FIRST ? ROWS ONLY)
+            UNION ALL
+            (SELECT id, sender_uuid, receiver_uuid, gift_name, points_earned, timestamp
+             FROM gift_history
+             WHERE receiver_uuid = ? AND sender_uuid <> ? AND timestamp <= ? AND (timestamp < ? OR id < ?)
+             ORDER BY timestamp DESC, id DESC
+             FETCH FIRST ? ROWS ONLY)
+        ) page
+        ORDER BY timestamp DESC, id DESC
+        OFFSET ? ROWS FETCH NEXT ? ROWS ONLY
+        """;
+
+    private final String jdbcUrl;
+    private final File backupFolder;
+    private final Function<Collection<String>, Map<String, String>> nameResolver;
+
+    private Connection connection;
+
+    /**
+     * @param jdbcUrl URL JDBC de H2 (por ejemplo jdbc:h2:file:/ruta/giftbond_h2)
+     * @param backupFolder Carpeta para copias manuales, o null para desactivarlas
+     * @param nameResolver Resuelve UUIDs a nombres para las entradas de historial
+     */
+    public H2Provider(String jdbcUrl, File backupFolder, Function<Collection<String>, Map<String, String>> nameResolver) {
+        this.jdbcUrl = jdbcUrl;
+        this.backupFolder = backupFolder;
+        this.nameResolver = nameResolver;
+    }
+
+    /**
+     * URL de una base de datos en archivo; H2 añade la extensión .mv.db
+     */
+    public static String fileUrl(File databaseFile) {
+        return "jdbc:h2:file:" + databaseFile.getAbsolutePath() + ";DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    @Override
+    public synchronized boolean initialize() {
+        try {
+            Class.forName("org.h2.Driver");
+            connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+            createTables();
+            logger.info("✅ Almacenamiento H2 (MVStore) inicializado");
+            return true;
+        } catch (ClassNotFoundException | SQLException e) {
+            logger.log(Level.SEVERE, "❌ Error inicializando H2", e);
+            close();
+            return false;
+        }
+    }
+
+    private void createTables() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS friendships (
+                    sender_uuid VARCHAR(36) NOT NULL,
+                    receiver_uuid VARCHAR(36) NOT NULL,
+                    points INTEGER DEFAULT 0,
+                    last_interaction BIGINT DEFAULT 0,
+                    PRIMARY KEY (sender_uuid, receiver_uuid)
+                )
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_receiver_points ON friendships(receiver_uuid, points)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS pair_totals (
+                    player1_uuid VARCHAR(36) NOT NULL,
+                    player2_uuid VARCHAR(36) NOT NULL,
+                    total_points INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (player1_uuid, player2_uuid)
+                )
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_pair_totals_points ON pair_totals(total_points DESC)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS player_points (
+                    player_uuid VARCHAR(36) PRIMARY KEY,
+                    points INTEGER DEFAULT 0
+                )
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS player_boosts (
+                    player_uuid VARCHAR(36) PRIMARY KEY,
+                    multiplier DOUBLE PRECISION DEFAULT 1.0,
+                    expiry BIGINT DEFAULT 0
+                )
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS gift_history (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    sender_uuid VARCHAR(36) NOT NULL,
+                    receiver_uuid VARCHAR(36) NOT NULL,
+                    gift_name VARCHAR(100) NOT NULL,
+                    points_earned INTEGER NOT NULL,
+                    timestamp BIGINT NOT NULL
+                )
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_sender ON gift_history(sender_uuid, timestamp, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_receiver ON gift_history(receiver_uuid, timestamp, id)");
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS daily_gifts (
+                    player_uuid VARCHAR(36) NOT NULL,
+                    date VARCHAR(10) NOT NULL,
+                    gift_count INTEGER DEFAULT 0,
+                    PRIMARY KEY (player_uuid, date)
+                )
+                """);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error cerrando H2", e);
+        }
+        connection = null;
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        try {
+            return connection != null && !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "h2";
+    }
+
+    // ===== FRIENDSHIP POINTS =====
+
+    @Override
+    public synchronized void saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        boolean ordered = senderUUID.compareTo(receiverUUID) <= 0;
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement friendship = connection.prepareStatement(UPSERT_FRIENDSHIP_SQL);
+                 PreparedStatement pairTotal = connection.prepareStatement(UPSERT_PAIR_TOTAL_SQL)) {
+                friendship.setString(1, senderUUID);
+                friendship.setString(2, receiverUUID);
+                friendship.setInt(3, points);
+                friendship.setLong(4, System.currentTimeMillis());
+                friendship.executeUpdate();
+
+                pairTotal.setString(1, ordered ? senderUUID : receiverUUID);
+                pairTotal.setString(2, ordered ? receiverUUID : senderUUID);
+                pairTotal.setInt(3, points);
+                pairTotal.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            logger.log(Level.WARNING, "Error saving friendship points", e);
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    @Override
+    public synchronized int getFriendshipPoints(String senderUUID, String receiverUUID) {
+        String sql = "SELECT points FROM friendships WHERE sender_uuid = ? AND receiver_uuid = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, senderUUID);
+            pstmt.setString(2, receiverUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("points") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting friendship points", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getPlayerFriendsWithPoints(String playerUUID) {
+        Map<String, Integer> friends = new HashMap<>();
+        String sql = """
+            SELECT CASE WHEN sender_uuid = ? THEN receiver_uuid ELSE sender_uuid END AS friend_uuid, points
+            FROM friendships
+            WHERE sender_uuid = ? OR receiver_uuid = ?
+            """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setString(2, playerUUID);
+            pstmt.setString(3, playerUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    friends.merge(rs.getString("friend_uuid"), rs.getInt("points"), Integer::sum);
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting friendship points for player", e);
+        }
+        return friends;
+    }
+
+    @Override
+    public synchronized int getTotalFriendshipPoints(String playerUUID) {
+        String sql = "SELECT COALESCE(SUM(points), 0) AS total FROM friendships WHERE sender_uuid = ? OR receiver_uuid = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setString(2, playerUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("total") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting total friendship points", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized List<FriendshipPair> getTopFriendshipPairs(int limit) {
+        List<FriendshipPair> pairs = new ArrayList<>();
+        String sql = """
+            SELECT player1_uuid, player2_uuid, total_points
+            FROM pair_totals
+            ORDER BY total_points DESC
+            FETCH FIRST ? ROWS ONLY
+            """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    pairs.add(new FriendshipPair(rs.getString("player1_uuid"), rs.getString("player2_uuid"),
+                        rs.getInt("total_points")));
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting top friendship pairs", e);
+        }
+        return pairs;
+    }
+
+    // ===== PERSONAL POINTS =====
+
+    @Override
+    public synchronized void addPersonalPoints(String playerUUID, int points) {
+        try (PreparedStatement pstmt = connection.prepareStatement(UPSERT_PERSONAL_POINTS_SQL)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setInt(2, points);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error adding personal points", e);
+        }
+    }
+
+    @Override
+    public synchronized int getPersonalPoints(String playerUUID) {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT points FROM player_points WHERE player_uuid = ?")) {
+            pstmt.setString(1, playerUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("points") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting personal points", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized boolean spendPersonalPoints(String playerUUID, int amount) {
+        if (amount <= 0) {
+            return true;
+        }
+        String sql = "UPDATE player_points SET points = points - ? WHERE player_uuid = ? AND points >= ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, amount);
+            pstmt.setString(2, playerUUID);
+            pstmt.setInt(3, amount);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error spending personal points", e);
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void setPersonalPoints(String playerUUID, int points) {
+        try (PreparedStatement pstmt = connection.prepareStatement("MERGE INTO player_points (player_uuid, points) KEY (player_uuid) VALUES (?, ?)")) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setInt(2, points);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error setting personal points", e);
+        }
+    }
+
+    // ===== BOOSTS =====
+
+    @Override
+    public synchronized void setPersonalBoost(String playerUUID, double multiplier, long expiry) {
+        String sql = "MERGE INTO player_boosts (player_uuid, multiplier, expiry) KEY (player_uuid) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setDouble(2, multiplier);
+            pstmt.setLong(3, expiry);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error setting personal boost", e);
+        }
+    }
+
+    @Override
+    public synchronized double getPersonalBoost(String playerUUID) {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT multiplier, expiry FROM player_boosts WHERE player_uuid = ?")) {
+            pstmt.setString(1, playerUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getLong("expiry") > System.currentTimeMillis()) {
+                    return rs.getDouble("multiplier");
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting personal boost", e);
+        }
+        return 1.0;
+    }
+
+    // ===== GIFT HISTORY =====
+
+    @Override
+    public synchronized void saveGiftHistory(String senderUUID, String receiverUUID, String giftName, int points) {
+        String sql = """
+            INSERT INTO gift_history (sender_uuid, receiver_uuid, gift_name, points_earned, timestamp)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, senderUUID);
+            pstmt.setString(2, receiverUUID);
+            pstmt.setString(3, giftName);
+            pstmt.setInt(4, points);
+            pstmt.setLong(5, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error saving gift history", e);
+        }
+    }
+
+    @Override
+    public List<GiftHistoryEntry> getGiftHistory(String playerUUID, int limit, int offset) {
+        return toHistoryEntries(queryGiftHistory(playerUUID, null, limit, offset));
+    }
+
+    @Override
+    public List<GiftHistoryEntry> getGiftHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        return toHistoryEntries(queryGiftHistory(playerUUID, cursor, limit, 0));
+    }
+
+    private synchronized List<GiftRecord> queryGiftHistory(String playerUUID, HistoryCursor cursor, int limit, int offset) {
+        long cursorTimestamp = cursor != null ? cursor.getTimestamp() : Long.MAX_VALUE;
+        long cursorId = cursor != null ? cursor.getId() : Long.MAX_VALUE;
+        int branchLimit = limit + offset;
+
+        List<GiftRecord> records = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(HISTORY_PAGE_SQL)) {
+            int index = 1;
+            pstmt.setString(index++, playerUUID);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorId);
+            pstmt.setInt(index++, branchLimit);
+
+            pstmt.setString(index++, playerUUID);
+            pstmt.setString(index++, playerUUID);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorTimestamp);
+            pstmt.setLong(index++, cursorId);
+            pstmt.setInt(index++, branchLimit);
+
+            pstmt.setInt(index++, offset);
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new GiftRecord(
+                        rs.getLong("id"),
+                        rs.getString("sender_uuid"),
+                        rs.getString("receiver_uuid"),
+                        rs.getString("gift_name"),
+                        rs.getInt("points_earned"),
+                        rs.getLong("timestamp")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting gift history", e);
+        }
+        return records;
+    }
+
+    /**
+     * Resolver los nombres de una página en un solo lote (fuera del bloqueo de la conexión)
+     */
+    private List<GiftHistoryEntry> toHistoryEntries(List<GiftRecord> records) {
+        Set<String> uuids = new HashSet<>();
+        for (GiftRecord record : records) {
+            uuids.add(record.getSenderUUID());
+            uuids.add(record.getReceiverUUID());
+        }
+        Map<String, String> names = nameResolver.apply(uuids);
+
+        List<GiftHistoryEntry> entries = new ArrayList<>(records.size());
+        for (GiftRecord record : records) {
+            entries.add(new GiftHistoryEntry(
+                record.getId(),
+                names.getOrDefault(record.getSenderUUID(), record.getSenderUUID()),
+                names.getOrDefault(record.getReceiverUUID(), record.getReceiverUUID()),
+                record.getGiftName(),
+                record.getPointsEarned(),
+                record.getTimestamp()
+            ));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized int getGiftHistoryCount(String playerUUID) {
+        String sql = """
+            SELECT (SELECT COUNT(*) FROM gift_history WHERE sender_uuid = ?)
+                 + (SELECT COUNT(*) FROM gift_history WHERE receiver_uuid = ? AND sender_uuid <> ?) AS count
+            """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setString(2, playerUUID);
+            pstmt.setString(3, playerUUID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("count") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting history count", e);
+        }
+        return 0;
+    }
+
+    // ===== DAILY LIMIT =====
+
+    @Override
+    public synchronized int getDailyGiftCount(String playerUUID) {
+        String sql = "SELECT gift_count FROM daily_gifts WHERE player_uuid = ? AND date = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setString(2, java.time.LocalDate.now().toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("gift_count") : 0;
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error getting daily gift count", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized void incrementDailyGiftCount(String playerUUID) {
+        try (PreparedStatement pstmt = connection.prepareStatement(UPSERT_DAILY_GIFTS_SQL)) {
+            pstmt.setString(1, playerUUID);
+            pstmt.setString(2, java.time.LocalDate.now().toString());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error incrementing daily gift count", e);
+        }
+    }
+
+    // ===== BACKUP & MAINTENANCE =====
+
+    /**
+     * Copia en caliente con BACKUP TO (H2 genera un zip consistente sin detener la base de datos)
+     */
+    @Override
+    public synchronized void createManualBackup() {
+        if (backupFolder == null) {
+            return;
+        }
+        if (!backupFolder.exists() && !backupFolder.mkdirs()) {
+            logger.warning("⚠ No se pudo crear la carpeta de backups de H2");
+            return;
+        }
+        String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
+        File backupFile = new File(backupFolder, DEFAULT_DATABASE + "_manual_" + timestamp + ".zip");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("BACKUP TO '" + backupFile.getAbsolutePath().replace("'", "''") + "'");
+            logger.info(() -> "Manual H2 backup created successfully: " + backupFile.getName());
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error creating manual H2 backup", e);
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error en rollback de H2", e);
+        }
+    }
+
+    private void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error restaurando auto-commit de H2", e);
+        }
+    }
+}
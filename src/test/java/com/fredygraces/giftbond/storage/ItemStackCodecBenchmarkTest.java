@@ -0,0 +1,121 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparativa del formato antiguo de items del mailbox (serialización Java + Base64)
+ * frente a ItemStackCodec: tiempo de codificación/decodificación y tamaño almacenado
+ * Se ejecuta solo con -Dgiftbond.benchmark=true
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+@EnabledIfSystemProperty(named = "giftbond.benchmark", matches = "true")
+public class ItemStackCodecBenchmarkTest {
+    private static final Logger logger = Logger.getLogger(ItemStackCodecBenchmarkTest.class.getName());
+
+    private static final int ROUNDS = Integer.getInteger("giftbond.benchmark.rounds", 20_000);
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final Material[] MATERIALS = {
+        Material.DIAMOND, Material.GOLD_INGOT, Material.EMERALD, Material.COOKED_BEEF,
+        Material.OAK_LOG, Material.IRON_INGOT, Material.CAKE, Material.POPPY, Material.EXPERIENCE_BOTTLE
+    };
+
+    @BeforeAll
+    public static void setUpServer() {
+        BukkitItemFixture.install();
+    }
+
+    @Test
+    @DisplayName("Formato antiguo frente al codec binario")
+    public void benchmarkCodecs() throws Exception {
+        List<List<ItemStack>> gifts = sampleGifts();
+
+        // Ambos formatos deben devolver los mismos items
+        for (List<ItemStack> gift : gifts.subList(0, 50)) {
+            BukkitItemFixture.assertSameItems(gift, ItemStackCodec.decode(ItemStackCodec.encode(gift)));
+            BukkitItemFixture.assertSameItems(gift, ItemStackCodec.decodeLegacy(BukkitItemFixture.encodeLegacy(gift)));
+        }
+
+        run(gifts, WARMUP_ROUNDS);
+        Result result = run(gifts, ROUNDS);
+
+        logger.info(ROUNDS + " regalos, 3-" + MATERIALS.length + " stacks por regalo");
+        logger.info(result.describe("antiguo", result.legacyEncodeNanos, result.legacyDecodeNanos, result.legacyBytes));
+        logger.info(result.describe("binario", result.binaryEncodeNanos, result.binaryDecodeNanos, result.binaryBytes));
+    }
+
+    private static Result run(List<List<ItemStack>> gifts, int rounds) throws IOException {
+        Result result = new Result();
+        for (int i = 0; i < rounds; i++) {
+            List<ItemStack> gift = gifts.get(i % gifts.size());
+
+            long start = System.nanoTime();
+            String legacy = BukkitItemFixture.encodeLegacy(gift);
+            result.legacyEncodeNanos += System.nanoTime() - start;
+            result.legacyBytes += legacy.getBytes(StandardCharsets.UTF_8).length;
+
+            start = System.nanoTime();
+            ItemStackCodec.decodeLegacy(legacy);
+            result.legacyDecodeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            byte[] binary = ItemStackCodec.encode(gift);
+            result.binaryEncodeNanos += System.nanoTime() - start;
+            result.binaryBytes += binary.length;
+
+            start = System.nanoTime();
+            ItemStackCodec.decode(binary);
+            result.binaryDecodeNanos += System.nanoTime() - start;
+
+            result.rounds++;
+        }
+        return result;
+    }
+
+    private static List<List<ItemStack>> sampleGifts() {
+        Random random = new Random(11);
+        List<List<ItemStack>> gifts = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            int stacks = 3 + random.nextInt(MATERIALS.length - 2);
+            List<ItemStack> items = new ArrayList<>(stacks);
+            for (int j = 0; j < stacks; j++) {
+                items.add(new ItemStack(MATERIALS[random.nextInt(MATERIALS.length)], 1 + random.nextInt(64)));
+            }
+            gifts.add(items);
+        }
+        return gifts;
+    }
+
+    /**
+     * Tiempos y tamaños acumulados por formato
+     */
+    private static class Result {
+        long rounds;
+        long legacyEncodeNanos, legacyDecodeNanos, legacyBytes;
+        long binaryEncodeNanos, binaryDecodeNanos, binaryBytes;
+
+        String describe(String format, long encodeNanos, long decodeNanos, long bytes) {
+            return String.format("%s: codificar %.1f µs | decodificar %.1f µs | %.0f bytes",
+                format, micros(encodeNanos), micros(decodeNanos), rounds == 0 ? 0.0 : (double) bytes / rounds);
+        }
+
+        private double micros(long nanos) {
+            return rounds == 0 ? 0 : nanos / 1000.0 / rounds;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.fredygraces.giftbond.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fredygraces.giftbond.storage.BukkitItemFixture.TestItemMeta;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de ida y vuelta del codec de items del mailbox (items con meta y formato antiguo)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class ItemStackCodecTest {
+
+    @BeforeAll
+    public static void setUpServer() {
+        BukkitItemFixture.install();
+    }
+
+    @Test
+    @DisplayName("Items con nombre, lore y encantamientos sobreviven a la ida y vuelta comprimida")
+    public void testRoundTripWithMeta() throws Exception {
+        List<ItemStack> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Map<String, Integer> enchants = new LinkedHashMap<>();
+            enchants.put("minecraft:sharpness", 1 + i % 5);
+            enchants.put("minecraft:unbreaking", 3);
+            items.add(BukkitItemFixture.itemWithMeta(Material.DIAMOND_SWORD, 1, "§6Espada de regalo " + i,
+                List.of("§7Regalo de amistad", "§7Enviado por Steve", "§8#" + i), enchants));
+        }
+        items.add(new ItemStack(Material.COOKED_BEEF, 32));
+
+        byte[] encoded = ItemStackCodec.encode(items);
+        // Cuerpo por encima del umbral: se guarda con GZIP
+        assertEquals(1, encoded[1]);
+
+        List<ItemStack> decoded = ItemStackCodec.decode(encoded);
+        BukkitItemFixture.assertSameItems(items, decoded);
+
+        TestItemMeta meta = (TestItemMeta) decoded.get(4).getItemMeta();
+        assertEquals("§6Espada de regalo 4", meta.getDisplayName());
+        assertEquals(List.of("§7Regalo de amistad", "§7Enviado por Steve", "§8#4"), meta.getLore());
+        assertEquals(Map.of("minecraft:sharpness", 5, "minecraft:unbreaking", 3), meta.getEnchantLevels());
+        assertFalse(decoded.get(12).hasItemMeta());
+    }
+
+    @Test
+    @DisplayName("El formato antiguo se decodifica y omite los items que ya no existen")
+    public void testLegacyDecoding() throws Exception {
+        List<ItemStack> items = List.of(new ItemStack(Material.DIAMOND, 3), new ItemStack(Material.OAK_LOG, 64),
+            new ItemStack(Material.POPPY, 1));
+        List<ItemStack> decoded = ItemStackCodec.decodeLegacy(BukkitItemFixture.encodeLegacy(items));
+        BukkitItemFixture.assertSameItems(items, decoded);
+
+        // Material eliminado en una versión posterior: el resto del regalo se conserva
+        List<Map<String, Object>> stored = new ArrayList<>();
+        for (ItemStack item : items) {
+            stored.add(item.serialize());
+        }
+        Map<String, Object> removed = new LinkedHashMap<>(stored.get(1));
+        removed.put("type", "REMOVED_MATERIAL");
+        stored.set(1, removed);
+        decoded = ItemStackCodec.decodeLegacy(BukkitItemFixture.encodeLegacyMaps(stored));
+        BukkitItemFixture.assertSameItems(List.of(items.get(0), items.get(2)), decoded);
+
+        assertTrue(ItemStackCodec.decodeLegacy(null).isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.fredygraces.giftbond.storage;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con EXPLAIN QUERY PLAN que las consultas de MailboxDAO usan un índice
+ * sobre el esquema real (todas las migraciones aplicadas)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class MailboxQueryPlanTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqliteTestFixture fixture;
+
+    @BeforeEach
+    public void setUp() {
+        fixture = new SqliteTestFixture(tempDir.resolve("data").toFile());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("Ninguna consulta del mailbox recorre la tabla completa")
+    public void testMailboxQueriesUseIndexes() throws Exception {
+        assertUsesIndex(MailboxDAO.PENDING_SUMMARY_SQL);
+        assertUsesIndex(MailboxDAO.MAILBOX_SUMMARY_SQL);
+        assertUsesIndex(MailboxDAO.PENDING_FROM_SENDER_SQL);
+        assertUsesIndex(MailboxDAO.ALL_PENDING_SQL);
+        assertUsesIndex(MailboxDAO.PENDING_ROW_SQL);
+        assertUsesIndex(MailboxDAO.EXPIRED_BATCH_SQL);
+        assertUsesIndex(MailboxDAO.claimSelectSql(3));
+        assertUsesIndex(MailboxDAO.claimDeleteSql(3));
+    }
+
+    @Test
+    @DisplayName("Las consultas de regalos pendientes usan el índice parcial")
+    public void testPendingQueriesUsePartialIndex() throws Exception {
+        assertTrue(plan(MailboxDAO.PENDING_FROM_SENDER_SQL).get(0).contains("idx_pending_receiver_sender"));
+        assertTrue(plan(MailboxDAO.PENDING_SUMMARY_SQL).get(0).contains("idx_pending_receiver_sender"));
+    }
+
+    private void assertUsesIndex(String sql) throws Exception {
+        List<String> details = plan(sql);
+        assertFalse(details.isEmpty(), sql);
+        for (String detail : details) {
+            assertFalse(detail.startsWith("SCAN"), () -> "Recorrido completo en: " + sql + " -> " + details);
+        }
+    }
+
+    private List<String> plan(String sql) throws Exception {
+        List<String> details = new ArrayList<>();
+        try (Connection conn = fixture.pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            // Los parámetros sin enlazar valen NULL: no influyen en el plan
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    details.add(rs.getString("detail"));
+                }
+            }
+        }
+        return details;
+    }
+}
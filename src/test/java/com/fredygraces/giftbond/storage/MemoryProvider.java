@@ -0,0 +1,815 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import com.fredygraces.giftbond.cache.PairLeaderboard;
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftHistoryEntry;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftRecord;
+import com.fredygraces.giftbond.managers.DatabaseManager.HistoryCursor;
+
+/**
+ * Proveedor de almacenamiento en memoria con persistencia por diario (journal)
+ * Todo el estado vive en mapas y arrays indexados por un id entero de jugador; cada
+ * mutación se añade al final de un diario binario (FileChannel) antes de aplicarse.
+ * Cuando el diario supera su tamaño máximo se escribe una instantánea compacta y se reinicia.
+ * Al arrancar se carga la instantánea y se reproduce el diario; un registro final
+ * incompleto (caída a mitad de escritura) se descarta por longitud y CRC32.
+ * Solo existe en los tests (prototipo descartado): el plugin guarda sus datos en SQLite
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class MemoryProvider implements StorageProvider {
+    private static final Logger logger = Logger.getLogger(MemoryProvider.class.getName());
+
+    private static final int JOURNAL_MAGIC = 0x47424A4C; // "GBJL"
+    private static final int SNAPSHOT_MAGIC = 0x47425350; // "GBSP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int JOURNAL_HEADER_SIZE = 16;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    // Tipos de registro del diario
+    private static final byte OP_FRIENDSHIP = 1;
+    private static final byte OP_PERSONAL_ADD = 2;
+    private static final byte OP_PERSONAL_SET = 3;
+    private static final byte OP_BOOST = 4;
+    private static final byte OP_HISTORY = 5;
+    private static final byte OP_DAILY = 6;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File backupFolder;
+    private final int historyPerPlayer;
+    private final long journalMaxBytes;
+    private final boolean syncEveryWrite;
+    private final Function<Collection<String>, Map<String, String>> nameResolver;
+
+    // ===== Estado =====
+
+    private final Map<UUID, Integer> playerIds = new HashMap<>();
+    private final List<UUID> players = new ArrayList<>();
+    private int[] personalPoints = new int[64];
+    private double[] boostMultipliers = new double[64];
+    private long[] boostExpiries = new long[64];
+    private int[] dailyCounts = new int[64];
+    private int[] friendshipTotals = new int[64];
+    private long dailyEpochDay = LocalDate.now().toEpochDay();
+
+    // Clave: (id emisor << 32) | id receptor
+    private final Map<Long, Friendship> friendships = new HashMap<>();
+    private final List<Map<Integer, Integer>> friendsByPlayer = new ArrayList<>();
+    private final List<ArrayDeque<GiftRecord>> historyByPlayer = new ArrayList<>();
+    private final PairLeaderboard leaderboard = new PairLeaderboard();
+    private long nextHistoryId = 1;
+
+    // ===== Diario =====
+
+    private FileChannel journal;
+    private long generation = 0;
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Proveedor independiente del servidor (sin instantáneas periódicas; se compacta
+     * al superar journalMaxBytes y al cerrar)
+     */
+    public MemoryProvider(File directory, int historyPerPlayer, long journalMaxBytes,
+                          Function<Collection<String>, Map<String, String>> nameResolver) {
+        this.snapshotFile = new File(directory, "snapshot.bin");
+        this.journalFile = new File(directory, "journal.bin");
+        this.backupFolder = null;
+        this.historyPerPlayer = historyPerPlayer;
+        this.journalMaxBytes = journalMaxBytes;
+        this.syncEveryWrite = false;
+        this.nameResolver = nameResolver;
+    }
+
+    @Override
+    public synchronized boolean initialize() {
+        try {
+            File directory = snapshotFile.getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("No se pudo crear " + directory);
+            }
+
+            // Reinicializar (por ejemplo tras restaurar un backup) parte de un estado vacío
+            clearState();
+            if (snapshotFile.exists()) {
+                loadSnapshot();
+            }
+            long replayed = replayJournal();
+            openJournal(replayed < 0);
+            replayed = Math.max(0, replayed);
+
+            logger.info("✅ Almacenamiento en memoria cargado: " + players.size() + " jugadores, "
+                + friendships.size() + " amistades, " + replayed + " operaciones del diario");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "❌ Error cargando el almacenamiento en memoria", e);
+            closeJournal();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (journal != null) {
+            snapshotQuietly();
+            closeJournal();
+        }
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return journal != null && journal.isOpen();
+    }
+
+    @Override
+    public String getType() {
+        return "memory";
+    }
+
+    // ===== FRIENDSHIP POINTS =====
+
+    @Override
+    public synchronized void saveFriendshipPoints(String senderUUID, String receiverUUID, int points) {
+        UUID sender = UUID.fromString(senderUUID);
+        UUID receiver = UUID.fromString(receiverUUID);
+        long now = System.currentTimeMillis();
+
+        ByteBuffer buffer = beginRecord(OP_FRIENDSHIP, 44);
+        putUuid(buffer, sender);
+        putUuid(buffer, receiver);
+        buffer.putInt(points);
+        buffer.putLong(now);
+        appendRecord();
+
+        applyFriendship(sender, receiver, points, now);
+    }
+
+    @Override
+    public synchronized int getFriendshipPoints(String senderUUID, String receiverUUID) {
+        int sender = idOf(senderUUID);
+        int receiver = idOf(receiverUUID);
+        if (sender < 0 || receiver < 0) {
+            return 0;
+        }
+        Friendship friendship = friendships.get(friendshipKey(sender, receiver));
+        return friendship != null ? friendship.points : 0;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getPlayerFriendsWithPoints(String playerUUID) {
+        Map<String, Integer> friends = new HashMap<>();
+        int id = idOf(playerUUID);
+        if (id < 0) {
+            return friends;
+        }
+        for (Map.Entry<Integer, Integer> entry : friendsByPlayer.get(id).entrySet()) {
+            friends.put(players.get(entry.getKey()).toString(), entry.getValue());
+        }
+        return friends;
+    }
+
+    @Override
+    public synchronized int getTotalFriendshipPoints(String playerUUID) {
+        int id = idOf(playerUUID);
+        return id >= 0 ? friendshipTotals[id] : 0;
+    }
+
+    @Override
+    public List<FriendshipPair> getTopFriendshipPairs(int limit) {
+        return leaderboard.getTop(limit);
+    }
+
+    // ===== PERSONAL POINTS =====
+
+    @Override
+    public synchronized void addPersonalPoints(String playerUUID, int points) {
+        UUID player = UUID.fromString(playerUUID);
+        ByteBuffer buffer = beginRecord(OP_PERSONAL_ADD, 20);
+        putUuid(buffer, player);
+        buffer.putInt(points);
+        appendRecord();
+
+        personalPoints[register(player)] += points;
+    }
+
+    @Override
+    public synchronized int getPersonalPoints(String playerUUID) {
+        int id = idOf(playerUUID);
+        return id >= 0 ? personalPoints[id] : 0;
+    }
+
+    @Override
+    public synchronized boolean spendPersonalPoints(String playerUUID, int amount) {
+        if (amount <= 0) {
+            return true;
+        }
+        if (getPersonalPoints(playerUUID) < amount) {
+            return false;
+        }
+        addPersonalPoints(playerUUID, -amount);
+        return true;
+    }
+
+    @Override
+    public synchronized void setPersonalPoints(String playerUUID, int points) {
+        UUID player = UUID.fromString(playerUUID);
+        ByteBuffer buffer = beginRecord(OP_PERSONAL_SET, 20);
+        putUuid(buffer, player);
+        buffer.putInt(points);
+        appendRecord();
+
+        personalPoints[register(player)] = points;
+    }
+
+    // ===== BOOSTS =====
+
+    @Override
+    public synchronized void setPersonalBoost(String playerUUID, double multiplier, long expiry) {
+        UUID player = UUID.fromString(playerUUID);
+        ByteBuffer buffer = beginRecord(OP_BOOST, 32);
+        putUuid(buffer, player);
+        buffer.putDouble(multiplier);
+        buffer.putLong(expiry);
+        appendRecord();
+
+        int id = register(player);
+        boostMultipliers[id] = multiplier;
+        boostExpiries[id] = expiry;
+    }
+
+    @Override
+    public synchronized double getPersonalBoost(String playerUUID) {
+        int id = idOf(playerUUID);
+        if (id >= 0 && boostExpiries[id] > System.currentTimeMillis()) {
+            return boostMultipliers[id];
+        }
+        return 1.0;
+    }
+
+    // ===== GIFT HISTORY =====
+
+    /**
+     * Se conservan los últimos memory.history_per_player regalos de cada jugador
+     */
+    @Override
+    public synchronized void saveGiftHistory(String senderUUID, String receiverUUID, String giftName, int points) {
+        UUID sender = UUID.fromString(senderUUID);
+        UUID receiver = UUID.fromString(receiverUUID);
+        byte[] name = giftName.getBytes(StandardCharsets.UTF_8);
+        long id = nextHistoryId;
+        long now = System.currentTimeMillis();
+
+        ByteBuffer buffer = beginRecord(OP_HISTORY, 56 + name.length);
+        buffer.putLong(id);
+        putUuid(buffer, sender);
+        putUuid(buffer, receiver);
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        buffer.putInt(points);
+        buffer.putLong(now);
+        appendRecord();
+
+        applyHistory(id, sender, receiver, giftName, points, now);
+    }
+
+    @Override
+    public List<GiftHistoryEntry> getGiftHistory(String playerUUID, int limit, int offset) {
+        return toHistoryEntries(pageHistory(playerUUID, null, limit, offset));
+    }
+
+    @Override
+    public List<GiftHistoryEntry> getGiftHistoryBefore(String playerUUID, HistoryCursor cursor, int limit) {
+        return toHistoryEntries(pageHistory(playerUUID, cursor, limit, 0));
+    }
+
+    private synchronized List<GiftRecord> pageHistory(String playerUUID, HistoryCursor cursor, int limit, int offset) {
+        List<GiftRecord> page = new ArrayList<>();
+        int id = idOf(playerUUID);
+        if (id < 0) {
+            return page;
+        }
+
+        int skipped = 0;
+        // Más reciente primero
+        Iterator<GiftRecord> iterator = historyByPlayer.get(id).iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            GiftRecord record = iterator.next();
+            if (cursor != null && (record.getTimestamp() > cursor.getTimestamp()
+                    || (record.getTimestamp() == cursor.getTimestamp() && record.getId() >= cursor.getId()))) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            page.add(record);
+        }
+        return page;
+    }
+
+    /**
+     * Resolver los nombres de una página en un solo lote (fuera del bloqueo)
+     */
+    private List<GiftHistoryEntry> toHistoryEntries(List<GiftRecord> records) {
+        Set<String> uuids = new HashSet<>();
+        for (GiftRecord record : records) {
+            uuids.add(record.getSenderUUID());
+            uuids.add(record.getReceiverUUID());
+        }
+        Map<String, String> names = nameResolver.apply(uuids);
+
+        List<GiftHistoryEntry> entries = new ArrayList<>(records.size());
+        for (GiftRecord record : records) {
+            entries.add(new GiftHistoryEntry(
+                record.getId(),
+                names.getOrDefault(record.getSenderUUID(), record.getSenderUUID()),
+                names.getOrDefault(record.getReceiverUUID(), record.getReceiverUUID()),
+                record.getGiftName(),
+                record.getPointsEarned(),
+                record.getTimestamp()
+            ));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized int getGiftHistoryCount(String playerUUID) {
+        int id = idOf(playerUUID);
+        return id >= 0 ? historyByPlayer.get(id).size() : 0;
+    }
+
+    // ===== DAILY LIMIT =====
+
+    @Override
+    public synchronized int getDailyGiftCount(String playerUUID) {
+        rollDailyCounts(LocalDate.now().toEpochDay());
+        int id = idOf(playerUUID);
+        return id >= 0 ? dailyCounts[id] : 0;
+    }
+
+    @Override
+    public synchronized void incrementDailyGiftCount(String playerUUID) {
+        UUID player = UUID.fromString(playerUUID);
+        long today = LocalDate.now().toEpochDay();
+        ByteBuffer buffer = beginRecord(OP_DAILY, 24);
+        putUuid(buffer, player);
+        buffer.putLong(today);
+        appendRecord();
+
+        applyDaily(player, today);
+    }
+
+    // ===== BACKUP & MAINTENANCE =====
+
+    /**
+     * Compactar y copiar la instantánea a la carpeta de backups
+     */
+    @Override
+    public synchronized void createManualBackup() {
+        if (backupFolder == null || journal == null) {
+            return;
+        }
+        try {
+            snapshot();
+            if (!backupFolder.exists() && !backupFolder.mkdirs()) {
+                throw new IOException("No se pudo crear " + backupFolder);
+            }
+            String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
+            File backupFile = new File(backupFolder, "memory_snapshot_manual_" + timestamp + ".bin");
+            Files.copy(snapshotFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.info(() -> "Manual memory backup created successfully: " + backupFile.getName());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error creating manual memory backup", e);
+        }
+    }
+
+    /**
+     * Escribir una instantánea compacta del estado y reiniciar el diario
+     * La instantánea lleva la generación nueva: si el proceso cae antes de reiniciar el
+     * diario, al arrancar se ignora el diario de la generación anterior (ya incluido)
+     */
+    public synchronized void snapshot() throws IOException {
+        long nextGeneration = generation + 1;
+        File tempFile = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+
+        try (FileOutputStream fos = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(nextGeneration);
+            out.writeLong(dailyEpochDay);
+            out.writeLong(nextHistoryId);
+
+            out.writeInt(players.size());
+            for (int id = 0; id < players.size(); id++) {
+                UUID player = players.get(id);
+                out.writeLong(player.getMostSignificantBits());
+                out.writeLong(player.getLeastSignificantBits());
+                out.writeInt(personalPoints[id]);
+                out.writeDouble(boostMultipliers[id]);
+                out.writeLong(boostExpiries[id]);
+                out.writeInt(dailyCounts[id]);
+            }
+
+            out.writeInt(friendships.size());
+            for (Map.Entry<Long, Friendship> entry : friendships.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().points);
+                out.writeLong(entry.getValue().lastInteraction);
+            }
+
+            // Cada regalo está en el historial del emisor y del receptor: escribirlo una vez
+            Map<Long, GiftRecord> history = new TreeMap<>();
+            for (ArrayDeque<GiftRecord> records : historyByPlayer) {
+                for (GiftRecord record : records) {
+                    history.put(record.getId(), record);
+                }
+            }
+            out.writeInt(history.size());
+            for (GiftRecord record : history.values()) {
+                out.writeLong(record.getId());
+                out.writeInt(playerIds.get(UUID.fromString(record.getSenderUUID())));
+                out.writeInt(playerIds.get(UUID.fromString(record.getReceiverUUID())));
+                out.writeUTF(record.getGiftName());
+                out.writeInt(record.getPointsEarned());
+                out.writeLong(record.getTimestamp());
+            }
+
+            out.flush();
+            fos.getFD().sync();
+        }
+
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+
+        // Diario vacío de la generación nueva
+        journal.truncate(0);
+        journal.position(0);
+        writeJournalHeader();
+        journal.force(true);
+    }
+
+    private void snapshotQuietly() {
+        synchronized (this) {
+            if (journal == null) {
+                return;
+            }
+            try {
+                snapshot();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "⚠ Error escribiendo la instantánea en memoria - el diario se conserva", e);
+            }
+        }
+    }
+
+    // ===== Recuperación =====
+
+    private void loadSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Instantánea con formato desconocido: " + snapshotFile);
+            }
+            generation = in.readLong();
+            dailyEpochDay = in.readLong();
+            nextHistoryId = in.readLong();
+
+            int playerCount = in.readInt();
+            for (int i = 0; i < playerCount; i++) {
+                int id = register(new UUID(in.readLong(), in.readLong()));
+                personalPoints[id] = in.readInt();
+                boostMultipliers[id] = in.readDouble();
+                boostExpiries[id] = in.readLong();
+                dailyCounts[id] = in.readInt();
+            }
+
+            int friendshipCount = in.readInt();
+            for (int i = 0; i < friendshipCount; i++) {
+                long key = in.readLong();
+                applyFriendship(players.get((int) (key >>> 32)), players.get((int) key), in.readInt(), in.readLong());
+            }
+
+            int historyCount = in.readInt();
+            for (int i = 0; i < historyCount; i++) {
+                long id = in.readLong();
+                UUID sender = players.get(in.readInt());
+                UUID receiver = players.get(in.readInt());
+                applyHistory(id, sender, receiver, in.readUTF(), in.readInt(), in.readLong());
+            }
+        }
+    }
+
+    /**
+     * Reproducir el diario sobre la instantánea cargada
+     * @return Operaciones reproducidas, o -1 si el diario es anterior a la instantánea y debe reiniciarse
+     */
+    private long replayJournal() throws IOException {
+        if (!journalFile.exists() || journalFile.length() < JOURNAL_HEADER_SIZE) {
+            return 0;
+        }
+
+        long replayed = 0;
+        long validEnd = JOURNAL_HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Diario con formato desconocido: " + journalFile);
+            }
+            long journalGeneration = in.readLong();
+            if (journalGeneration < generation) {
+                // La instantánea ya incluye este diario (caída antes de reiniciarlo)
+                return -1;
+            }
+            generation = journalGeneration;
+
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    int checksum = in.readInt();
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                applyRecord(ByteBuffer.wrap(payload));
+                validEnd += 8L + payload.length;
+                replayed++;
+            }
+        }
+
+        if (validEnd < journalFile.length()) {
+            logger.warning("⚠ Diario con un registro final incompleto: se descartan "
+                + (journalFile.length() - validEnd) + " bytes");
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+            }
+        }
+        return replayed;
+    }
+
+    private void applyRecord(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case OP_FRIENDSHIP -> applyFriendship(getUuid(buffer), getUuid(buffer), buffer.getInt(), buffer.getLong());
+            case OP_PERSONAL_ADD -> personalPoints[register(getUuid(buffer))] += buffer.getInt();
+            case OP_PERSONAL_SET -> personalPoints[register(getUuid(buffer))] = buffer.getInt();
+            case OP_BOOST -> {
+                int id = register(getUuid(buffer));
+                boostMultipliers[id] = buffer.getDouble();
+                boostExpiries[id] = buffer.getLong();
+            }
+            case OP_HISTORY -> {
+                long id = buffer.getLong();
+                UUID sender = getUuid(buffer);
+                UUID receiver = getUuid(buffer);
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                applyHistory(id, sender, receiver, new String(name, StandardCharsets.UTF_8), buffer.getInt(), buffer.getLong());
+            }
+            case OP_DAILY -> applyDaily(getUuid(buffer), buffer.getLong());
+            default -> logger.warning("⚠ Registro de diario desconocido: " + type);
+        }
+    }
+
+    private void openJournal(boolean stale) throws IOException {
+        boolean fresh = stale || !journalFile.exists() || journalFile.length() < JOURNAL_HEADER_SIZE;
+        journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (fresh) {
+            journal.truncate(0);
+            writeJournalHeader();
+            journal.force(true);
+        }
+        journal.position(journal.size());
+    }
+
+    private void writeJournalHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+        header.putInt(JOURNAL_MAGIC).putInt(FORMAT_VERSION).putLong(generation).flip();
+        while (header.hasRemaining()) {
+            journal.write(header);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error cerrando el diario", e);
+        }
+        journal = null;
+    }
+
+    // ===== Escritura del diario =====
+
+    /**
+     * Preparar el búfer de un registro: [longitud][tipo + datos][crc32]
+     */
+    private ByteBuffer beginRecord(byte type, int payloadSize) {
+        int size = 4 + 1 + payloadSize + 4;
+        if (recordBuffer.capacity() < size) {
+            recordBuffer = ByteBuffer.allocate(size);
+        }
+        recordBuffer.clear();
+        recordBuffer.putInt(0);
+        recordBuffer.put(type);
+        return recordBuffer;
+    }
+
+    /**
+     * Añadir el registro preparado al final del diario
+     * Si falla la escritura el cambio se mantiene en memoria y se guardará en la próxima instantánea
+     */
+    private void appendRecord() {
+        int length = recordBuffer.position() - 4;
+        recordBuffer.putInt(0, length);
+        crc.reset();
+        crc.update(recordBuffer.array(), 4, length);
+        recordBuffer.putInt((int) crc.getValue());
+        recordBuffer.flip();
+
+        if (journal == null) {
+            return;
+        }
+        try {
+            while (recordBuffer.hasRemaining()) {
+                journal.write(recordBuffer);
+            }
+            if (syncEveryWrite) {
+                journal.force(false);
+            }
+            if (journal.size() > journalMaxBytes) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "⚠ Error escribiendo en el diario", e);
+        }
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // ===== Aplicación de cambios (escritura en vivo y reproducción) =====
+
+    private void applyFriendship(UUID sender, UUID receiver, int points, long timestamp) {
+        int senderId = register(sender);
+        int receiverId = register(receiver);
+
+        Friendship friendship = friendships.computeIfAbsent(friendshipKey(senderId, receiverId), key -> new Friendship());
+        friendship.points += points;
+        friendship.lastInteraction = timestamp;
+
+        friendsByPlayer.get(senderId).merge(receiverId, points, Integer::sum);
+        friendshipTotals[senderId] += points;
+        if (receiverId != senderId) {
+            friendsByPlayer.get(receiverId).merge(senderId, points, Integer::sum);
+            friendshipTotals[receiverId] += points;
+        }
+        leaderboard.addPoints(sender.toString(), receiver.toString(), points);
+    }
+
+    private void applyHistory(long id, UUID sender, UUID receiver, String giftName, int points, long timestamp) {
+        int senderId = register(sender);
+        int receiverId = register(receiver);
+        GiftRecord record = new GiftRecord(id, sender.toString(), receiver.toString(), giftName, points, timestamp);
+
+        addHistory(senderId, record);
+        if (receiverId != senderId) {
+            addHistory(receiverId, record);
+        }
+        nextHistoryId = Math.max(nextHistoryId, id + 1);
+    }
+
+    private void addHistory(int playerId, GiftRecord record) {
+        ArrayDeque<GiftRecord> history = historyByPlayer.get(playerId);
+        history.addFirst(record);
+        while (history.size() > historyPerPlayer) {
+            history.removeLast();
+        }
+    }
+
+    private void applyDaily(UUID player, long epochDay) {
+        rollDailyCounts(Math.max(epochDay, dailyEpochDay));
+        if (epochDay == dailyEpochDay) {
+            dailyCounts[register(player)]++;
+        }
+    }
+
+    /**
+     * Los contadores diarios solo guardan el día actual: al cambiar de día se reinician
+     */
+    private void rollDailyCounts(long epochDay) {
+        if (epochDay > dailyEpochDay) {
+            Arrays.fill(dailyCounts, 0);
+            dailyEpochDay = epochDay;
+        }
+    }
+
+    private void clearState() {
+        playerIds.clear();
+        players.clear();
+        friendships.clear();
+        friendsByPlayer.clear();
+        historyByPlayer.clear();
+        leaderboard.load(List.of());
+        Arrays.fill(personalPoints, 0);
+        Arrays.fill(dailyCounts, 0);
+        Arrays.fill(friendshipTotals, 0);
+        Arrays.fill(boostExpiries, 0L);
+        dailyEpochDay = LocalDate.now().toEpochDay();
+        nextHistoryId = 1;
+        generation = 0;
+    }
+
+    // ===== Ids de jugador =====
+
+    private int idOf(String uuid) {
+        Integer id = playerIds.get(UUID.fromString(uuid));
+        return id != null ? id : -1;
+    }
+
+    private int register(UUID uuid) {
+        Integer existing = playerIds.get(uuid);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = players.size();
+        players.add(uuid);
+        playerIds.put(uuid, id);
+        friendsByPlayer.add(new HashMap<>());
+        historyByPlayer.add(new ArrayDeque<>());
+
+        if (id >= personalPoints.length) {
+            int capacity = personalPoints.length * 2;
+            personalPoints = Arrays.copyOf(personalPoints, capacity);
+            boostMultipliers = Arrays.copyOf(boostMultipliers, capacity);
+            boostExpiries = Arrays.copyOf(boostExpiries, capacity);
+            dailyCounts = Arrays.copyOf(dailyCounts, capacity);
+            friendshipTotals = Arrays.copyOf(friendshipTotals, capacity);
+        }
+        boostMultipliers[id] = 1.0;
+        return id;
+    }
+
+    private static long friendshipKey(int senderId, int receiverId) {
+        return ((long) senderId << 32) | (receiverId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Puntos de amistad de un emisor hacia un receptor
+     */
+    private static class Friendship {
+        private int points;
+        private long lastInteraction;
+    }
+}
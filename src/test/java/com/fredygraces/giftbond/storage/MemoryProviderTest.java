@@ -0,0 +1,116 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftHistoryEntry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de recuperación del almacenamiento en memoria (instantánea + diario)
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class MemoryProviderTest {
+
+    private static final String ALICE = new UUID(1, 1).toString();
+    private static final String BOB = new UUID(2, 2).toString();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Reproducir el diario tras una caída sin instantánea")
+    public void testJournalReplayAfterCrash() {
+        MemoryProvider crashed = open(Long.MAX_VALUE);
+        writeSampleData(crashed);
+        // Sin close(): el proceso cae y solo queda el diario
+
+        MemoryProvider recovered = open(Long.MAX_VALUE);
+        assertSampleData(recovered);
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("Un registro final incompleto se descarta")
+    public void testTornTailIsDiscarded() throws Exception {
+        MemoryProvider crashed = open(Long.MAX_VALUE);
+        writeSampleData(crashed);
+        Files.write(tempDir.resolve("journal.bin"), new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        MemoryProvider recovered = open(Long.MAX_VALUE);
+        assertSampleData(recovered);
+        recovered.addPersonalPoints(ALICE, 1);
+
+        // Lo escrito después de la recuperación no queda detrás de basura
+        MemoryProvider again = open(Long.MAX_VALUE);
+        assertEquals(11, again.getPersonalPoints(ALICE));
+    }
+
+    @Test
+    @DisplayName("Las instantáneas compactan el diario sin perder datos")
+    public void testSnapshotCompaction() {
+        MemoryProvider provider = open(1);
+        writeSampleData(provider);
+        provider.close();
+
+        File journal = tempDir.resolve("journal.bin").toFile();
+        assertTrue(journal.length() <= 16);
+
+        MemoryProvider reopened = open(1);
+        assertSampleData(reopened);
+        reopened.close();
+    }
+
+    private MemoryProvider open(long journalMaxBytes) {
+        MemoryProvider provider = new MemoryProvider(tempDir.toFile(), 100, journalMaxBytes, MemoryProviderTest::identityNames);
+        assertTrue(provider.initialize());
+        return provider;
+    }
+
+    private static void writeSampleData(MemoryProvider provider) {
+        provider.saveFriendshipPoints(ALICE, BOB, 5);
+        provider.saveFriendshipPoints(BOB, ALICE, 3);
+        provider.addPersonalPoints(ALICE, 12);
+        assertTrue(provider.spendPersonalPoints(ALICE, 2));
+        provider.setPersonalBoost(BOB, 2.0, System.currentTimeMillis() + 60_000);
+        provider.saveGiftHistory(ALICE, BOB, "rose", 5);
+        provider.saveGiftHistory(BOB, ALICE, "cake", 3);
+        provider.incrementDailyGiftCount(ALICE);
+    }
+
+    private static void assertSampleData(MemoryProvider provider) {
+        assertEquals(5, provider.getFriendshipPoints(ALICE, BOB));
+        assertEquals(8, provider.getTotalFriendshipPoints(BOB));
+        assertEquals(8, provider.getTopFriendshipPairs(1).get(0).getPoints());
+        assertEquals(10, provider.getPersonalPoints(ALICE));
+        assertEquals(2.0, provider.getPersonalBoost(BOB));
+        assertEquals(1, provider.getDailyGiftCount(ALICE));
+
+        List<GiftHistoryEntry> history = provider.getGiftHistoryBefore(ALICE, null, 10);
+        assertEquals(2, history.size());
+        assertEquals("cake", history.get(0).getGiftName());
+        assertEquals("rose", provider.getGiftHistoryBefore(ALICE, history.get(0).toCursor(), 10).get(0).getGiftName());
+    }
+
+    private static Map<String, String> identityNames(Collection<String> uuids) {
+        Map<String, String> names = new HashMap<>();
+        for (String uuid : uuids) {
+            names.put(uuid, uuid);
+        }
+        return names;
+    }
+}
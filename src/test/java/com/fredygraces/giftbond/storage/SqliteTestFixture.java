@@ -0,0 +1,111 @@
+package com.fredygraces.giftbond.storage;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import com.fredygraces.giftbond.GiftBond;
+import com.fredygraces.giftbond.cache.PlayerNameCache;
+import com.fredygraces.giftbond.managers.ConfigManager;
+import com.fredygraces.giftbond.managers.DatabaseManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * DatabaseManager real (pool, transacciones, migraciones) sobre un plugin simulado
+ * La escritura diferida se desactiva para trabajar directamente contra SQLite
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+class SqliteTestFixture {
+    final GiftBond plugin;
+    final StorageProvider provider;
+    final DatabaseManager databaseManager;
+    final ConnectionPoolManager pool;
+    final StorageExecutor executor;
+
+    SqliteTestFixture(File dataFolder) {
+        assertTrue(dataFolder.mkdirs());
+        plugin = mock(GiftBond.class);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("GiftBondTest"));
+        when(plugin.isEnabled()).thenReturn(true);
+
+        YamlConfiguration databaseConfig = new YamlConfiguration();
+        databaseConfig.set("write_behind.enabled", false);
+        databaseConfig.set("local.uuid_format", "binary");
+        ConfigManager configManager = mock(ConfigManager.class);
+        when(configManager.getDatabaseConfig()).thenReturn(databaseConfig);
+        when(configManager.getMainConfig()).thenReturn(new YamlConfiguration());
+        when(plugin.getConfigManager()).thenReturn(configManager);
+
+        Server server = mock(Server.class);
+        when(server.getScheduler()).thenReturn(mock(BukkitScheduler.class));
+        when(plugin.getServer()).thenReturn(server);
+
+        PlayerNameCache nameCache = mock(PlayerNameCache.class);
+        when(nameCache.resolveNameStrings(any())).thenAnswer(inv -> identityNames(inv.getArgument(0)));
+        when(plugin.getPlayerNameCache()).thenReturn(nameCache);
+
+        executor = new StorageExecutor(plugin);
+        when(plugin.getStorageExecutor()).thenReturn(executor);
+        pool = new ConnectionPoolManager(plugin);
+        when(plugin.getConnectionPoolManager()).thenReturn(pool);
+        assertTrue(pool.initialize());
+        TransactionManager transactionManager = new TransactionManager(plugin);
+        when(plugin.getTransactionManager()).thenReturn(transactionManager);
+
+        databaseManager = new DatabaseManager(plugin);
+        when(plugin.getDatabaseManager()).thenReturn(databaseManager);
+        assertTrue(databaseManager.initialize());
+
+        provider = new SQLiteProvider(plugin, databaseManager);
+    }
+
+    void close() {
+        databaseManager.close();
+        executor.shutdown();
+        pool.shutdown();
+    }
+
+    /**
+     * Puntos del top de parejas leídos con SQL (sin pasar por el ranking en memoria)
+     */
+    List<Integer> topPairPoints(int limit) throws SQLException {
+        List<Integer> points = new ArrayList<>();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "SELECT total_points FROM pair_totals ORDER BY total_points DESC LIMIT ?")) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    points.add(rs.getInt(1));
+                }
+            }
+        }
+        return points;
+    }
+
+    static Map<String, String> identityNames(Collection<String> uuids) {
+        Map<String, String> names = new HashMap<>();
+        for (String uuid : uuids) {
+            names.put(uuid, uuid);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,148 @@
+package com.fredygraces.giftbond.storage;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fredygraces.giftbond.managers.DatabaseManager.FriendshipPair;
+import com.fredygraces.giftbond.managers.DatabaseManager.GiftHistoryEntry;
+import com.fredygraces.giftbond.managers.DatabaseManager.HistoryCursor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparativa SQLite vs H2 con la mezcla real de consultas del plugin:
+ * regalos (puntos de amistad, puntos personales, historial, límite diario),
+ * top de parejas y páginas de historial por cursor. El top se lee con SQL en los dos
+ * motores (en el plugin SQLite lo sirve el ranking en memoria)
+ * Se ejecuta solo con -Dgiftbond.benchmark=true
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+@EnabledIfSystemProperty(named = "giftbond.benchmark", matches = "true")
+public class StorageProviderBenchmarkTest {
+    private static final Logger logger = Logger.getLogger(StorageProviderBenchmarkTest.class.getName());
+
+    private static final int PLAYERS = 200;
+    private static final int GIFTS = Integer.getInteger("giftbond.benchmark.gifts", 20_000);
+    private static final int READ_EVERY = 10;
+    private static final int PAGE_SIZE = 45;
+    private static final int TOP_SIZE = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("SQLite y H2 con la misma mezcla de escrituras y lecturas")
+    public void benchmarkProviders() throws Exception {
+        List<String> players = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(new UUID(random.nextLong(), random.nextLong()).toString());
+        }
+
+        SqliteTestFixture sqlite = new SqliteTestFixture(tempDir.resolve("sqlite").toFile());
+        H2Provider h2 = new H2Provider(H2Provider.fileUrl(tempDir.resolve("h2").resolve("giftbond_h2").toFile()),
+            null, SqliteTestFixture::identityNames);
+        assertTrue(h2.initialize());
+
+        try {
+            Result sqliteResult = run(sqlite.provider, sqlite::topPairPoints, players);
+            Result h2Result = run(h2, limit -> pairPoints(h2.getTopFriendshipPairs(limit)), players);
+
+            logger.info(GIFTS + " regalos, " + PLAYERS + " jugadores");
+            logger.info(sqliteResult.describe("sqlite"));
+            logger.info(h2Result.describe("h2"));
+
+            // Ambos motores deben terminar con los mismos datos
+            assertEquals(sqlite.topPairPoints(TOP_SIZE), pairPoints(h2.getTopFriendshipPairs(TOP_SIZE)));
+            assertEquals(sqlite.provider.getTotalFriendshipPoints(players.get(0)), h2.getTotalFriendshipPoints(players.get(0)));
+            assertEquals(sqlite.provider.getGiftHistoryCount(players.get(0)), h2.getGiftHistoryCount(players.get(0)));
+        } finally {
+            h2.close();
+            sqlite.close();
+        }
+    }
+
+    private static Result run(StorageProvider provider, TopQuery topQuery, List<String> players) throws SQLException {
+        Random random = new Random(7);
+        Result result = new Result();
+
+        for (int i = 0; i < GIFTS; i++) {
+            String sender = players.get(random.nextInt(players.size()));
+            String receiver = players.get(random.nextInt(players.size()));
+            if (sender.equals(receiver)) {
+                continue;
+            }
+            int points = 1 + random.nextInt(20);
+
+            long start = System.nanoTime();
+            provider.saveFriendshipPoints(sender, receiver, points);
+            provider.addPersonalPoints(sender, 1);
+            provider.saveGiftHistory(sender, receiver, "gift_" + (i % 8), points);
+            provider.incrementDailyGiftCount(sender);
+            result.writeNanos += System.nanoTime() - start;
+            result.writes++;
+
+            if (i % READ_EVERY == 0) {
+                start = System.nanoTime();
+                topQuery.top(TOP_SIZE);
+                result.topNanos += System.nanoTime() - start;
+                result.topReads++;
+
+                // Primera página y la siguiente por cursor, como en el menú de historial
+                start = System.nanoTime();
+                List<GiftHistoryEntry> page = provider.getGiftHistoryBefore(sender, null, PAGE_SIZE);
+                if (!page.isEmpty()) {
+                    HistoryCursor cursor = page.get(page.size() - 1).toCursor();
+                    provider.getGiftHistoryBefore(sender, cursor, PAGE_SIZE);
+                }
+                result.historyNanos += System.nanoTime() - start;
+                result.historyReads++;
+            }
+        }
+        return result;
+    }
+
+    private static List<Integer> pairPoints(List<FriendshipPair> pairs) {
+        List<Integer> points = new ArrayList<>();
+        for (FriendshipPair pair : pairs) {
+            points.add(pair.getPoints());
+        }
+        return points;
+    }
+
+    /**
+     * Top de parejas por SQL en cada motor
+     */
+    private interface TopQuery {
+        List<Integer> top(int limit) throws SQLException;
+    }
+
+    /**
+     * Tiempos acumulados por tipo de operación
+     */
+    private static class Result {
+        long writes, topReads, historyReads;
+        long writeNanos, topNanos, historyNanos;
+
+        String describe(String engine) {
+            return String.format("%-6s regalo %.1f µs | top-10 %.1f µs | página historial %.1f µs",
+                engine, micros(writeNanos, writes), micros(topNanos, topReads), micros(historyNanos, historyReads));
+        }
+
+        private static double micros(long nanos, long count) {
+            return count == 0 ? 0 : nanos / 1000.0 / count;
+        }
+    }
+}
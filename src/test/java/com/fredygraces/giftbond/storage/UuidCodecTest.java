@@ -0,0 +1,52 @@
+package com.fredygraces.giftbond.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para la codificación binaria de UUIDs
+ *
+ * @author GiftBond Team
+ * @version 1.2.0
+ */
+public class UuidCodecTest {
+
+    @Test
+    @DisplayName("Ida y vuelta de 16 bytes")
+    public void testRoundTrip() {
+        UUID uuid = UUID.randomUUID();
+        byte[] bytes = UuidCodec.toBytes(uuid);
+
+        assertEquals(16, bytes.length);
+        assertEquals(uuid, UuidCodec.fromBytes(bytes));
+        assertNull(UuidCodec.fromBytes(null));
+    }
+
+    @Test
+    @DisplayName("El orden de bytes coincide con el orden del texto")
+    public void testOrderMatchesText() {
+        for (int i = 0; i < 1000; i++) {
+            UUID a = UUID.randomUUID();
+            UUID b = UUID.randomUUID();
+
+            int textOrder = Integer.signum(a.toString().compareTo(b.toString()));
+            int byteOrder = Integer.signum(Arrays.compareUnsigned(UuidCodec.toBytes(a), UuidCodec.toBytes(b)));
+            assertEquals(textOrder, byteOrder);
+        }
+    }
+
+    @Test
+    @DisplayName("Valores sin convertir se leen como texto")
+    public void testUnconvertedTextFallback() {
+        UUID uuid = UUID.randomUUID();
+        byte[] text = uuid.toString().getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(uuid, UuidCodec.fromBytes(text));
+    }
+}